@@ -1,6 +1,7 @@
 package com.xiaowang.cola;
 
 import com.xiaowang.cola.api.user.service.UserFacadeService;
+import com.xiaowang.cola.api.user.service.UserQueryBatcher;
 import org.apache.dubbo.config.annotation.DubboReference;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
@@ -32,5 +33,11 @@ public class BusinessDubboConfiguration {
         return userFacadeService;
     }
 
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public UserQueryBatcher userQueryBatcher() {
+        return new UserQueryBatcher(userFacadeService);
+    }
+
 
 }
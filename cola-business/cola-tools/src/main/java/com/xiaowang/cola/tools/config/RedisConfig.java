@@ -1,5 +1,6 @@
 package com.xiaowang.cola.tools.config;
 
+import com.xiaowang.cola.cache.stress.ShadowKeyRedisSerializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -26,8 +27,8 @@ public class RedisConfig {
     // 使用StringRedisSerializer来序列化和反序列化redis的key和value
     StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
 
-    // key采用String的序列化方式
-    template.setKeySerializer(stringRedisSerializer);
+    // key采用String的序列化方式，压测流量自动加上影子前缀
+    template.setKeySerializer(new ShadowKeyRedisSerializer());
     // value采用String的序列化方式
     template.setValueSerializer(stringRedisSerializer);
     // hash的key也采用String的序列化方式
@@ -0,0 +1,44 @@
+package com.xiaowang.cola.tools.config;
+
+import com.xiaowang.cola.tools.domain.enums.SubmitTokenMode;
+import com.xiaowang.cola.tools.domain.token.SubmitTokenSigner;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+
+/**
+ * 防重Token配置
+ *
+ * @author cola
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(SubmitTokenProperties.class)
+public class SubmitTokenConfig {
+
+  /**
+   * 有场景使用无状态Token时必须配置密钥，否则启动失败；
+   * 没有场景使用无状态Token时才允许不配置，此时使用随机密钥，签名器不会被用到
+   */
+  @Bean
+  public SubmitTokenSigner submitTokenSigner(SubmitTokenProperties properties) {
+    byte[] secret;
+    if (StringUtils.isNotBlank(properties.getSecret())) {
+      secret = properties.getSecret().getBytes(StandardCharsets.UTF_8);
+    } else {
+      if (properties.isStatelessUsed()) {
+        throw new IllegalStateException(SubmitTokenProperties.PREFIX + ".secret must be configured when any scene uses "
+            + SubmitTokenMode.STATELESS + " submit token");
+      }
+      log.info("{}.secret is not configured and no scene uses stateless submit token, use random secret", SubmitTokenProperties.PREFIX);
+      secret = new byte[32];
+      new SecureRandom().nextBytes(secret);
+    }
+    return new SubmitTokenSigner(secret);
+  }
+}
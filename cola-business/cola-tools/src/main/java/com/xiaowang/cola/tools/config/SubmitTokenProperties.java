@@ -0,0 +1,54 @@
+package com.xiaowang.cola.tools.config;
+
+import com.xiaowang.cola.tools.domain.enums.SubmitTokenMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 防重Token配置
+ *
+ * @author cola
+ */
+@Data
+@ConfigurationProperties(prefix = SubmitTokenProperties.PREFIX)
+public class SubmitTokenProperties {
+
+  public static final String PREFIX = "spring.submit-token";
+
+  /**
+   * 默认模式
+   */
+  private SubmitTokenMode defaultMode = SubmitTokenMode.REDIS;
+
+  /**
+   * 按场景指定模式，未指定的场景使用默认模式
+   */
+  private Map<String, SubmitTokenMode> sceneModes = new HashMap<>();
+
+  /**
+   * 无状态Token的签名密钥，多实例部署时必须一致
+   */
+  private String secret;
+
+  /**
+   * 已消费nonce的时间分桶大小（秒），按Token过期时间分桶，同一桶内的key一起过期
+   */
+  private long nonceBucketSeconds = 60;
+
+  /**
+   * 获取场景对应的模式
+   */
+  public SubmitTokenMode getMode(String scene) {
+    return sceneModes.getOrDefault(scene, defaultMode);
+  }
+
+  /**
+   * 是否有场景使用无状态Token
+   */
+  public boolean isStatelessUsed() {
+    return defaultMode == SubmitTokenMode.STATELESS || sceneModes.containsValue(SubmitTokenMode.STATELESS);
+  }
+}
@@ -14,6 +14,11 @@ public class StockConstant {
   public static final String STOCK_RECORD_KEY_PREFIX = "stock_record:";
   public static final String STOCK_RECORD_INDEX_KEY_PREFIX = "stock_record_index:";
 
+  /**
+   * 热点Key探测场景
+   */
+  public static final String HOT_KEY_SCENE = "stock";
+
   /**
    * 流水记录默认过期时间（7天）
    */
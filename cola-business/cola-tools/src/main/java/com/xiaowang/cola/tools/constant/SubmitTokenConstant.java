@@ -12,11 +12,21 @@ public class SubmitTokenConstant {
    */
   private static final String TOKEN_PREFIX = "token:";
 
+  /**
+   * 无状态Token已消费nonce的key中缀
+   */
+  public static final String NONCE_KEY_INFIX = "nonce:";
+
   /**
    * Token有效期（秒） - 默认5分钟
    */
   public static final long TOKEN_EXPIRE_TIME = 300;
 
+  /**
+   * 热点Key探测场景
+   */
+  public static final String HOT_KEY_SCENE = "submitToken";
+
   /**
    * Token长度
    */
@@ -109,10 +109,11 @@ public class ToolController {
             @RequestParam(required = false) String toolName,
             @RequestParam(required = false) String toolType,
             @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "1") int currentPage,
             @RequestParam(defaultValue = "10") int pageSize) {
         
-        PageResponse<Tool> result = toolService.pageQuery(toolName, toolType, status, currentPage, pageSize);
+        PageResponse<Tool> result = toolService.pageQuery(toolName, toolType, status, cursor, currentPage, pageSize);
         return Result.success(result);
     }
 
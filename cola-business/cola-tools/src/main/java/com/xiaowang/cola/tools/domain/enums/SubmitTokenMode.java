@@ -0,0 +1,19 @@
+package com.xiaowang.cola.tools.domain.enums;
+
+/**
+ * 防重Token模式
+ *
+ * @author cola
+ */
+public enum SubmitTokenMode {
+
+  /**
+   * 生成时写入Redis，验证时比对并删除
+   */
+  REDIS,
+
+  /**
+   * 无状态签名Token，生成时不访问Redis，验证时本地验签后用 SET NX 消费一次性nonce
+   */
+  STATELESS
+}
@@ -3,6 +3,8 @@ package com.xiaowang.cola.tools.domain.service;
 import cn.hutool.core.lang.UUID;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.json.JSONUtil;
+import com.xiaowang.cola.cache.hotkey.HotKeyDetector;
+import com.xiaowang.cola.cache.hotkey.HotKeyLocalCache;
 import com.xiaowang.cola.tools.constant.LuaScriptConstant;
 import com.xiaowang.cola.tools.constant.StockConstant;
 import com.xiaowang.cola.tools.domain.entity.StockRecord;
@@ -32,6 +34,8 @@ public class StockService {
 
   private final RedisTemplate<String, String> redisTemplate;
   private final StockRecordPersistenceService persistenceService;
+  private final HotKeyDetector hotKeyDetector;
+  private final HotKeyLocalCache hotKeyLocalCache;
 
   /**
    * 库存扣减
@@ -40,6 +44,8 @@ public class StockService {
    * @return 扣减响应
    */
   public StockDeductResponse deductStock(StockDeductParam param) {
+    hotKeyDetector.sample(StockConstant.HOT_KEY_SCENE, param.getProductId());
+
     // 生成流水记录ID
     String recordId = UUID.randomUUID().toString(true);
 
@@ -75,6 +81,11 @@ public class StockService {
       return StockDeductResponse.failure(param.getProductId(), param.getAmount(), "系统异常，请稍后重试");
     }
 
+    // 扣减成功后先失效热点本地缓存，保证返回的剩余库存是最新的
+    if (StockConstant.LuaResult.SUCCESS.equals(result)) {
+      hotKeyLocalCache.invalidate(StockConstant.HOT_KEY_SCENE, param.getProductId());
+    }
+
     // 根据返回值处理结果
     StockDeductResponse response = handleDeductResult(result, param, recordId);
 
@@ -95,19 +106,22 @@ public class StockService {
   public void initStock(String productId, Integer stock) {
     String stockKey = buildStockKey(productId);
     redisTemplate.opsForValue().set(stockKey, stock.toString());
+    hotKeyLocalCache.invalidate(StockConstant.HOT_KEY_SCENE, productId);
     log.info("初始化商品库存成功，productId={}, stock={}", productId, stock);
   }
 
   /**
-   * 获取商品当前库存
+   * 获取商品当前库存，热点商品开启本地缓存后会短暂读本地
    *
    * @param productId 商品ID
    * @return 当前库存，不存在返回null
    */
   public Integer getCurrentStock(String productId) {
-    String stockKey = buildStockKey(productId);
-    String stockStr = redisTemplate.opsForValue().get(stockKey);
-    return stockStr != null ? Integer.valueOf(stockStr) : null;
+    return hotKeyLocalCache.get(StockConstant.HOT_KEY_SCENE, productId, () -> {
+      String stockKey = buildStockKey(productId);
+      String stockStr = redisTemplate.opsForValue().get(stockKey);
+      return stockStr != null ? Integer.valueOf(stockStr) : null;
+    });
   }
 
   /**
@@ -2,10 +2,15 @@ package com.xiaowang.cola.tools.domain.service;
 
 import cn.hutool.core.lang.UUID;
 import cn.hutool.core.util.ObjectUtil;
+import com.xiaowang.cola.cache.hotkey.HotKeyDetector;
+import com.xiaowang.cola.tools.config.SubmitTokenProperties;
 import com.xiaowang.cola.tools.constant.LuaScriptConstant;
 import com.xiaowang.cola.tools.constant.SubmitTokenConstant;
+import com.xiaowang.cola.tools.domain.enums.SubmitTokenMode;
 import com.xiaowang.cola.tools.domain.resp.SubmitTokenResponse;
 import com.xiaowang.cola.tools.domain.resp.SubmitTokenValidateResponse;
+import com.xiaowang.cola.tools.domain.token.SubmitTokenClaims;
+import com.xiaowang.cola.tools.domain.token.SubmitTokenSigner;
 import com.xiaowang.cola.tools.param.SubmitTokenGenerateParam;
 import com.xiaowang.cola.tools.param.SubmitTokenValidateParam;
 import lombok.RequiredArgsConstructor;
@@ -28,6 +33,9 @@ import java.util.concurrent.TimeUnit;
 public class SubmitTokenService {
 
   private final RedisTemplate<String, String> redisTemplate;
+  private final HotKeyDetector hotKeyDetector;
+  private final SubmitTokenProperties submitTokenProperties;
+  private final SubmitTokenSigner submitTokenSigner;
 
   /**
    * 生成防重Token
@@ -36,11 +44,16 @@ public class SubmitTokenService {
    * @return Token响应
    */
   public SubmitTokenResponse generateToken(SubmitTokenGenerateParam param) {
+    if (submitTokenProperties.getMode(param.getScene()) == SubmitTokenMode.STATELESS) {
+      return generateStatelessToken(param);
+    }
+
     // 生成唯一Token
     String token = UUID.randomUUID().toString(true);
 
     // 构建Redis key
     String redisKey = buildTokenKey(param.getScene(), param.getUserId(), param.getBizId());
+    hotKeyDetector.sample(SubmitTokenConstant.HOT_KEY_SCENE, redisKey);
 
     // 存储到Redis，设置过期时间
     redisTemplate.opsForValue().set(
@@ -66,7 +79,13 @@ public class SubmitTokenService {
    * @return 验证响应
    */
   public SubmitTokenValidateResponse validateToken(SubmitTokenValidateParam param) {
+    // 按Token格式区分，切换场景模式时已签发的Token仍能正常验证
+    if (SubmitTokenSigner.isStateless(param.getToken())) {
+      return validateStatelessToken(param);
+    }
+
     String redisKey = buildTokenKey(param.getScene(), param.getUserId(), null);
+    hotKeyDetector.sample(SubmitTokenConstant.HOT_KEY_SCENE, redisKey);
 
     // 使用Lua脚本保证原子性：验证token并删除
     DefaultRedisScript<Long> script = new DefaultRedisScript<>();
@@ -115,6 +134,87 @@ public class SubmitTokenService {
     }
   }
 
+  /**
+   * 生成无状态Token，签名后直接返回，不写Redis
+   */
+  private SubmitTokenResponse generateStatelessToken(SubmitTokenGenerateParam param) {
+    hotKeyDetector.sample(SubmitTokenConstant.HOT_KEY_SCENE, buildTokenKey(param.getScene(), param.getUserId(), param.getBizId()));
+
+    long now = System.currentTimeMillis();
+    SubmitTokenClaims claims = new SubmitTokenClaims(param.getScene(), param.getUserId(), param.getBizId(),
+        now + TimeUnit.SECONDS.toMillis(SubmitTokenConstant.TOKEN_EXPIRE_TIME), UUID.randomUUID().toString(true));
+    String token = submitTokenSigner.sign(claims);
+
+    log.info("生成无状态防重Token成功，scene={}, userId={}, bizId={}, nonce={}",
+        param.getScene(), param.getUserId(), param.getBizId(), claims.getNonce());
+
+    return SubmitTokenResponse.builder()
+        .token(token)
+        .expireTime(SubmitTokenConstant.TOKEN_EXPIRE_TIME)
+        .timestamp(now)
+        .build();
+  }
+
+  /**
+   * 验证无状态Token：本地验签、校验场景和用户、校验过期，最后用 SET NX PX 消费nonce
+   */
+  private SubmitTokenValidateResponse validateStatelessToken(SubmitTokenValidateParam param) {
+    SubmitTokenClaims claims = submitTokenSigner.verify(param.getToken());
+    if (claims == null || !claims.getScene().equals(param.getScene()) || !claims.getUserId().equals(param.getUserId())) {
+      log.warn("Token签名或归属不匹配，scene={}, userId={}, token={}",
+          param.getScene(), param.getUserId(), param.getToken());
+      return SubmitTokenValidateResponse.builder()
+          .valid(false)
+          .message("Token无效")
+          .token(param.getToken())
+          .build();
+    }
+
+    long now = System.currentTimeMillis();
+    if (claims.isExpired(now)) {
+      log.warn("Token已过期，scene={}, userId={}, nonce={}", param.getScene(), param.getUserId(), claims.getNonce());
+      return SubmitTokenValidateResponse.builder()
+          .valid(false)
+          .message("Token不存在或已过期，请重新获取")
+          .token(param.getToken())
+          .build();
+    }
+
+    hotKeyDetector.sample(SubmitTokenConstant.HOT_KEY_SCENE, buildTokenKey(claims.getScene(), claims.getUserId(), claims.getBizId()));
+
+    // nonce只需要保留到Token过期，过期后验签阶段就会拦截
+    Boolean consumed = redisTemplate.opsForValue().setIfAbsent(
+        buildNonceKey(claims),
+        "1",
+        claims.getExpireAt() - now,
+        TimeUnit.MILLISECONDS);
+
+    if (!Boolean.TRUE.equals(consumed)) {
+      log.warn("Token已被使用，scene={}, userId={}, nonce={}", param.getScene(), param.getUserId(), claims.getNonce());
+      return SubmitTokenValidateResponse.builder()
+          .valid(false)
+          .message("Token不存在或已过期，请重新获取")
+          .token(param.getToken())
+          .build();
+    }
+
+    log.info("无状态Token验证成功，scene={}, userId={}, nonce={}",
+        param.getScene(), param.getUserId(), claims.getNonce());
+    return SubmitTokenValidateResponse.builder()
+        .valid(true)
+        .message("验证通过")
+        .token(param.getToken())
+        .build();
+  }
+
+  /**
+   * 构建已消费nonce的Redis Key，按过期时间分桶：token:nonce:{bucket}:{nonce}
+   */
+  private String buildNonceKey(SubmitTokenClaims claims) {
+    long bucket = claims.getExpireAt() / TimeUnit.SECONDS.toMillis(submitTokenProperties.getNonceBucketSeconds());
+    return SubmitTokenConstant.getTokenPrefix() + SubmitTokenConstant.NONCE_KEY_INFIX + bucket + ":" + claims.getNonce();
+  }
+
   /**
    * 构建Token的Redis Key
    */
@@ -132,7 +232,7 @@ public class SubmitTokenService {
   }
 
   /**
-   * 删除Token（用于特殊场景下手动清除）
+   * 删除Token（用于特殊场景下手动清除，只对Redis模式生效，无状态Token只能通过验证消费）
    *
    * @param scene  业务场景
    * @param userId 用户ID
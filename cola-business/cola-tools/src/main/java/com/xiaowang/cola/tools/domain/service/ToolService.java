@@ -6,9 +6,11 @@ import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONException;
 import com.alibaba.fastjson2.JSONWriter;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.xiaowang.cola.base.request.PageCursor;
 import com.xiaowang.cola.base.response.PageResponse;
+import com.xiaowang.cola.datasource.page.PageTotalCache;
+import com.xiaowang.cola.datasource.page.SeekPageHelper;
 import com.xiaowang.cola.tools.domain.entity.Tool;
 import com.xiaowang.cola.tools.domain.resp.JsonFormatResponse;
 import com.xiaowang.cola.tools.infrastructure.exception.ToolErrorCode;
@@ -18,12 +20,15 @@ import com.xiaowang.cola.tools.param.JsonFormatParam;
 import com.xiaowang.cola.tools.utils.ToolConstants;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static com.xiaowang.cola.tools.infrastructure.exception.ToolErrorCode.DUPLICATE_TOOL_NAME;
 import static com.xiaowang.cola.tools.infrastructure.exception.ToolErrorCode.TOOL_NOT_EXIST;
@@ -40,6 +45,17 @@ public class ToolService extends ServiceImpl<ToolMapper, Tool> {
     @Autowired
     private ToolMapper toolMapper;
 
+    /**
+     * 分页总数缓存
+     */
+    private final PageTotalCache pageTotalCache = new PageTotalCache(Duration.ofSeconds(30), 1000);
+
+    /**
+     * 分页游标的签名密钥，没有默认值，未配置时启动失败
+     */
+    @Value("${spring.page.cursor.secret}")
+    private String pageCursorSecret;
+
     /**
      * 创建工具
      *
@@ -138,33 +154,39 @@ public class ToolService extends ServiceImpl<ToolMapper, Tool> {
     }
 
     /**
-     * 分页查询工具列表
+     * 分页查询工具列表，优先按游标翻页，没有游标时兼容按页码查询，总数缓存一段时间
      *
      * @param toolName    工具名称（可选）
      * @param toolType    工具类型（可选）
      * @param status      状态（可选）
+     * @param cursor      上一页返回的游标（可选）
      * @param currentPage 当前页
      * @param pageSize    每页大小
      * @return 分页结果
      */
-    public PageResponse<Tool> pageQuery(String toolName, String toolType, Integer status, int currentPage, int pageSize) {
-        Page<Tool> page = new Page<>(currentPage, pageSize);
-        QueryWrapper<Tool> wrapper = new QueryWrapper<>();
-
-        if (StrUtil.isNotBlank(toolName)) {
-            wrapper.like("tool_name", toolName);
-        }
-        if (StrUtil.isNotBlank(toolType)) {
-            wrapper.eq("tool_type", toolType);
-        }
-        if (status != null) {
-            wrapper.eq("status", status);
+    public PageResponse<Tool> pageQuery(String toolName, String toolType, Integer status, String cursor, int currentPage, int pageSize) {
+        Supplier<QueryWrapper<Tool>> condition = () -> {
+            QueryWrapper<Tool> wrapper = new QueryWrapper<>();
+            if (StrUtil.isNotBlank(toolName)) {
+                wrapper.like("tool_name", toolName);
+            }
+            if (StrUtil.isNotBlank(toolType)) {
+                wrapper.eq("tool_type", toolType);
+            }
+            if (status != null) {
+                wrapper.eq("status", status);
+            }
+            return wrapper;
+        };
+        long total = pageTotalCache.get(toolName + ":" + toolType + ":" + status, () -> count(condition.get()));
+
+        PageCursor pageCursor = PageCursor.decode(cursor, pageCursorSecret);
+        if (pageCursor == null && currentPage > 1) {
+            List<Tool> tools = list(SeekPageHelper.offset(condition.get(), "gmt_create", false, currentPage, pageSize));
+            return SeekPageHelper.toOffsetResponse(tools, currentPage, pageSize, total, Tool::getGmtCreate, Tool::getId, pageCursorSecret);
         }
-
-        wrapper.orderBy(true, false, "gmt_create");
-
-        Page<Tool> toolPage = this.page(page, wrapper);
-        return PageResponse.of(toolPage.getRecords(), (int) toolPage.getTotal(), pageSize, currentPage);
+        List<Tool> tools = list(SeekPageHelper.seek(condition.get(), "gmt_create", false, pageCursor, pageSize));
+        return SeekPageHelper.toResponse(tools, pageCursor, pageSize, total, Tool::getGmtCreate, Tool::getId, pageCursorSecret);
     }
 
     /**
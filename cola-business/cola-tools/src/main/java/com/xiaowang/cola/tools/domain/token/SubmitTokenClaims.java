@@ -0,0 +1,48 @@
+package com.xiaowang.cola.tools.domain.token;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 无状态防重Token中签名的内容
+ *
+ * @author cola
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class SubmitTokenClaims {
+
+  /**
+   * 业务场景
+   */
+  private String scene;
+
+  /**
+   * 用户ID
+   */
+  private String userId;
+
+  /**
+   * 业务ID，可能为空串
+   */
+  private String bizId;
+
+  /**
+   * 过期时间戳（毫秒）
+   */
+  private long expireAt;
+
+  /**
+   * 一次性随机数
+   */
+  private String nonce;
+
+  /**
+   * 是否已过期
+   */
+  public boolean isExpired(long now) {
+    return expireAt <= now;
+  }
+}
@@ -0,0 +1,51 @@
+package com.xiaowang.cola.tools.config;
+
+import com.xiaowang.cola.tools.domain.enums.SubmitTokenMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 防重Token配置测试
+ *
+ * @author cola
+ */
+public class SubmitTokenConfigTest {
+
+  private final SubmitTokenConfig config = new SubmitTokenConfig();
+
+  @Test
+  void testStatelessSceneWithoutSecret() {
+    SubmitTokenProperties properties = new SubmitTokenProperties();
+    properties.setSceneModes(Map.of("order", SubmitTokenMode.STATELESS));
+
+    assertThrows(IllegalStateException.class, () -> config.submitTokenSigner(properties));
+  }
+
+  @Test
+  void testStatelessDefaultModeWithoutSecret() {
+    SubmitTokenProperties properties = new SubmitTokenProperties();
+    properties.setDefaultMode(SubmitTokenMode.STATELESS);
+
+    assertThrows(IllegalStateException.class, () -> config.submitTokenSigner(properties));
+  }
+
+  @Test
+  void testNoStatelessSceneWithoutSecret() {
+    SubmitTokenProperties properties = new SubmitTokenProperties();
+    properties.setSceneModes(Map.of("order", SubmitTokenMode.REDIS));
+
+    assertNotNull(config.submitTokenSigner(properties));
+  }
+
+  @Test
+  void testStatelessSceneWithSecret() {
+    SubmitTokenProperties properties = new SubmitTokenProperties();
+    properties.setSceneModes(Map.of("order", SubmitTokenMode.STATELESS));
+    properties.setSecret("test-secret");
+
+    assertNotNull(config.submitTokenSigner(properties));
+  }
+}
@@ -0,0 +1,45 @@
+package com.xiaowang.cola.tools.domain.token;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 无状态防重Token签名测试
+ *
+ * @author cola
+ */
+public class SubmitTokenSignerTest {
+
+  private final SubmitTokenSigner signer = new SubmitTokenSigner("test-secret".getBytes(StandardCharsets.UTF_8));
+
+  @Test
+  void testSignAndVerify() {
+    SubmitTokenClaims claims = new SubmitTokenClaims("order", "123456", "biz-1", 1700000000000L, "nonce1");
+    String token = signer.sign(claims);
+
+    assertTrue(SubmitTokenSigner.isStateless(token));
+    SubmitTokenClaims verified = signer.verify(token);
+    assertNotNull(verified);
+    assertEquals("order", verified.getScene());
+    assertEquals("123456", verified.getUserId());
+    assertEquals("biz-1", verified.getBizId());
+    assertEquals(1700000000000L, verified.getExpireAt());
+    assertEquals("nonce1", verified.getNonce());
+    assertTrue(verified.isExpired(1700000000000L));
+  }
+
+  @Test
+  void testTamperedToken() {
+    String token = signer.sign(new SubmitTokenClaims("order", "123456", null, 1700000000000L, "nonce1"));
+    String forged = signer.sign(new SubmitTokenClaims("order", "654321", null, 1700000000000L, "nonce1"));
+
+    String tampered = forged.substring(0, forged.lastIndexOf('.')) + token.substring(token.lastIndexOf('.'));
+    assertNull(signer.verify(tampered));
+    assertNull(new SubmitTokenSigner("other".getBytes(StandardCharsets.UTF_8)).verify(token));
+    assertNull(signer.verify("v1.abc"));
+    assertFalse(SubmitTokenSigner.isStateless("a1b2c3"));
+  }
+}
@@ -0,0 +1,83 @@
+package com.xiaowang.cola.user.domain.entity;
+
+import com.xiaowang.cola.user.infrastructure.util.AesUtil;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 延迟解密的加密字段
+ * <pre>
+ *     1、从数据库或缓存加载时只持有密文，第一次读取明文时才解密
+ *     2、业务设置明文时只持有明文，第一次写库或序列化时才加密
+ *     3、Java 序列化（JetCache 远程缓存）只写密文，明文不会出现在缓存中
+ * </pre>
+ *
+ * @author cola
+ */
+public final class LazyEncryptedString implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private volatile String cipherText;
+
+    private transient volatile String plainText;
+
+    private LazyEncryptedString(String cipherText, String plainText) {
+        this.cipherText = cipherText;
+        this.plainText = plainText;
+    }
+
+    public static LazyEncryptedString ofCipherText(String cipherText) {
+        return cipherText == null ? null : new LazyEncryptedString(cipherText, null);
+    }
+
+    public static LazyEncryptedString ofPlainText(String plainText) {
+        return plainText == null ? null : new LazyEncryptedString(null, plainText);
+    }
+
+    /**
+     * 获取明文，首次调用时解密
+     */
+    public String getPlainText() {
+        String value = plainText;
+        if (value == null) {
+            value = AesUtil.decrypt(cipherText);
+            plainText = value;
+        }
+        return value;
+    }
+
+    /**
+     * 获取密文，首次调用时加密
+     */
+    public String getCipherText() {
+        String value = cipherText;
+        if (value == null) {
+            value = AesUtil.encrypt(plainText);
+            cipherText = value;
+        }
+        return value;
+    }
+
+    /**
+     * 是否已经解密过，用于观察和测试
+     */
+    public boolean isDecrypted() {
+        return plainText != null;
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getCipherText();
+        out.defaultWriteObject();
+    }
+
+    @Override
+    public String toString() {
+        return "******";
+    }
+}
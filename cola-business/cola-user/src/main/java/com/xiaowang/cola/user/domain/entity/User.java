@@ -7,7 +7,8 @@ import com.github.houbb.sensitive.annotation.strategy.SensitiveStrategyPhone;
 import com.xiaowang.cola.api.user.constant.UserRole;
 import com.xiaowang.cola.api.user.constant.UserStateEnum;
 import com.xiaowang.cola.datasource.domain.entity.BaseEntity;
-import com.xiaowang.cola.user.infrastructure.mapper.AesEncryptTypeHandler;
+import com.xiaowang.cola.user.infrastructure.mapper.LazyEncryptTypeHandler;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -20,7 +21,7 @@ import java.util.Date;
  */
 @Setter
 @Getter
-@TableName("users")
+@TableName(value = "users", autoResultMap = true)
 public class User extends BaseEntity {
     /**
      * 昵称
@@ -79,16 +80,20 @@ public class User extends BaseEntity {
     private Boolean certification;
 
     /**
-     * 真实姓名
+     * 真实姓名，延迟解密，通过 getRealName/setRealName 读写明文
      */
-    @TableField(typeHandler = AesEncryptTypeHandler.class)
-    private String realName;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @TableField(value = "real_name", typeHandler = LazyEncryptTypeHandler.class)
+    private LazyEncryptedString encryptedRealName;
 
     /**
-     * 身份证hash
+     * 身份证hash，延迟解密，通过 getIdCardNo/setIdCardNo 读写明文
      */
-    @TableField(typeHandler = AesEncryptTypeHandler.class)
-    private String idCardNo;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @TableField(value = "id_card_no", typeHandler = LazyEncryptTypeHandler.class)
+    private LazyEncryptedString encryptedIdCardNo;
 
     /**
      * 用户角色
@@ -130,6 +135,22 @@ public class User extends BaseEntity {
         return this;
     }
 
+    public String getRealName() {
+        return encryptedRealName == null ? null : encryptedRealName.getPlainText();
+    }
+
+    public void setRealName(String realName) {
+        this.encryptedRealName = LazyEncryptedString.ofPlainText(realName);
+    }
+
+    public String getIdCardNo() {
+        return encryptedIdCardNo == null ? null : encryptedIdCardNo.getPlainText();
+    }
+
+    public void setIdCardNo(String idCardNo) {
+        this.encryptedIdCardNo = LazyEncryptedString.ofPlainText(idCardNo);
+    }
+
     public boolean canModifyInfo() {
         return state == UserStateEnum.INIT || state == UserStateEnum.AUTH || state == UserStateEnum.ACTIVE;
     }
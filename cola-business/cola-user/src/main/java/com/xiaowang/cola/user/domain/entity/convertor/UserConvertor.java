@@ -37,12 +37,14 @@ public interface UserConvertor {
     public BasicUserInfo mapToBasicVo(User request);
 
     /**
-     * 转换为实体
+     * 转换为实体，加密字段不在VO中，显式忽略，避免触发加解密
      *
      * @param request
      * @return
      */
     @Mapping(target = "id", source = "request.userId")
+    @Mapping(target = "realName", ignore = true)
+    @Mapping(target = "idCardNo", ignore = true)
     public User mapToEntity(UserInfo request);
 
     /**
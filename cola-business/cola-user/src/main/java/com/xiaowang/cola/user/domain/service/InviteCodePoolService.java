@@ -0,0 +1,153 @@
+package com.xiaowang.cola.user.domain.service;
+
+import cn.hutool.core.util.RandomUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.xiaowang.cola.cache.bloom.LocalBloomFilterReplica;
+import com.xiaowang.cola.user.domain.service.config.InviteCodePoolProperties;
+import com.xiaowang.cola.user.infrastructure.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RSet;
+import org.redisson.api.RedissonClient;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 邀请码池
+ * <pre>
+ *     1、后台线程在 Redis 中维护一批已经确认唯一的邀请码，注册时 SPOP 取一个，O(1) 且不查数据库
+ *     2、池子低于水位时按批补充：随机生成一批候选，先用布隆过滤器剔除已分配的，再一次IN查询剔除已被使用的，最后一次 SADD 写入
+ *     3、多个节点通过 Redis 锁保证同一时刻只有一个节点在补充
+ *     4、邀请码同时作为默认昵称的随机部分
+ *     5、取出的邀请码立即加入布隆过滤器，注册事务提交前补充的候选也不会再选中它；
+ *        池子为空时实时生成的邀请码需要通过 contains 排除仍在池子里的
+ * </pre>
+ *
+ * @author cola
+ */
+@Slf4j
+public class InviteCodePoolService {
+
+    private static final String POOL_KEY = "user:invite:code:pool";
+
+    private static final String REFILL_LOCK_KEY = "user:invite:code:pool:refill";
+
+    private static final int INVITE_CODE_LENGTH = 6;
+
+    private final RedissonClient redissonClient;
+
+    private final UserMapper userMapper;
+
+    private final InviteCodePoolProperties properties;
+
+    private final LocalBloomFilterReplica inviteCodeBloomFilter;
+
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    private ScheduledExecutorService scheduler;
+
+    private RSet<String> pool;
+
+    public InviteCodePoolService(RedissonClient redissonClient, UserMapper userMapper, InviteCodePoolProperties properties,
+                                 LocalBloomFilterReplica inviteCodeBloomFilter) {
+        this.redissonClient = redissonClient;
+        this.userMapper = userMapper;
+        this.properties = properties;
+        this.inviteCodeBloomFilter = inviteCodeBloomFilter;
+    }
+
+    public void start() {
+        this.pool = redissonClient.getSet(POOL_KEY);
+        if (!properties.isEnabled()) {
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("invite-code-pool-%d").setDaemon(true).build());
+        scheduler.scheduleWithFixedDelay(this::refillIfNecessary, 0, properties.getRefillIntervalSeconds(), TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 取一个邀请码
+     *
+     * @return 未开启或池子为空时返回 null，由调用方实时生成
+     */
+    public String poll() {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        String inviteCode = pool.removeRandom();
+        if (inviteCode == null) {
+            log.warn("invite code pool is empty");
+            scheduler.execute(this::refillIfNecessary);
+            return null;
+        }
+        inviteCodeBloomFilter.add(inviteCode);
+        return inviteCode;
+    }
+
+    /**
+     * 邀请码是否还在池子里，实时生成的邀请码需要排除池子里的，避免和之后从池子里取出的重复
+     */
+    public boolean contains(String inviteCode) {
+        return properties.isEnabled() && pool.contains(inviteCode);
+    }
+
+    void refillIfNecessary() {
+        if (!refilling.compareAndSet(false, true)) {
+            return;
+        }
+        RLock lock = redissonClient.getLock(REFILL_LOCK_KEY);
+        try {
+            if (pool.size() >= properties.getLowWatermark() || !lock.tryLock()) {
+                return;
+            }
+            try {
+                int size;
+                while ((size = pool.size()) < properties.getCapacity()) {
+                    int added = refill(Math.min(properties.getBatchSize(), properties.getCapacity() - size));
+                    log.info("invite code pool refilled , added = {} , size = {}", added, size + added);
+                    if (added == 0) {
+                        break;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        } catch (Exception e) {
+            log.error("invite code pool refill failed", e);
+        } finally {
+            refilling.set(false);
+        }
+    }
+
+    private int refill(int count) {
+        Set<String> candidates = new HashSet<>(count * 2);
+        while (candidates.size() < count) {
+            candidates.add(RandomUtil.randomString(INVITE_CODE_LENGTH).toUpperCase());
+        }
+        // 已经取出但注册事务还没提交的邀请码查不到数据库，只在布隆过滤器中
+        candidates.removeIf(inviteCodeBloomFilter::containsStrictly);
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        List<String> used = userMapper.findExistInviteCodes(candidates);
+        used.forEach(candidates::remove);
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        pool.addAll(candidates);
+        return candidates.size();
+    }
+}
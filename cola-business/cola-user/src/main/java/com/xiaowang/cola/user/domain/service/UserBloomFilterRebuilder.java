@@ -0,0 +1,113 @@
+package com.xiaowang.cola.user.domain.service;
+
+import com.xiaowang.cola.cache.bloom.ScalableBloomFilter;
+import com.xiaowang.cola.user.domain.entity.User;
+import com.xiaowang.cola.user.infrastructure.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用户布隆过滤器重建
+ * <pre>
+ *     1、按主键游标分批扫描 users 表，每批对每个过滤器一次批量写入
+ *     2、重建期间的新增会同时写入新版本，扫描完成后原子切换
+ *     3、启动时如果过滤器还没有构建过，异步构建一次；之后可以由定时任务调用 rebuild()
+ * </pre>
+ *
+ * @author cola
+ */
+@Service
+@Slf4j
+public class UserBloomFilterRebuilder {
+
+    private static final String REBUILD_LOCK_KEY = "user:bloom:rebuild";
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    @Qualifier("nickNameBloomFilter")
+    private ScalableBloomFilter nickNameBloomFilter;
+
+    @Autowired
+    @Qualifier("inviteCodeBloomFilter")
+    private ScalableBloomFilter inviteCodeBloomFilter;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initIfAbsent() {
+        if (nickNameBloomFilter.isReady() && inviteCodeBloomFilter.isReady()) {
+            return;
+        }
+        Thread.ofVirtual().name("user-bloom-filter-init").start(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("init user bloom filter failed", e);
+            }
+        });
+    }
+
+    /**
+     * 重建用户名和邀请码布隆过滤器，同一时刻只有一个节点在重建
+     *
+     * @return 其他节点正在重建时返回 false
+     */
+    public boolean rebuild() {
+        RLock lock = redissonClient.getLock(REBUILD_LOCK_KEY);
+        if (!lock.tryLock()) {
+            log.info("user bloom filter is rebuilding on another node");
+            return false;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            long nickNameVersion = nickNameBloomFilter.beginRebuild();
+            long inviteCodeVersion = inviteCodeBloomFilter.beginRebuild();
+
+            long lastId = 0;
+            long total = 0;
+            List<String> nickNames = new ArrayList<>(BATCH_SIZE);
+            List<String> inviteCodes = new ArrayList<>(BATCH_SIZE);
+            List<User> users;
+            do {
+                users = userMapper.scanForBloomFilter(lastId, BATCH_SIZE);
+                for (User user : users) {
+                    if (StringUtils.isNotBlank(user.getNickName())) {
+                        nickNames.add(user.getNickName());
+                    }
+                    if (StringUtils.isNotBlank(user.getInviteCode())) {
+                        inviteCodes.add(user.getInviteCode());
+                    }
+                    lastId = user.getId();
+                }
+                nickNameBloomFilter.rebuildAddAll(nickNameVersion, nickNames);
+                inviteCodeBloomFilter.rebuildAddAll(inviteCodeVersion, inviteCodes);
+                nickNames.clear();
+                inviteCodes.clear();
+                total += users.size();
+            } while (users.size() == BATCH_SIZE);
+
+            boolean committed = nickNameBloomFilter.commitRebuild(nickNameVersion)
+                    & inviteCodeBloomFilter.commitRebuild(inviteCodeVersion);
+            log.info("user bloom filter rebuilt , users = {} , cost = {} ms , committed = {}", total,
+                    System.currentTimeMillis() - start, committed);
+            return committed;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
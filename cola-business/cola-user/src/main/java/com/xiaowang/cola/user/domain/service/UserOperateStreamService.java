@@ -1,35 +1,158 @@
-package com.xiaowang.cola.user.domain.service;
-
-import com.alibaba.fastjson2.JSON;
-import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.xiaowang.cola.api.user.constant.UserOperateTypeEnum;
-import com.xiaowang.cola.user.domain.entity.User;
-import com.xiaowang.cola.user.domain.entity.UserOperateStream;
-import com.xiaowang.cola.user.infrastructure.mapper.UserOperateStreamMapper;
-import org.springframework.stereotype.Service;
-
-import java.util.Date;
-
-/**
- * <p>
- * 用户操作流水表 服务类
- * </p>
- *
- * @author cola
- */
-@Service
-public class UserOperateStreamService extends ServiceImpl<UserOperateStreamMapper, UserOperateStream> {
-
-    public Long insertStream(User user, UserOperateTypeEnum type) {
-        UserOperateStream stream = new UserOperateStream();
-        stream.setUserId(String.valueOf(user.getId()));
-        stream.setOperateTime(new Date());
-        stream.setType(type.name());
-        stream.setParam(JSON.toJSONString(user));
-        boolean result = save(stream);
-        if (result) {
-            return stream.getId();
-        }
-        return null;
-    }
-}
+package com.xiaowang.cola.user.domain.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.xiaowang.cola.api.user.constant.UserOperateTypeEnum;
+import com.xiaowang.cola.base.stress.StressContext;
+import com.xiaowang.cola.user.domain.entity.UserOperateStream;
+import com.xiaowang.cola.user.infrastructure.mapper.UserOperateStreamMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 用户操作流水表 服务类
+ * </p>
+ * <pre>
+ *     1、流水只记录本次操作变更的字段，不再序列化整个用户
+ *     2、在事务中调用时，事务提交后才进入队列，事务回滚则不产生流水；不在事务中时直接进入队列
+ *     3、后台线程定时把队列中的流水按批用一条多行 INSERT 写入，业务事务中不再插入流水表
+ *     4、队列满时在调用线程中用新事务直接写入，关闭时把队列中剩余的流水写完
+ *     5、压测流量的流水进入单独的队列，写入线程在压测标记下写入，落到影子表
+ * </pre>
+ *
+ * @author cola
+ */
+@Slf4j
+@Service
+public class UserOperateStreamService extends ServiceImpl<UserOperateStreamMapper, UserOperateStream> {
+
+    private static final int QUEUE_CAPACITY = 10000;
+
+    private static final int BATCH_SIZE = 200;
+
+    private static final long FLUSH_INTERVAL_MILLIS = 100L;
+
+    private static final int MAX_RETRY_TIMES = 3;
+
+    private final BlockingQueue<UserOperateStream> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final BlockingQueue<UserOperateStream> stressQueue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate requiresNewTemplate;
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        this.requiresNewTemplate = new TransactionTemplate(transactionManager);
+        requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("user-operate-stream-writer-%d").setDaemon(true).build());
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    /**
+     * 记录流水
+     *
+     * @param userId  用户ID
+     * @param type    操作类型
+     * @param changes 本次操作变更的字段
+     */
+    public void insertStream(Long userId, UserOperateTypeEnum type, Map<String, Object> changes) {
+        Date now = new Date();
+        UserOperateStream stream = new UserOperateStream();
+        stream.setUserId(String.valueOf(userId));
+        stream.setOperateTime(now);
+        stream.setType(type.name());
+        stream.setParam(JSON.toJSONString(changes));
+        // 批量插入不经过 MetaObjectHandler，公共字段在这里填好
+        stream.setGmtCreate(now);
+        stream.setGmtModified(now);
+        stream.setDeleted(0);
+        stream.setLockVersion(0);
+        // 写入线程没有压测标记，在这里记下来
+        boolean stress = StressContext.isStress();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(stream, stress);
+                }
+            });
+        } else {
+            enqueue(stream, stress);
+        }
+    }
+
+    private void enqueue(UserOperateStream stream, boolean stress) {
+        if (!(stress ? stressQueue : queue).offer(stream)) {
+            // 写入跟不上时在调用线程中直接写，宁可慢一点也不丢流水。
+            // 在 afterCommit 中时连接还绑定在已经提交的事务上，直接写不会再提交，需要开启新事务
+            StressContext.runWithStress(stress,
+                    () -> requiresNewTemplate.executeWithoutResult(status -> write(List.of(stream))));
+        }
+    }
+
+    void flush() {
+        try {
+            drain(queue);
+            StressContext.runWithStress(true, () -> drain(stressQueue));
+        } catch (Throwable e) {
+            log.error("flush user operate stream failed", e);
+        }
+    }
+
+    private void drain(BlockingQueue<UserOperateStream> source) {
+        List<UserOperateStream> batch = new ArrayList<>(BATCH_SIZE);
+        while (source.drainTo(batch, BATCH_SIZE) > 0) {
+            write(batch);
+            batch = new ArrayList<>(BATCH_SIZE);
+        }
+    }
+
+    private void write(List<UserOperateStream> streams) {
+        for (int i = 1; i <= MAX_RETRY_TIMES; i++) {
+            try {
+                baseMapper.batchInsert(streams);
+                return;
+            } catch (Exception e) {
+                log.warn("batch insert user operate stream failed, size = {} , times = {}", streams.size(), i, e);
+            }
+        }
+        for (UserOperateStream stream : streams) {
+            log.error("user operate stream lost, userId = {} , type = {} , operateTime = {} , param = {}",
+                    stream.getUserId(), stream.getType(), stream.getOperateTime().getTime(), stream.getParam());
+        }
+    }
+}
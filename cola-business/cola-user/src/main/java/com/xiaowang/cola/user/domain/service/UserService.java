@@ -5,13 +5,13 @@ import cn.hutool.core.util.RandomUtil;
 import cn.hutool.crypto.digest.DigestUtil;
 import com.alicp.jetcache.Cache;
 import com.alicp.jetcache.CacheManager;
-import com.alicp.jetcache.anno.CacheInvalidate;
 import com.alicp.jetcache.anno.CacheRefresh;
 import com.alicp.jetcache.anno.CacheType;
 import com.alicp.jetcache.anno.Cached;
 import com.alicp.jetcache.template.QuickConfig;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.xiaowang.cola.api.user.constant.UserOperateTypeEnum;
 import com.xiaowang.cola.api.user.constant.UserStateEnum;
@@ -22,7 +22,14 @@ import com.xiaowang.cola.api.user.response.UserOperatorResponse;
 import com.xiaowang.cola.api.user.response.data.InviteRankInfo;
 import com.xiaowang.cola.base.exception.BizException;
 import com.xiaowang.cola.base.exception.RepoErrorCode;
+import com.xiaowang.cola.base.request.PageCursor;
 import com.xiaowang.cola.base.response.PageResponse;
+import com.xiaowang.cola.base.stress.StressContext;
+import com.xiaowang.cola.cache.bloom.LocalBloomFilterReplica;
+import com.xiaowang.cola.cache.hotkey.HotKeySample;
+import com.xiaowang.cola.cache.invalidate.DelayedCacheInvalidator;
+import com.xiaowang.cola.datasource.page.PageTotalCache;
+import com.xiaowang.cola.datasource.page.SeekPageHelper;
 import com.xiaowang.cola.lock.DistributeLock;
 import com.xiaowang.cola.user.domain.entity.User;
 import com.xiaowang.cola.user.domain.entity.convertor.UserConvertor;
@@ -31,22 +38,33 @@ import com.xiaowang.cola.user.infrastructure.exception.UserException;
 import com.xiaowang.cola.user.infrastructure.mapper.UserMapper;
 import jakarta.annotation.PostConstruct;
 import org.apache.commons.lang3.StringUtils;
-import org.redisson.api.RBloomFilter;
-import org.redisson.api.RLock;
+import org.redisson.api.RScript;
 import org.redisson.api.RScoredSortedSet;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
 import org.redisson.client.protocol.ScoredEntry;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import static com.xiaowang.cola.user.infrastructure.exception.UserErrorCode.DUPLICATE_TELEPHONE_NUMBER;
 import static com.xiaowang.cola.user.infrastructure.exception.UserErrorCode.NICK_NAME_EXIST;
@@ -66,6 +84,60 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
 
     private static final String DEFAULT_NICK_NAME_PREFIX = "藏家_";
 
+    /**
+     * 注册时邀请码唯一索引冲突的重试次数
+     */
+    private static final int INVITE_CODE_DUPLICATE_RETRY_TIMES = 3;
+
+    private static final String INVITE_RANK_KEY = "inviteRank";
+
+    private static final String ID_USER_CACHE_NAME = ":user:cache:id:";
+
+    private static final String TEL_USER_ID_CACHE_NAME = ":user:cache:tel:";
+
+    private static final String STRESS_ID_USER_CACHE_NAME = StressContext.SHADOW_KEY_PREFIX + ID_USER_CACHE_NAME;
+
+    private static final String STRESS_TEL_USER_ID_CACHE_NAME = StressContext.SHADOW_KEY_PREFIX + TEL_USER_ID_CACHE_NAME;
+
+    /**
+     * 手机号不存在时缓存的用户ID
+     */
+    private static final Long NOT_EXIST_USER_ID = 0L;
+
+    /**
+     * 手机号不存在的缓存时间，防止未注册手机号反复穿透到数据库
+     */
+    private static final long TEL_NOT_EXIST_EXPIRE_SECONDS = 300L;
+
+    /**
+     * 延迟双删的第二次删除延迟时间
+     */
+    private static final long CACHE_DELAY_DELETE_MILLIS = 2000L;
+
+    /**
+     * 每邀请一个用户增加的积分
+     */
+    private static final int INVITE_SCORE = 100;
+
+    private static final int INVITE_RANK_BATCH_SIZE = 500;
+
+    /**
+     * 更新邀请排行榜，ARGV 为 邀请人ID、新增积分 成对出现
+     * <pre>
+     *     1、上榜时间取 Redis 服务端时间，转成小数(时间戳13位，所以除以10000000000000能转成小数)，并且倒序排列（用1减），即上榜时间越早，分数越大
+     *     2、当前积分保留整数，即移除上一次的小数位，加上新增积分，再加上"最近一次上榜时间的倒序小数位"作为score
+     * </pre>
+     */
+    private static final String INVITE_RANK_SCRIPT = """
+            local now = redis.call('time')
+            local timePartScore = 1 - (tonumber(now[1]) * 1000 + math.floor(tonumber(now[2]) / 1000)) / 10000000000000
+            for i = 1, #ARGV, 2 do
+                local score = tonumber(redis.call('zscore', KEYS[1], ARGV[i]) or 0)
+                redis.call('zadd', KEYS[1], math.floor(score) + tonumber(ARGV[i + 1]) + timePartScore, ARGV[i])
+            end
+            return #ARGV / 2
+            """;
+
     @Autowired
     private UserMapper userMapper;
 
@@ -82,16 +154,36 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
     private CacheManager cacheManager;
 
     @Autowired
-    private UserCacheDelayDeleteService userCacheDelayDeleteService;
+    private DelayedCacheInvalidator delayedCacheInvalidator;
+
+    @Autowired
+    private InviteCodePoolService inviteCodePoolService;
+
     /**
-     * 用户名布隆过滤器
+     * 开启 Binlog 订阅后，缓存由 users 表的变更事件统一失效，写操作不再处理缓存
      */
-    private RBloomFilter<String> nickNameBloomFilter;
+    @Value("${spring.cdc.enabled:false}")
+    private boolean cdcEnabled;
 
     /**
-     * 邀请码布隆过滤器
+     * 分页游标的签名密钥，没有默认值，未配置时启动失败
      */
-    private RBloomFilter<String> inviteCodeBloomFilter;
+    @Value("${spring.page.cursor.secret}")
+    private String pageCursorSecret;
+
+    /**
+     * 用户名布隆过滤器，查询读本地副本
+     */
+    @Autowired
+    @Qualifier("nickNameBloomReplica")
+    private LocalBloomFilterReplica nickNameBloomFilter;
+
+    /**
+     * 邀请码布隆过滤器，查询读本地副本
+     */
+    @Autowired
+    @Qualifier("inviteCodeBloomReplica")
+    private LocalBloomFilterReplica inviteCodeBloomFilter;
 
     /**
      * 邀请排行榜
@@ -103,23 +195,60 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
      */
     private Cache<String, User> idUserCache;
 
+    /**
+     * 手机号 -> 用户ID 的二级索引缓存，用户信息通过 idUserCache 获取
+     */
+    private Cache<String, Long> telUserIdCache;
+
+    /**
+     * 压测流量使用的缓存，只有远程缓存，不经过本地缓存，避免影子数据写进正常流量的本地缓存
+     */
+    private Cache<String, User> stressIdUserCache;
+
+    private Cache<String, Long> stressTelUserIdCache;
+
+    /**
+     * 分页总数缓存
+     */
+    private final PageTotalCache pageTotalCache = new PageTotalCache(Duration.ofSeconds(30), 1000);
+
+    /**
+     * 渲染好的邀请排行榜，topN -> 排行信息
+     */
+    private final LoadingCache<Integer, List<InviteRankInfo>> topNCache = Caffeine.newBuilder()
+            .maximumSize(16)
+            .refreshAfterWrite(Duration.ofSeconds(3))
+            .expireAfterWrite(Duration.ofSeconds(30))
+            .build(this::loadTopN);
+
     @PostConstruct
     public void init() {
         QuickConfig idQc =
-                QuickConfig.newBuilder(":user:cache:id:").cacheType(CacheType.BOTH).expire(Duration.ofHours(2)).syncLocal(true).build();
+                QuickConfig.newBuilder(ID_USER_CACHE_NAME).cacheType(CacheType.BOTH).expire(Duration.ofHours(2)).syncLocal(true).build();
         idUserCache = cacheManager.getOrCreateCache(idQc);
+        delayedCacheInvalidator.register(ID_USER_CACHE_NAME, idUserCache);
+
+        QuickConfig telQc =
+                QuickConfig.newBuilder(TEL_USER_ID_CACHE_NAME).cacheType(CacheType.BOTH).expire(Duration.ofHours(2)).syncLocal(true).build();
+        telUserIdCache = cacheManager.getOrCreateCache(telQc);
+        delayedCacheInvalidator.register(TEL_USER_ID_CACHE_NAME, telUserIdCache);
+
+        stressIdUserCache = cacheManager.getOrCreateCache(
+                QuickConfig.newBuilder(STRESS_ID_USER_CACHE_NAME).cacheType(CacheType.REMOTE).expire(Duration.ofHours(2)).build());
+        delayedCacheInvalidator.register(STRESS_ID_USER_CACHE_NAME, stressIdUserCache);
+        stressTelUserIdCache = cacheManager.getOrCreateCache(
+                QuickConfig.newBuilder(STRESS_TEL_USER_ID_CACHE_NAME).cacheType(CacheType.REMOTE).expire(Duration.ofHours(2)).build());
+        delayedCacheInvalidator.register(STRESS_TEL_USER_ID_CACHE_NAME, stressTelUserIdCache);
     }
 
     @DistributeLock(keyExpression = "#telephone", scene = "USER_REGISTER")
     @Transactional(rollbackFor = Exception.class)
     public UserOperatorResponse register(String telephone, String inviteCode) {
-        String defaultNickName;
-        String randomString;
-        do {
-            randomString = RandomUtil.randomString(6).toUpperCase();
-            // 前缀 + 6位随机数 + 手机号后四位
-            defaultNickName = DEFAULT_NICK_NAME_PREFIX + randomString + telephone.substring(7, 11);
-        } while (nickNameExist(defaultNickName) || inviteCodeExist(randomString));
+        // 优先从邀请码池中取已确认唯一的邀请码，只需要校验昵称的布隆过滤器
+        String randomString = inviteCodePoolService.poll();
+        if (randomString == null || nickNameExist(defaultNickName(randomString, telephone), true)) {
+            randomString = generateInviteCode(telephone);
+        }
 
         String inviterId = null;
         if (StringUtils.isNotBlank(inviteCode)) {
@@ -129,17 +258,32 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
             }
         }
 
-        User user = register(telephone, defaultNickName, telephone, randomString, inviterId);
+        // invite_code 上有唯一索引，布隆过滤器和邀请码池都漏判时由数据库兜底，重新生成后重试
+        User user;
+        for (int retry = 0; ; retry++) {
+            try {
+                user = register(telephone, defaultNickName(randomString, telephone), telephone, randomString, inviterId);
+                break;
+            } catch (DuplicateKeyException e) {
+                if (retry >= INVITE_CODE_DUPLICATE_RETRY_TIMES) {
+                    throw e;
+                }
+                randomString = generateInviteCode(telephone);
+            }
+        }
         Assert.notNull(user, UserErrorCode.USER_OPERATE_FAILED.getCode());
+        String defaultNickName = user.getNickName();
 
         addNickName(defaultNickName);
         addInviteCode(randomString);
         updateInviteRank(inviterId);
         updateUserCache(user.getId().toString(), user);
+        removeTelephoneCache(telephone);
 
         // 加入流水
-        long streamResult = userOperateStreamService.insertStream(user, UserOperateTypeEnum.REGISTER);
-        Assert.notNull(streamResult, () -> new BizException(RepoErrorCode.UPDATE_FAILED));
+        userOperateStreamService.insertStream(user.getId(), UserOperateTypeEnum.REGISTER,
+                changes("telephone", telephone, "nickName", defaultNickName, "state", user.getState(), "userRole", user.getUserRole(),
+                        "inviteCode", randomString, "inviterId", inviterId));
 
         UserOperatorResponse userOperatorResponse = new UserOperatorResponse();
         userOperatorResponse.setSuccess(true);
@@ -159,10 +303,11 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
         User user = registerAdmin(telephone, telephone, password);
         Assert.notNull(user, UserErrorCode.USER_OPERATE_FAILED.getCode());
         // idUserCache.put(user.getId().toString(), user);
+        removeTelephoneCache(telephone);
 
         // 加入流水
-        long streamResult = userOperateStreamService.insertStream(user, UserOperateTypeEnum.REGISTER);
-        Assert.notNull(streamResult, () -> new BizException(RepoErrorCode.UPDATE_FAILED));
+        userOperateStreamService.insertStream(user.getId(), UserOperateTypeEnum.REGISTER,
+                changes("telephone", telephone, "nickName", user.getNickName(), "state", user.getState(), "userRole", user.getUserRole()));
 
         UserOperatorResponse userOperatorResponse = new UserOperatorResponse();
         userOperatorResponse.setSuccess(true);
@@ -170,6 +315,25 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
         return userOperatorResponse;
     }
 
+    /**
+     * 实时生成邀请码，排除已被使用的和仍在邀请码池中的
+     */
+    private String generateInviteCode(String telephone) {
+        String randomString;
+        do {
+            randomString = RandomUtil.randomString(6).toUpperCase();
+        } while (nickNameExist(defaultNickName(randomString, telephone), true) || inviteCodeExist(randomString, true)
+                || inviteCodePoolService.contains(randomString));
+        return randomString;
+    }
+
+    /**
+     * 默认昵称：前缀 + 6位随机数 + 手机号后四位
+     */
+    private static String defaultNickName(String randomString, String telephone) {
+        return DEFAULT_NICK_NAME_PREFIX + randomString + telephone.substring(7, 11);
+    }
+
     /**
      * 注册
      * @param telephone
@@ -202,7 +366,6 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
      * @param userAuthRequest
      * @return
      */
-    @CacheInvalidate(name = ":user:cache:id:", key = "#userAuthRequest.userId")
     @Transactional(rollbackFor = Exception.class)
     public UserOperatorResponse auth(UserAuthRequest userAuthRequest) {
         UserOperatorResponse userOperatorResponse = new UserOperatorResponse();
@@ -221,9 +384,10 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
         user.auth(userAuthRequest.getRealName(), userAuthRequest.getIdCard());
         boolean result = updateById(user);
         if (result) {
-            // 加入流水
-            long streamResult = userOperateStreamService.insertStream(user, UserOperateTypeEnum.AUTH);
-            Assert.notNull(streamResult, () -> new BizException(RepoErrorCode.UPDATE_FAILED));
+            // 加入流水，实名信息是敏感数据，只记录认证结果
+            userOperateStreamService.insertStream(user.getId(), UserOperateTypeEnum.AUTH,
+                    changes("certification", user.getCertification(), "state", user.getState()));
+            removeUserCache(user.getId());
             userOperatorResponse.setSuccess(true);
             userOperatorResponse.setUser(UserConvertor.INSTANCE.mapToVo(user));
         } else {
@@ -239,7 +403,6 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
      * @param userActiveRequest
      * @return
      */
-    @CacheInvalidate(name = ":user:cache:id:", key = "#userActiveRequest.userId")
     @Transactional(rollbackFor = Exception.class)
     public UserOperatorResponse active(UserActiveRequest userActiveRequest) {
         UserOperatorResponse userOperatorResponse = new UserOperatorResponse();
@@ -250,8 +413,9 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
         boolean result = updateById(user);
         if (result) {
             // 加入流水
-            long streamResult = userOperateStreamService.insertStream(user, UserOperateTypeEnum.ACTIVE);
-            Assert.notNull(streamResult, () -> new BizException(RepoErrorCode.UPDATE_FAILED));
+            userOperateStreamService.insertStream(user.getId(), UserOperateTypeEnum.ACTIVE,
+                    changes("blockChainUrl", user.getBlockChainUrl(), "blockChainPlatform", user.getBlockChainPlatform(), "state", user.getState()));
+            removeUserCache(user.getId());
             userOperatorResponse.setSuccess(true);
         } else {
             userOperatorResponse.setSuccess(false);
@@ -273,8 +437,8 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
         Assert.notNull(user, () -> new UserException(USER_NOT_EXIST));
         Assert.isTrue(user.getState() == UserStateEnum.ACTIVE, () -> new UserException(USER_STATUS_IS_NOT_ACTIVE));
 
-        // 第一次删除缓存
-        idUserCache.remove(user.getId().toString());
+        // 事务提交后删除缓存
+        removeUserCache(user.getId());
 
         if (user.getState() == UserStateEnum.FROZEN) {
             userOperatorResponse.setSuccess(true);
@@ -284,11 +448,10 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
         boolean updateResult = updateById(user);
         Assert.isTrue(updateResult, () -> new BizException(RepoErrorCode.UPDATE_FAILED));
         // 加入流水
-        long result = userOperateStreamService.insertStream(user, UserOperateTypeEnum.FREEZE);
-        Assert.notNull(result, () -> new BizException(RepoErrorCode.UPDATE_FAILED));
+        userOperateStreamService.insertStream(user.getId(), UserOperateTypeEnum.FREEZE, changes("state", user.getState()));
 
-        // 第二次删除缓存
-        userCacheDelayDeleteService.delayedCacheDelete(idUserCache, user);
+        // 提交后再延迟删除一次，清理提交前后并发查询回填的旧数据
+        delayRemoveUserCache(user.getId());
 
         userOperatorResponse.setSuccess(true);
         return userOperatorResponse;
@@ -305,8 +468,8 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
         User user = userMapper.findById(userId);
         Assert.notNull(user, () -> new UserException(USER_NOT_EXIST));
 
-        // 第一次删除缓存
-        idUserCache.remove(user.getId().toString());
+        // 事务提交后删除缓存
+        removeUserCache(user.getId());
 
         if (user.getState() == UserStateEnum.ACTIVE) {
             userOperatorResponse.setSuccess(true);
@@ -317,56 +480,114 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
         boolean updateResult = updateById(user);
         Assert.isTrue(updateResult, () -> new BizException(RepoErrorCode.UPDATE_FAILED));
         // 加入流水
-        long result = userOperateStreamService.insertStream(user, UserOperateTypeEnum.UNFREEZE);
-        Assert.notNull(result, () -> new BizException(RepoErrorCode.UPDATE_FAILED));
+        userOperateStreamService.insertStream(user.getId(), UserOperateTypeEnum.UNFREEZE, changes("state", user.getState()));
 
-        // 第二次删除缓存
-        userCacheDelayDeleteService.delayedCacheDelete(idUserCache, user);
+        // 提交后再延迟删除一次，清理提交前后并发查询回填的旧数据
+        delayRemoveUserCache(user.getId());
 
         userOperatorResponse.setSuccess(true);
         return userOperatorResponse;
     }
 
     /**
-     * 分页查询用户信息
+     * 分页查询用户信息，优先按游标翻页，没有游标时兼容按页码查询，总数缓存一段时间
      * @param keyWord
      * @param state
+     * @param cursor 上一页返回的游标
      * @param currentPage
      * @param pageSize
      * @return
      */
-    public PageResponse<User> pageQueryByState(String keyWord, String state, int currentPage, int pageSize) {
-        Page<User> page = new Page<>(currentPage, pageSize);
-        QueryWrapper<User> wrapper = new QueryWrapper<>();
-        wrapper.eq("state", state);
-
-        if (keyWord != null) {
-            wrapper.like("telephone", keyWord);
+    public PageResponse<User> pageQueryByState(String keyWord, String state, String cursor, int currentPage, int pageSize) {
+        Supplier<QueryWrapper<User>> condition = () -> {
+            QueryWrapper<User> wrapper = new QueryWrapper<>();
+            wrapper.eq("state", state);
+            if (keyWord != null) {
+                wrapper.like("telephone", keyWord);
+            }
+            return wrapper;
+        };
+        long total = pageTotalCache.get("state:" + state + ":" + keyWord, () -> count(condition.get()));
+
+        PageCursor pageCursor = PageCursor.decode(cursor, pageCursorSecret);
+        if (pageCursor == null && currentPage > 1) {
+            List<User> users = list(SeekPageHelper.offset(condition.get(), "gmt_create", true, currentPage, pageSize));
+            return SeekPageHelper.toOffsetResponse(users, currentPage, pageSize, total, User::getGmtCreate, User::getId, pageCursorSecret);
         }
-        wrapper.orderBy(true, true, "gmt_create");
-
-        Page<User> userPage = this.page(page, wrapper);
-
-        return PageResponse.of(userPage.getRecords(), (int)userPage.getTotal(), pageSize, currentPage);
+        List<User> users = list(SeekPageHelper.seek(condition.get(), "gmt_create", true, pageCursor, pageSize));
+        return SeekPageHelper.toResponse(users, pageCursor, pageSize, total, User::getGmtCreate, User::getId, pageCursorSecret);
     }
 
     /**
-     * 通过手机号和密码查询用户信息
+     * 通过手机号和密码查询用户信息，用户信息走缓存，密码在内存中比对，
+     * 修改密码时缓存在事务提交后删除并延迟再删除一次
      * @param telephone
      * @param password
      * @return
      */
     public User findByTelephoneAndPass(String telephone, String password) {
-        return userMapper.findByTelephoneAndPass(telephone, DigestUtil.md5Hex(password));
+        User user = findByTelephone(telephone);
+        if (user == null || !DigestUtil.md5Hex(password).equals(user.getPasswordHash())) {
+            return null;
+        }
+        return user;
     }
 
     /**
-     * 通过手机号查询用户信息
+     * 通过手机号查询用户信息，先通过手机号索引缓存拿到用户ID，再从 idUserCache 获取用户，未注册的手机号也会缓存一段时间
      * @param telephone
      * @return
      */
     public User findByTelephone(String telephone) {
-        return userMapper.findByTelephone(telephone);
+        Long userId = telUserIdCache().get(telephone);
+        if (userId == null) {
+            User user = userMapper.findByTelephone(telephone);
+            if (user == null) {
+                telUserIdCache().put(telephone, NOT_EXIST_USER_ID, TEL_NOT_EXIST_EXPIRE_SECONDS, TimeUnit.SECONDS);
+            } else {
+                telUserIdCache().put(telephone, user.getId());
+            }
+            return user;
+        }
+        if (NOT_EXIST_USER_ID.equals(userId)) {
+            return null;
+        }
+
+        User user = findCachedUser(userId);
+        // 索引还没失效时用户可能已经换了手机号，以用户当前的手机号为准
+        if (user == null || !telephone.equals(user.getTelephone())) {
+            telUserIdCache().remove(telephone);
+            return userMapper.findByTelephone(telephone);
+        }
+        return user;
+    }
+
+    private User findCachedUser(Long userId) {
+        String key = userId.toString();
+        User user = idUserCache().get(key);
+        if (user == null) {
+            user = userMapper.findById(userId);
+            if (user != null) {
+                idUserCache().put(key, user);
+            }
+        }
+        return user;
+    }
+
+    /**
+     * 通过手机号批量查询用户信息，一次IN查询
+     * @param telephones
+     * @return 手机号 -> 用户，不存在的用户不在结果中
+     */
+    public Map<String, User> findByTelephones(Collection<String> telephones) {
+        Map<String, User> result = new HashMap<>(telephones.size() * 2);
+        if (telephones.isEmpty()) {
+            return result;
+        }
+        for (User user : userMapper.findByTelephones(new LinkedHashSet<>(telephones))) {
+            result.put(user.getTelephone(), user);
+        }
+        return result;
     }
 
     /**
@@ -374,18 +595,65 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
      * @param userId
      * @return
      */
-    @Cached(name = ":user:cache:id:", cacheType = CacheType.BOTH, key = "#userId", cacheNullValue = true)
+    @Cached(name = ":user:cache:id:", cacheType = CacheType.BOTH, key = "#userId", cacheNullValue = true,
+            condition = "!T(com.xiaowang.cola.base.stress.StressContext).isStress()")
     @CacheRefresh(refresh = 60, timeUnit = TimeUnit.MINUTES)
+    @HotKeySample(scene = "user", keyExpression = "#userId")
     public User findById(Long userId) {
+        // 压测流量不走注解的本地缓存，改走只有远程的影子缓存
+        if (StressContext.isStress()) {
+            return findCachedUser(userId);
+        }
         return userMapper.findById(userId);
     }
 
+    /**
+     * 通过用户ID批量查询用户信息，先批量读缓存，只有未命中的ID才合并成一次IN查询，查到的结果回填缓存
+     * @param userIds
+     * @return 用户ID -> 用户，不存在的用户不在结果中
+     */
+    public Map<Long, User> findByIds(Collection<Long> userIds) {
+        Map<Long, User> result = new HashMap<>(userIds.size() * 2);
+        if (userIds.isEmpty()) {
+            return result;
+        }
+        Set<String> keys = new LinkedHashSet<>(userIds.size() * 2);
+        for (Long userId : userIds) {
+            keys.add(userId.toString());
+        }
+
+        Map<String, User> cached = idUserCache().getAll(keys);
+        List<Long> missIds = new ArrayList<>();
+        for (String key : keys) {
+            // cacheNullValue 缓存的空值也算命中，不再回源
+            if (cached.containsKey(key)) {
+                User user = cached.get(key);
+                if (user != null) {
+                    result.put(Long.valueOf(key), user);
+                }
+            } else {
+                missIds.add(Long.valueOf(key));
+            }
+        }
+
+        if (!missIds.isEmpty()) {
+            Map<String, User> loaded = new HashMap<>(missIds.size() * 2);
+            for (User user : userMapper.findByIds(missIds)) {
+                result.put(user.getId(), user);
+                loaded.put(user.getId().toString(), user);
+            }
+            if (!loaded.isEmpty()) {
+                idUserCache().putAll(loaded);
+            }
+        }
+        return result;
+    }
+
     /**
      * 更新用户信息
      * @param userModifyRequest
      * @return
      */
-    @CacheInvalidate(name = ":user:cache:id:", key = "#userModifyRequest.userId")
     @Transactional(rollbackFor = Exception.class)
     public UserOperatorResponse modify(UserModifyRequest userModifyRequest) {
         UserOperatorResponse userOperatorResponse = new UserOperatorResponse();
@@ -393,9 +661,12 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
         Assert.notNull(user, () -> new UserException(USER_NOT_EXIST));
         Assert.isTrue(user.canModifyInfo(), () -> new UserException(USER_STATUS_CANT_OPERATE));
 
-        if (StringUtils.isNotBlank(userModifyRequest.getNickName()) && nickNameExist(userModifyRequest.getNickName())) {
+        if (StringUtils.isNotBlank(userModifyRequest.getNickName()) && nickNameExist(userModifyRequest.getNickName(), true)) {
             throw new UserException(NICK_NAME_EXIST);
         }
+        String oldTelephone = user.getTelephone();
+        String oldNickName = user.getNickName();
+        String oldProfilePhotoUrl = user.getProfilePhotoUrl();
         BeanUtils.copyProperties(userModifyRequest, user);
 
         if (StringUtils.isNotBlank(userModifyRequest.getPassword())) {
@@ -403,8 +674,26 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
         }
         if (updateById(user)) {
             // 加入流水
-            long streamResult = userOperateStreamService.insertStream(user, UserOperateTypeEnum.MODIFY);
-            Assert.notNull(streamResult, () -> new BizException(RepoErrorCode.UPDATE_FAILED));
+            Map<String, Object> changes = new LinkedHashMap<>();
+            if (!StringUtils.equals(oldNickName, user.getNickName())) {
+                changes.put("nickName", user.getNickName());
+            }
+            if (!StringUtils.equals(oldProfilePhotoUrl, user.getProfilePhotoUrl())) {
+                changes.put("profilePhotoUrl", user.getProfilePhotoUrl());
+            }
+            if (!StringUtils.equals(oldTelephone, user.getTelephone())) {
+                changes.put("telephone", user.getTelephone());
+            }
+            if (StringUtils.isNotBlank(userModifyRequest.getPassword())) {
+                changes.put("passwordModified", true);
+            }
+            userOperateStreamService.insertStream(user.getId(), UserOperateTypeEnum.MODIFY, changes);
+            // 密码也在缓存的用户里，和冻结一样提交后删除再延迟删除，旧密码不会继续可用
+            removeUserCache(user.getId());
+            delayRemoveUserCache(user.getId());
+            if (!StringUtils.equals(oldTelephone, user.getTelephone())) {
+                removeTelephoneCache(oldTelephone, user.getTelephone());
+            }
             addNickName(userModifyRequest.getNickName());
             userOperatorResponse.setSuccess(true);
 
@@ -425,35 +714,67 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
         return null;
     }
 
-    public PageResponse<User> getUsersByInviterId(String inviterId, int currentPage, int pageSize) {
-        Page<User> page = new Page<>(currentPage, pageSize);
-        QueryWrapper<User> wrapper = new QueryWrapper<>();
-        wrapper.select("nick_name", "gmt_create");
-        wrapper.eq("inviter_id", inviterId);
-
-        wrapper.orderBy(true, false, "gmt_create");
-
-        Page<User> userPage = this.page(page, wrapper);
-        return PageResponse.of(userPage.getRecords(), (int)userPage.getTotal(), pageSize, currentPage);
+    /**
+     * 分页查询邀请的用户，按注册时间倒序，优先按游标翻页
+     * @param inviterId
+     * @param cursor 上一页返回的游标
+     * @param currentPage
+     * @param pageSize
+     * @return
+     */
+    public PageResponse<User> getUsersByInviterId(String inviterId, String cursor, int currentPage, int pageSize) {
+        Supplier<QueryWrapper<User>> condition = () -> {
+            QueryWrapper<User> wrapper = new QueryWrapper<>();
+            wrapper.select("id", "nick_name", "gmt_create");
+            wrapper.eq("inviter_id", inviterId);
+            return wrapper;
+        };
+        long total = pageTotalCache.get("inviter:" + inviterId, () -> count(condition.get()));
+
+        PageCursor pageCursor = PageCursor.decode(cursor, pageCursorSecret);
+        if (pageCursor == null && currentPage > 1) {
+            List<User> users = list(SeekPageHelper.offset(condition.get(), "gmt_create", false, currentPage, pageSize));
+            return SeekPageHelper.toOffsetResponse(users, currentPage, pageSize, total, User::getGmtCreate, User::getId, pageCursorSecret);
+        }
+        List<User> users = list(SeekPageHelper.seek(condition.get(), "gmt_create", false, pageCursor, pageSize));
+        return SeekPageHelper.toResponse(users, pageCursor, pageSize, total, User::getGmtCreate, User::getId, pageCursorSecret);
     }
 
+    /**
+     * 邀请排行榜前N名，渲染结果在本地缓存几秒，到期后由一个线程异步刷新，其他线程继续读旧值
+     * @param topN
+     * @return
+     */
     public List<InviteRankInfo> getTopN(Integer topN) {
+        return topNCache.get(topN);
+    }
+
+    private List<InviteRankInfo> loadTopN(Integer topN) {
         Collection<ScoredEntry<String>> rankInfos = inviteRank.entryRangeReversed(0, topN - 1);
 
         List<InviteRankInfo> inviteRankInfos = new ArrayList<>();
+        if (rankInfos == null || rankInfos.isEmpty()) {
+            return inviteRankInfos;
+        }
 
-        if (rankInfos != null) {
-            for (ScoredEntry<String> rankInfo : rankInfos) {
-                InviteRankInfo inviteRankInfo = new InviteRankInfo();
-                String userId = rankInfo.getValue();
-                if (StringUtils.isNotBlank(userId)) {
-                    User user = findById(Long.valueOf(userId));
-                    if (user != null) {
-                        inviteRankInfo.setNickName(user.getNickName());
-                        inviteRankInfo.setInviteCode(user.getInviteCode());
-                        inviteRankInfo.setInviteScore(rankInfo.getScore().intValue());
-                        inviteRankInfos.add(inviteRankInfo);
-                    }
+        List<Long> userIds = new ArrayList<>(rankInfos.size());
+        for (ScoredEntry<String> rankInfo : rankInfos) {
+            if (StringUtils.isNotBlank(rankInfo.getValue())) {
+                userIds.add(Long.valueOf(rankInfo.getValue()));
+            }
+        }
+        Map<Long, User> users = findByIds(userIds);
+
+        for (ScoredEntry<String> rankInfo : rankInfos) {
+            String userId = rankInfo.getValue();
+            if (StringUtils.isNotBlank(userId)) {
+                User user = users.get(Long.valueOf(userId));
+                if (user != null) {
+                    InviteRankInfo inviteRankInfo = new InviteRankInfo();
+                    inviteRankInfo.setNickName(user.getNickName());
+                    inviteRankInfo.setInviteCode(user.getInviteCode());
+                    inviteRankInfo.setInviteScore(rankInfo.getScore().intValue());
+                    inviteRankInfos.add(inviteRankInfo);
                 }
             }
         }
@@ -462,23 +783,38 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
     }
 
     public boolean nickNameExist(String nickName) {
+        return nickNameExist(nickName, false);
+    }
+
+    public boolean inviteCodeExist(String inviteCode) {
+        return inviteCodeExist(inviteCode, false);
+    }
+
+    /**
+     * @param strict 写路径传 true，本地副本未命中时再查 Redis，其他节点刚加入的昵称可能还没有广播到本地
+     */
+    private boolean nickNameExist(String nickName, boolean strict) {
         // 如果布隆过滤器中存在，再进行数据库二次判断
-        if (this.nickNameBloomFilter != null && this.nickNameBloomFilter.contains(nickName)) {
+        if (this.nickNameBloomFilter != null && mightContain(this.nickNameBloomFilter, nickName, strict)) {
             return userMapper.findByNickname(nickName) != null;
         }
 
         return false;
     }
 
-    public boolean inviteCodeExist(String inviteCode) {
+    private boolean inviteCodeExist(String inviteCode, boolean strict) {
         // 如果布隆过滤器中存在，再进行数据库二次判断
-        if (this.inviteCodeBloomFilter != null && this.inviteCodeBloomFilter.contains(inviteCode)) {
+        if (this.inviteCodeBloomFilter != null && mightContain(this.inviteCodeBloomFilter, inviteCode, strict)) {
             return userMapper.findByInviteCode(inviteCode) != null;
         }
 
         return false;
     }
 
+    private static boolean mightContain(LocalBloomFilterReplica bloomFilter, String value, boolean strict) {
+        return strict ? bloomFilter.containsStrictly(value) : bloomFilter.contains(value);
+    }
+
     private boolean addNickName(String nickName) {
         return this.nickNameBloomFilter != null && this.nickNameBloomFilter.add(nickName);
     }
@@ -493,53 +829,126 @@ public class UserService extends ServiceImpl<UserMapper, User> implements Initia
      *     1、优先按照分数排，分数越大的，排名越靠前
      *     2、分数相同，则按照上榜时间排，上榜越早的排名越靠前
      * </pre>
+     * 读分数、计算、写回在一个脚本内完成，不需要对邀请人加锁，一次往返
      * @param inviterId
      */
     private void updateInviteRank(String inviterId) {
         if (inviterId == null) {
             return;
         }
-        // 1、这里因为是一个私有方法，无法通过注解方式实现分布式锁。
-        // 2、register方法已经加了锁，这里需要二次加锁的原因是register锁的是注册人，这里锁的是邀请人
-        RLock rLock = redissonClient.getLock(inviterId);
-        rLock.lock();
-        try {
-            // 获取当前用户的积分
-            Double score = inviteRank.getScore(inviterId);
-            if (score == null) {
-                score = 0.0;
-            }
+        redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, INVITE_RANK_SCRIPT,
+                RScript.ReturnType.INTEGER, List.of(INVITE_RANK_KEY), inviterId, String.valueOf(INVITE_SCORE));
+    }
 
-            // 获取最近一次上榜时间
-            long currentTimeStamp = System.currentTimeMillis();
-            // 把上榜时间转成小数(时间戳13位，所以除以10000000000000能转成小数)，并且倒序排列（用1减），即上榜时间越早，分数越大（时间越晚，时间戳越大，用1减一下，就反过来了）
-            double timePartScore = 1 - (double)currentTimeStamp / 10000000000000L;
+    /**
+     * 批量更新排名，用于批量导入等场景，每批一次往返
+     * @param inviteCounts 邀请人ID -> 新增邀请人数
+     */
+    public void batchUpdateInviteRank(Map<String, Integer> inviteCounts) {
+        List<Object> args = new ArrayList<>(INVITE_RANK_BATCH_SIZE * 2);
+        for (Map.Entry<String, Integer> entry : inviteCounts.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null || entry.getValue() <= 0) {
+                continue;
+            }
+            args.add(entry.getKey());
+            args.add(String.valueOf((long) entry.getValue() * INVITE_SCORE));
+            if (args.size() == INVITE_RANK_BATCH_SIZE * 2) {
+                redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, INVITE_RANK_SCRIPT,
+                        RScript.ReturnType.INTEGER, List.of(INVITE_RANK_KEY), args.toArray());
+                args.clear();
+            }
+        }
+        if (!args.isEmpty()) {
+            redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, INVITE_RANK_SCRIPT,
+                    RScript.ReturnType.INTEGER, List.of(INVITE_RANK_KEY), args.toArray());
+        }
+    }
 
-            // 1、当前积分保留整数，即移除上一次的小数位
-            // 2、当前积分加100，表示新邀请了一个用户
-            // 3、加上“最近一次上榜时间的倒序小数位“作为score
-            inviteRank.add(score.intValue() + 100.0 + timePartScore, inviterId);
-        } finally {
-            rLock.unlock();
+    /**
+     * 组装流水中的变更字段，参数为 字段名、字段值 成对出现，值为空的字段不记录
+     */
+    private static Map<String, Object> changes(Object... keyValues) {
+        Map<String, Object> changes = new LinkedHashMap<>(keyValues.length);
+        for (int i = 0; i < keyValues.length; i += 2) {
+            if (keyValues[i + 1] != null) {
+                changes.put((String) keyValues[i], keyValues[i + 1]);
+            }
         }
+        return changes;
     }
 
     private void updateUserCache(String userId, User user) {
-        idUserCache.put(userId, user);
+        if (cdcEnabled) {
+            return;
+        }
+        afterCommit(() -> idUserCache().put(userId, user));
     }
 
-    @Override
-    public void afterPropertiesSet() throws Exception {
-        this.nickNameBloomFilter = redissonClient.getBloomFilter("nickName");
-        if (nickNameBloomFilter != null && !nickNameBloomFilter.isExists()) {
-            this.nickNameBloomFilter.tryInit(100000L, 0.01);
+    private void removeUserCache(Long userId) {
+        if (cdcEnabled) {
+            return;
         }
+        afterCommit(() -> idUserCache().remove(userId.toString()));
+    }
 
-        this.inviteCodeBloomFilter = redissonClient.getBloomFilter("inviteCode");
-        if (inviteCodeBloomFilter != null && !inviteCodeBloomFilter.isExists()) {
-            this.inviteCodeBloomFilter.tryInit(100000L, 0.01);
+    /**
+     * 事务提交后删除手机号索引，提交前后可能有并发查询写入了旧的索引或"不存在"，所以再延迟删除一次
+     */
+    private void removeTelephoneCache(String... telephones) {
+        if (cdcEnabled) {
+            return;
         }
+        afterCommit(() -> {
+            for (String telephone : telephones) {
+                if (StringUtils.isNotBlank(telephone)) {
+                    telUserIdCache().remove(telephone);
+                    delayedCacheInvalidator.invalidate(telUserIdCacheName(), telephone, CACHE_DELAY_DELETE_MILLIS);
+                }
+            }
+        });
+    }
+
+    private void delayRemoveUserCache(Long userId) {
+        if (cdcEnabled) {
+            return;
+        }
+        afterCommit(() -> delayedCacheInvalidator.invalidate(idUserCacheName(), userId.toString(), CACHE_DELAY_DELETE_MILLIS));
+    }
+
+    private Cache<String, User> idUserCache() {
+        return StressContext.isStress() ? stressIdUserCache : idUserCache;
+    }
+
+    private Cache<String, Long> telUserIdCache() {
+        return StressContext.isStress() ? stressTelUserIdCache : telUserIdCache;
+    }
+
+    private static String idUserCacheName() {
+        return StressContext.isStress() ? STRESS_ID_USER_CACHE_NAME : ID_USER_CACHE_NAME;
+    }
 
-        this.inviteRank = redissonClient.getScoredSortedSet("inviteRank");
+    private static String telUserIdCacheName() {
+        return StressContext.isStress() ? STRESS_TEL_USER_ID_CACHE_NAME : TEL_USER_ID_CACHE_NAME;
+    }
+
+    /**
+     * 在事务中时等事务提交后再执行，提交前删除的缓存会被并发查询用旧数据回填；不在事务中时直接执行
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        this.inviteRank = redissonClient.getScoredSortedSet(INVITE_RANK_KEY);
     }
 }
@@ -0,0 +1,27 @@
+package com.xiaowang.cola.user.domain.service.config;
+
+import com.xiaowang.cola.cache.bloom.LocalBloomFilterReplica;
+import com.xiaowang.cola.user.domain.service.InviteCodePoolService;
+import com.xiaowang.cola.user.infrastructure.mapper.UserMapper;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author cola
+ */
+@Configuration
+@EnableConfigurationProperties(InviteCodePoolProperties.class)
+public class InviteCodePoolConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnMissingBean
+    public InviteCodePoolService inviteCodePoolService(RedissonClient redissonClient, UserMapper userMapper,
+                                                       InviteCodePoolProperties properties,
+                                                       @Qualifier("inviteCodeBloomReplica") LocalBloomFilterReplica inviteCodeBloomFilter) {
+        return new InviteCodePoolService(redissonClient, userMapper, properties, inviteCodeBloomFilter);
+    }
+}
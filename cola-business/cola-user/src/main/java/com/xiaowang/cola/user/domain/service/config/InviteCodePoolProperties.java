@@ -0,0 +1,78 @@
+package com.xiaowang.cola.user.domain.service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 邀请码池配置
+ *
+ * @author cola
+ */
+@ConfigurationProperties(prefix = InviteCodePoolProperties.PREFIX)
+public class InviteCodePoolProperties {
+    public static final String PREFIX = "spring.user.invite-code-pool";
+
+    /**
+     * 是否开启邀请码池，关闭后注册时实时生成并校验
+     */
+    private boolean enabled = true;
+
+    /**
+     * 池子容量
+     */
+    private int capacity = 10000;
+
+    /**
+     * 低于该数量时补充
+     */
+    private int lowWatermark = 2000;
+
+    /**
+     * 每批生成的候选邀请码数量，每批一次数据库查询
+     */
+    private int batchSize = 500;
+
+    /**
+     * 定时检查间隔，秒
+     */
+    private int refillIntervalSeconds = 10;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getLowWatermark() {
+        return lowWatermark;
+    }
+
+    public void setLowWatermark(int lowWatermark) {
+        this.lowWatermark = lowWatermark;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getRefillIntervalSeconds() {
+        return refillIntervalSeconds;
+    }
+
+    public void setRefillIntervalSeconds(int refillIntervalSeconds) {
+        this.refillIntervalSeconds = refillIntervalSeconds;
+    }
+}
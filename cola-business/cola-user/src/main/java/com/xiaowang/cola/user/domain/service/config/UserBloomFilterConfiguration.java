@@ -0,0 +1,68 @@
+package com.xiaowang.cola.user.domain.service.config;
+
+import com.xiaowang.cola.cache.bloom.LocalBloomFilterReplica;
+import com.xiaowang.cola.cache.bloom.ScalableBloomFilter;
+import com.xiaowang.cola.cache.bloom.ScalableBloomFilterMetrics;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * 用户布隆过滤器配置
+ *
+ * @author cola
+ */
+@Configuration
+public class UserBloomFilterConfiguration {
+
+    private static final long INITIAL_CAPACITY = 100000L;
+
+    private static final double FPP = 0.01;
+
+    private static final long STATS_REFRESH_INTERVAL_MILLIS = 60000L;
+
+    private static final long REPLICA_RESYNC_INTERVAL_MILLIS = 300000L;
+
+    /**
+     * 用户名布隆过滤器
+     */
+    @Bean
+    public ScalableBloomFilter nickNameBloomFilter(RedissonClient redissonClient) {
+        return new ScalableBloomFilter(redissonClient, "nickName", INITIAL_CAPACITY, FPP);
+    }
+
+    /**
+     * 邀请码布隆过滤器
+     */
+    @Bean
+    public ScalableBloomFilter inviteCodeBloomFilter(RedissonClient redissonClient) {
+        return new ScalableBloomFilter(redissonClient, "inviteCode", INITIAL_CAPACITY, FPP);
+    }
+
+    /**
+     * 用户名布隆过滤器的本地副本
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public LocalBloomFilterReplica nickNameBloomReplica(@Qualifier("nickNameBloomFilter") ScalableBloomFilter nickNameBloomFilter,
+                                                        RedissonClient redissonClient) {
+        return new LocalBloomFilterReplica(nickNameBloomFilter, redissonClient, REPLICA_RESYNC_INTERVAL_MILLIS);
+    }
+
+    /**
+     * 邀请码布隆过滤器的本地副本
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public LocalBloomFilterReplica inviteCodeBloomReplica(@Qualifier("inviteCodeBloomFilter") ScalableBloomFilter inviteCodeBloomFilter,
+                                                          RedissonClient redissonClient) {
+        return new LocalBloomFilterReplica(inviteCodeBloomFilter, redissonClient, REPLICA_RESYNC_INTERVAL_MILLIS);
+    }
+
+    @Bean
+    public ScalableBloomFilterMetrics userBloomFilterMetrics(@Qualifier("nickNameBloomFilter") ScalableBloomFilter nickNameBloomFilter,
+                                                             @Qualifier("inviteCodeBloomFilter") ScalableBloomFilter inviteCodeBloomFilter) {
+        return new ScalableBloomFilterMetrics(List.of(nickNameBloomFilter, inviteCodeBloomFilter), STATS_REFRESH_INTERVAL_MILLIS);
+    }
+}
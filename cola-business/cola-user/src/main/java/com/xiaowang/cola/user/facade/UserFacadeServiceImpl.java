@@ -2,6 +2,7 @@ package com.xiaowang.cola.user.facade;
 
 import com.xiaowang.cola.api.user.request.UserActiveRequest;
 import com.xiaowang.cola.api.user.request.UserAuthRequest;
+import com.xiaowang.cola.api.user.request.UserBatchQueryRequest;
 import com.xiaowang.cola.api.user.request.UserModifyRequest;
 import com.xiaowang.cola.api.user.request.UserPageQueryRequest;
 import com.xiaowang.cola.api.user.request.UserQueryRequest;
@@ -22,6 +23,10 @@ import com.xiaowang.cola.user.domain.service.UserService;
 import org.apache.dubbo.config.annotation.DubboService;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * @author cola
  */
@@ -56,10 +61,35 @@ public class UserFacadeServiceImpl implements UserFacadeService {
         return response;
     }
 
+    @Facade
+    @Override
+    public UserQueryResponse<Map<String, UserInfo>> batchQuery(UserBatchQueryRequest userBatchQueryRequest) {
+        List<Long> userIds = userBatchQueryRequest.getUserIds();
+        List<String> telephones = userBatchQueryRequest.getTelephones();
+        boolean byId = userIds != null && !userIds.isEmpty();
+        boolean byTelephone = telephones != null && !telephones.isEmpty();
+        if (byId == byTelephone) {
+            throw new IllegalArgumentException("exactly one of userIds and telephones is required");
+        }
+
+        Map<String, UserInfo> userInfos = new HashMap<>();
+        if (byId) {
+            userService.findByIds(userIds).forEach((userId, user) -> userInfos.put(userId.toString(), UserConvertor.INSTANCE.mapToVo(user)));
+        } else {
+            userService.findByTelephones(telephones).forEach((telephone, user) -> userInfos.put(telephone, UserConvertor.INSTANCE.mapToVo(user)));
+        }
+
+        UserQueryResponse<Map<String, UserInfo>> response = new UserQueryResponse<>();
+        response.setSuccess(true);
+        response.setData(userInfos);
+        return response;
+    }
+
     @Facade
     @Override
     public PageResponse<UserInfo> pageQuery(UserPageQueryRequest userPageQueryRequest) {
-        var queryResult = userService.pageQueryByState(userPageQueryRequest.getKeyWord(), userPageQueryRequest.getState(), userPageQueryRequest.getCurrentPage(), userPageQueryRequest.getPageSize());
+        var queryResult = userService.pageQueryByState(userPageQueryRequest.getKeyWord(), userPageQueryRequest.getState(),
+                userPageQueryRequest.getCursor(), userPageQueryRequest.getCurrentPage(), userPageQueryRequest.getPageSize());
         PageResponse<UserInfo> response = new PageResponse<>();
         if (!queryResult.getSuccess()) {
             response.setSuccess(false);
@@ -69,6 +99,10 @@ public class UserFacadeServiceImpl implements UserFacadeService {
         response.setDatas(UserConvertor.INSTANCE.mapToVo(queryResult.getDatas()));
         response.setCurrentPage(queryResult.getCurrentPage());
         response.setPageSize(queryResult.getPageSize());
+        response.setTotal(queryResult.getTotal());
+        response.setTotalPage(queryResult.getTotalPage());
+        response.setNextCursor(queryResult.getNextCursor());
+        response.setHasMore(queryResult.isHasMore());
         return response;
     }
 
@@ -0,0 +1,40 @@
+package com.xiaowang.cola.user.infrastructure.mapper;
+
+import com.xiaowang.cola.user.domain.entity.LazyEncryptedString;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedTypes;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 延迟解密类型处理器，读取时只包装密文，不做解密
+ *
+ * @author cola
+ */
+@MappedTypes(LazyEncryptedString.class)
+public class LazyEncryptTypeHandler extends BaseTypeHandler<LazyEncryptedString> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, LazyEncryptedString parameter, JdbcType jdbcType) throws SQLException {
+        ps.setString(i, parameter.getCipherText());
+    }
+
+    @Override
+    public LazyEncryptedString getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return LazyEncryptedString.ofCipherText(rs.getString(columnName));
+    }
+
+    @Override
+    public LazyEncryptedString getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return LazyEncryptedString.ofCipherText(rs.getString(columnIndex));
+    }
+
+    @Override
+    public LazyEncryptedString getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return LazyEncryptedString.ofCipherText(cs.getString(columnIndex));
+    }
+}
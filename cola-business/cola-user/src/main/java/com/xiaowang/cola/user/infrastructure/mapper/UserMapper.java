@@ -4,6 +4,10 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xiaowang.cola.user.domain.entity.User;
 import jakarta.validation.constraints.NotNull;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * user mapper
@@ -20,6 +24,23 @@ public interface UserMapper extends BaseMapper<User> {
      */
     User findById(long id);
 
+    /**
+     * 根据id批量查询用户
+     *
+     * @param ids
+     * @return
+     */
+    List<User> findByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按主键游标扫描用户的昵称和邀请码，用于重建布隆过滤器
+     *
+     * @param lastId 上一批的最大ID
+     * @param limit
+     * @return
+     */
+    List<User> scanForBloomFilter(@Param("lastId") long lastId, @Param("limit") int limit);
+
     /**
      * 根据昵称查询用户
      *
@@ -35,6 +56,13 @@ public interface UserMapper extends BaseMapper<User> {
      */
     User findByInviteCode(@NotNull String inviteCode);
 
+    /**
+     * 查询已被使用的邀请码
+     * @param inviteCodes
+     * @return
+     */
+    List<String> findExistInviteCodes(@Param("inviteCodes") Collection<String> inviteCodes);
+
     /**
      * 根据手机号查询用户
      *
@@ -43,6 +71,14 @@ public interface UserMapper extends BaseMapper<User> {
      */
     User findByTelephone(@NotNull String telephone);
 
+    /**
+     * 根据手机号批量查询用户
+     *
+     * @param telephones
+     * @return
+     */
+    List<User> findByTelephones(@Param("telephones") Collection<String> telephones);
+
     /**
      * 根据昵称和密码查询用户
      *
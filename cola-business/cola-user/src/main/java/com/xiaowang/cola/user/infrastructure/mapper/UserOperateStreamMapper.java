@@ -3,6 +3,9 @@ package com.xiaowang.cola.user.infrastructure.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xiaowang.cola.user.domain.entity.UserOperateStream;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * <p>
@@ -14,4 +17,11 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface UserOperateStreamMapper extends BaseMapper<UserOperateStream> {
 
+    /**
+     * 批量插入流水，一条多行 INSERT
+     *
+     * @param streams
+     * @return
+     */
+    int batchInsert(@Param("streams") List<UserOperateStream> streams);
 }
@@ -1,20 +1,30 @@
 package com.xiaowang.cola.user.infrastructure.util;
 
-import cn.hutool.crypto.SecureUtil;
-import cn.hutool.crypto.symmetric.AES;
+import com.xiaowang.cola.base.crypto.AesEcbCipher;
+import com.xiaowang.cola.base.crypto.AesGcmCipher;
+import com.xiaowang.cola.base.crypto.CipherPool;
 import org.apache.commons.lang3.StringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.HexFormat;
 
 /**
  * AES加解密
+ * <pre>
+ *     1、新数据使用 AES-GCM，密文格式为 g1: + Base64(IV + 密文 + 认证标签)
+ *     2、历史数据是 AES-ECB 的十六进制密文，解密时按前缀区分，读取时兼容
+ * </pre>
  *
  * @author cola
  */
 public class AesUtil {
 
+    private static final String GCM_PREFIX = "g1:";
+
     private static String key = "uTfe6WtWICU/6rk0Gr7qKrAvHaRvQj+HRaHKvSe9UJI=";
-    private static AES aes = SecureUtil.aes(Base64.getDecoder().decode(key));
+    private static AesGcmCipher aes = CipherPool.aesGcm(Base64.getDecoder().decode(key));
+    private static AesEcbCipher legacyAes = CipherPool.aesEcb(Base64.getDecoder().decode(key));
 
     public static String encrypt(String content) {
         //判空修改
@@ -22,7 +32,7 @@ public class AesUtil {
             return content;
         }
 
-        return aes.encryptHex(content);
+        return GCM_PREFIX + Base64.getEncoder().encodeToString(aes.encrypt(content.getBytes(StandardCharsets.UTF_8)));
     }
 
     public static String decrypt(String content) {
@@ -31,6 +41,9 @@ public class AesUtil {
             return content;
         }
 
-        return aes.decryptStr(content);
+        if (content.startsWith(GCM_PREFIX)) {
+            return new String(aes.decrypt(Base64.getDecoder().decode(content.substring(GCM_PREFIX.length()))), StandardCharsets.UTF_8);
+        }
+        return new String(legacyAes.decrypt(HexFormat.of().parseHex(content)), StandardCharsets.UTF_8);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,45 @@
+package com.xiaowang.cola.user.domain.entity;
+
+import com.xiaowang.cola.user.infrastructure.util.AesUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author cola
+ */
+public class LazyEncryptedStringTest {
+
+    @Test
+    public void decryptOnlyWhenAccessed() {
+        LazyEncryptedString value = LazyEncryptedString.ofCipherText(AesUtil.encrypt("wang"));
+        Assertions.assertFalse(value.isDecrypted());
+        Assertions.assertEquals("wang", value.getPlainText());
+        Assertions.assertTrue(value.isDecrypted());
+    }
+
+    @Test
+    public void serializeCipherTextOnly() throws Exception {
+        User user = new User();
+        user.setRealName("zhangsan");
+        user.setIdCardNo("1234");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(user);
+        }
+        Assertions.assertFalse(bytes.toString(StandardCharsets.ISO_8859_1).contains("zhangsan"));
+
+        User cached;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            cached = (User) in.readObject();
+        }
+        Assertions.assertEquals("zhangsan", cached.getRealName());
+        Assertions.assertEquals("1234", cached.getIdCardNo());
+    }
+}
@@ -0,0 +1,85 @@
+package com.xiaowang.cola.user.domain.service;
+
+import com.xiaowang.cola.cache.bloom.LocalBloomFilterReplica;
+import com.xiaowang.cola.user.domain.service.config.InviteCodePoolProperties;
+import com.xiaowang.cola.user.infrastructure.mapper.UserMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.redisson.api.RLock;
+import org.redisson.api.RSet;
+import org.redisson.api.RedissonClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author cola
+ */
+public class InviteCodePoolServiceTest {
+
+    private RSet<String> pool;
+
+    private UserMapper userMapper;
+
+    private LocalBloomFilterReplica inviteCodeBloomFilter;
+
+    private InviteCodePoolService inviteCodePoolService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        pool = Mockito.mock(RSet.class);
+        RLock lock = Mockito.mock(RLock.class);
+        Mockito.when(lock.tryLock()).thenReturn(true);
+        RedissonClient redissonClient = Mockito.mock(RedissonClient.class);
+        Mockito.when(redissonClient.getLock(Mockito.anyString())).thenReturn(lock);
+        userMapper = Mockito.mock(UserMapper.class);
+        inviteCodeBloomFilter = Mockito.mock(LocalBloomFilterReplica.class);
+
+        InviteCodePoolProperties properties = new InviteCodePoolProperties();
+        properties.setCapacity(100);
+        properties.setLowWatermark(10);
+        properties.setBatchSize(100);
+
+        // 不调用 start，避免启动后台补充线程
+        inviteCodePoolService = new InviteCodePoolService(redissonClient, userMapper, properties, inviteCodeBloomFilter);
+        ReflectionTestUtils.setField(inviteCodePoolService, "pool", pool);
+    }
+
+    @Test
+    public void polledCodeIsAddedToBloomFilter() {
+        Mockito.when(pool.removeRandom()).thenReturn("ABC123");
+
+        Assertions.assertEquals("ABC123", inviteCodePoolService.poll());
+        Mockito.verify(inviteCodeBloomFilter).add("ABC123");
+    }
+
+    @Test
+    public void refillSkipsCodesInBloomFilter() {
+        Mockito.when(pool.size()).thenReturn(0, 0, 100);
+        // 一半候选已经被取出（在布隆过滤器中），补充时需要剔除
+        Mockito.when(inviteCodeBloomFilter.containsStrictly(Mockito.anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0, String.class).hashCode() % 2 == 0);
+        Mockito.when(userMapper.findExistInviteCodes(Mockito.anyCollection())).thenReturn(List.of());
+
+        inviteCodePoolService.refillIfNecessary();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> added = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(pool).addAll(added.capture());
+        Assertions.assertFalse(added.getValue().isEmpty());
+        Assertions.assertTrue(added.getValue().stream().noneMatch(code -> code.hashCode() % 2 == 0));
+    }
+
+    @Test
+    public void containsChecksPool() {
+        Mockito.when(pool.contains("ABC123")).thenReturn(true);
+
+        Assertions.assertTrue(inviteCodePoolService.contains("ABC123"));
+        Assertions.assertFalse(inviteCodePoolService.contains("XYZ789"));
+    }
+}
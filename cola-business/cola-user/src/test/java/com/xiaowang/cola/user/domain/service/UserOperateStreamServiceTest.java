@@ -0,0 +1,120 @@
+package com.xiaowang.cola.user.domain.service;
+
+import com.xiaowang.cola.api.user.constant.UserOperateTypeEnum;
+import com.xiaowang.cola.base.stress.StressContext;
+import com.xiaowang.cola.user.domain.entity.UserOperateStream;
+import com.xiaowang.cola.user.infrastructure.mapper.UserOperateStreamMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author cola
+ */
+public class UserOperateStreamServiceTest {
+
+    private UserOperateStreamMapper mapper;
+
+    private PlatformTransactionManager transactionManager;
+
+    private UserOperateStreamService service;
+
+    @BeforeEach
+    public void setUp() {
+        mapper = Mockito.mock(UserOperateStreamMapper.class);
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        Mockito.when(transactionManager.getTransaction(Mockito.any())).thenReturn(new SimpleTransactionStatus());
+
+        // 不调用 init，避免后台线程把队列取走
+        service = new UserOperateStreamService();
+        TransactionTemplate requiresNewTemplate = new TransactionTemplate(transactionManager);
+        requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        ReflectionTestUtils.setField(service, "baseMapper", mapper);
+        ReflectionTestUtils.setField(service, "requiresNewTemplate", requiresNewTemplate);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void streamIsQueuedAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        service.insertStream(1L, UserOperateTypeEnum.MODIFY, Map.of("nickName", "cola"));
+        service.flush();
+        Mockito.verify(mapper, Mockito.never()).batchInsert(Mockito.anyList());
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationManager.clearSynchronization();
+        service.flush();
+        Mockito.verify(mapper, Mockito.times(1)).batchInsert(Mockito.argThat(streams -> streams.size() == 1));
+    }
+
+    @Test
+    public void streamIsDroppedOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        service.insertStream(1L, UserOperateTypeEnum.MODIFY, Map.of("nickName", "cola"));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        service.flush();
+        Mockito.verify(mapper, Mockito.never()).batchInsert(Mockito.anyList());
+    }
+
+    @Test
+    public void queueFullWritesInNewTransaction() {
+        for (int i = 0; i < 10000; i++) {
+            service.insertStream((long) i, UserOperateTypeEnum.MODIFY, Map.of());
+        }
+        Mockito.verify(mapper, Mockito.never()).batchInsert(Mockito.anyList());
+
+        TransactionSynchronizationManager.initSynchronization();
+        service.insertStream(10000L, UserOperateTypeEnum.MODIFY, Map.of());
+        TransactionSynchronizationUtils.triggerAfterCommit();
+
+        Mockito.verify(transactionManager).getTransaction(Mockito.argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        Mockito.verify(mapper, Mockito.times(1)).batchInsert(Mockito.argThat(streams -> streams.size() == 1
+                && "10000".equals(streams.get(0).getUserId())));
+        Mockito.verify(transactionManager).commit(Mockito.any());
+    }
+
+    @Test
+    public void stressStreamIsWrittenUnderStressFlag() {
+        List<String> written = new ArrayList<>();
+        Mockito.when(mapper.batchInsert(Mockito.anyList())).thenAnswer(invocation -> {
+            List<UserOperateStream> streams = invocation.getArgument(0);
+            streams.forEach(stream -> written.add(stream.getUserId() + ":" + StressContext.isStress()));
+            return streams.size();
+        });
+
+        TransactionSynchronizationManager.initSynchronization();
+        StressContext.runWithStress(true, () -> service.insertStream(2L, UserOperateTypeEnum.MODIFY, Map.of()));
+        service.insertStream(1L, UserOperateTypeEnum.MODIFY, Map.of());
+        // 提交后的回调不一定在压测标记下执行，以记录时的标记为准
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        service.flush();
+        Assertions.assertEquals(List.of("1:false", "2:true"), written);
+        Assertions.assertFalse(StressContext.isStress());
+    }
+}
@@ -0,0 +1,76 @@
+package com.xiaowang.cola.user.domain.service;
+
+import com.alicp.jetcache.CacheManager;
+import com.alicp.jetcache.embedded.LinkedHashMapCacheBuilder;
+import com.alicp.jetcache.template.QuickConfig;
+import com.xiaowang.cola.cache.invalidate.DelayedCacheInvalidator;
+import com.xiaowang.cola.user.domain.entity.User;
+import com.xiaowang.cola.user.infrastructure.mapper.UserMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * @author cola
+ */
+public class UserServiceRegisterTest {
+
+    private UserMapper userMapper;
+
+    private InviteCodePoolService inviteCodePoolService;
+
+    private UserService userService;
+
+    @BeforeEach
+    public void setUp() {
+        CacheManager cacheManager = Mockito.mock(CacheManager.class);
+        Mockito.when(cacheManager.getOrCreateCache(Mockito.any(QuickConfig.class)))
+                .thenAnswer(invocation -> LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder().buildCache());
+        userMapper = Mockito.mock(UserMapper.class);
+        inviteCodePoolService = Mockito.mock(InviteCodePoolService.class);
+
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(userService, "userMapper", userMapper);
+        ReflectionTestUtils.setField(userService, "baseMapper", userMapper);
+        ReflectionTestUtils.setField(userService, "inviteCodePoolService", inviteCodePoolService);
+        ReflectionTestUtils.setField(userService, "userOperateStreamService", Mockito.mock(UserOperateStreamService.class));
+        ReflectionTestUtils.setField(userService, "delayedCacheInvalidator", Mockito.mock(DelayedCacheInvalidator.class));
+        userService.init();
+    }
+
+    @Test
+    public void duplicateInviteCodeIsRegenerated() {
+        Mockito.when(inviteCodePoolService.poll()).thenReturn("ABC123");
+        // 池子里的邀请码被并发注册的实时生成逻辑占用，唯一索引冲突
+        Mockito.when(userMapper.insert(Mockito.any(User.class)))
+                .thenThrow(new DuplicateKeyException("Duplicate entry 'ABC123' for key 'uk_invite_code'"))
+                .thenAnswer(invocation -> {
+                    invocation.getArgument(0, User.class).setId(1L);
+                    return 1;
+                });
+
+        Assertions.assertTrue(userService.register("13800000000", null).getSuccess());
+
+        ArgumentCaptor<User> captor = ArgumentCaptor.forClass(User.class);
+        Mockito.verify(userMapper, Mockito.times(2)).insert(captor.capture());
+        User user = captor.getAllValues().get(1);
+        Assertions.assertNotEquals("ABC123", user.getInviteCode());
+        Assertions.assertTrue(user.getNickName().contains(user.getInviteCode()));
+        // 实时生成时排除了仍在池子里的邀请码
+        Mockito.verify(inviteCodePoolService).contains(user.getInviteCode());
+    }
+
+    @Test
+    public void duplicateInviteCodeRetryIsBounded() {
+        Mockito.when(inviteCodePoolService.poll()).thenReturn("ABC123");
+        Mockito.when(userMapper.insert(Mockito.any(User.class))).thenThrow(new DuplicateKeyException("uk_invite_code"));
+
+        Assertions.assertThrows(DuplicateKeyException.class, () -> userService.register("13800000000", null));
+        Mockito.verify(userMapper, Mockito.times(4)).insert(Mockito.any(User.class));
+    }
+}
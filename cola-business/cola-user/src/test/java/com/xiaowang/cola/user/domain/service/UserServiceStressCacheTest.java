@@ -0,0 +1,77 @@
+package com.xiaowang.cola.user.domain.service;
+
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.CacheManager;
+import com.alicp.jetcache.embedded.LinkedHashMapCacheBuilder;
+import com.alicp.jetcache.template.QuickConfig;
+import com.xiaowang.cola.base.stress.StressContext;
+import com.xiaowang.cola.cache.invalidate.DelayedCacheInvalidator;
+import com.xiaowang.cola.user.domain.entity.User;
+import com.xiaowang.cola.user.infrastructure.mapper.UserMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author cola
+ */
+public class UserServiceStressCacheTest {
+
+    private final Map<String, Cache<Object, Object>> caches = new HashMap<>();
+
+    private UserService userService;
+
+    @BeforeEach
+    public void setUp() {
+        CacheManager cacheManager = Mockito.mock(CacheManager.class);
+        Mockito.when(cacheManager.getOrCreateCache(Mockito.any(QuickConfig.class))).thenAnswer(invocation -> {
+            QuickConfig config = invocation.getArgument(0);
+            return caches.computeIfAbsent(config.getName(),
+                    name -> LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder().buildCache());
+        });
+
+        // 模拟影子表：压测流量查到的是影子数据
+        UserMapper userMapper = Mockito.mock(UserMapper.class);
+        Mockito.when(userMapper.findById(1L)).thenAnswer(invocation -> user(StressContext.isStress()));
+        Mockito.when(userMapper.findByIds(Mockito.anyList())).thenAnswer(invocation -> List.of(user(StressContext.isStress())));
+        Mockito.when(userMapper.findByTelephone("13800000000")).thenAnswer(invocation -> user(StressContext.isStress()));
+
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(userService, "userMapper", userMapper);
+        ReflectionTestUtils.setField(userService, "delayedCacheInvalidator", Mockito.mock(DelayedCacheInvalidator.class));
+        userService.init();
+    }
+
+    @Test
+    public void stressLoadByIdIsNotVisibleToNormalTraffic() {
+        StressContext.runWithStress(true, () -> Assertions.assertEquals("shadow", userService.findById(1L).getNickName()));
+        Assertions.assertNull(caches.get(":user:cache:id:").get("1"));
+
+        Assertions.assertEquals("production", userService.findByIds(List.of(1L)).get(1L).getNickName());
+        // 压测流量读到的仍然是自己的缓存
+        StressContext.runWithStress(true, () -> Assertions.assertEquals("shadow", userService.findByIds(List.of(1L)).get(1L).getNickName()));
+    }
+
+    @Test
+    public void stressLoadByTelephoneIsNotVisibleToNormalTraffic() {
+        StressContext.runWithStress(true, () -> Assertions.assertEquals("shadow", userService.findByTelephone("13800000000").getNickName()));
+        Assertions.assertNull(caches.get(":user:cache:tel:").get("13800000000"));
+
+        Assertions.assertEquals("production", userService.findByTelephone("13800000000").getNickName());
+    }
+
+    private static User user(boolean shadow) {
+        User user = new User();
+        user.setId(1L);
+        user.setTelephone("13800000000");
+        user.setNickName(shadow ? "shadow" : "production");
+        return user;
+    }
+}
@@ -23,7 +23,8 @@ CREATE TABLE `users`
     `user_role`            varchar(128) DEFAULT NULL COMMENT '用户角色',
     `deleted`              int          DEFAULT NULL COMMENT '是否逻辑删除，0为未删除，非0为已删除',
     `lock_version`         int          DEFAULT NULL COMMENT '乐观锁版本号',
-    PRIMARY KEY (`id`)
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_invite_code` (`invite_code`)
 );
 
 
@@ -0,0 +1,46 @@
+package com.xiaowang.cola.api.user.request;
+
+import com.xiaowang.cola.base.request.BaseRequest;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * 批量查询用户，userIds 和 telephones 二选一
+ *
+ * @author cola
+ */
+@Setter
+@Getter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserBatchQueryRequest extends BaseRequest {
+
+    public static final int MAX_BATCH_SIZE = 200;
+
+    /**
+     * 用户ID列表
+     */
+    @Size(max = MAX_BATCH_SIZE, message = "userIds最多" + MAX_BATCH_SIZE + "个")
+    private List<Long> userIds;
+
+    /**
+     * 手机号列表
+     */
+    @Size(max = MAX_BATCH_SIZE, message = "telephones最多" + MAX_BATCH_SIZE + "个")
+    private List<String> telephones;
+
+    public static UserBatchQueryRequest ofUserIds(List<Long> userIds) {
+        return new UserBatchQueryRequest(userIds, null);
+    }
+
+    public static UserBatchQueryRequest ofTelephones(List<String> telephones) {
+        return new UserBatchQueryRequest(null, telephones);
+    }
+}
@@ -29,5 +29,9 @@ public class UserPageQueryRequest extends BaseRequest {
      * 页面大小
      */
     private int pageSize;
+    /**
+     * 上一页返回的游标，不为空时按游标翻页，忽略 currentPage
+     */
+    private String cursor;
 
 }
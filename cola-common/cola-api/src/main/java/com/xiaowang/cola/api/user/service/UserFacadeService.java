@@ -3,6 +3,7 @@ package com.xiaowang.cola.api.user.service;
 
 import com.xiaowang.cola.api.user.request.UserActiveRequest;
 import com.xiaowang.cola.api.user.request.UserAuthRequest;
+import com.xiaowang.cola.api.user.request.UserBatchQueryRequest;
 import com.xiaowang.cola.api.user.request.UserModifyRequest;
 import com.xiaowang.cola.api.user.request.UserPageQueryRequest;
 import com.xiaowang.cola.api.user.request.UserQueryRequest;
@@ -12,6 +13,8 @@ import com.xiaowang.cola.api.user.response.UserQueryResponse;
 import com.xiaowang.cola.api.user.response.data.UserInfo;
 import com.xiaowang.cola.base.response.PageResponse;
 
+import java.util.Map;
+
 /**
  * @author cola
  */
@@ -25,6 +28,13 @@ public interface UserFacadeService {
     UserQueryResponse<UserInfo> query(UserQueryRequest userQueryRequest);
 
 
+    /**
+     * 批量查询用户信息，一次最多查询 UserBatchQueryRequest.MAX_BATCH_SIZE 个
+     * @param userBatchQueryRequest
+     * @return 按用户ID或手机号查询时，分别以用户ID字符串或手机号为key，不存在的用户不在结果中
+     */
+    UserQueryResponse<Map<String, UserInfo>> batchQuery(UserBatchQueryRequest userBatchQueryRequest);
+
     /**
      * 分页查询用户信息
      * @param userPageQueryRequest
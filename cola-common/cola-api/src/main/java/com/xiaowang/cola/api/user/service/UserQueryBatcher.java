@@ -0,0 +1,210 @@
+package com.xiaowang.cola.api.user.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.xiaowang.cola.api.user.request.UserBatchQueryRequest;
+import com.xiaowang.cola.api.user.response.UserQueryResponse;
+import com.xiaowang.cola.api.user.response.data.UserInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 消费端的用户查询合并器，把并发的单个查询合并成 batchQuery 调用
+ * <pre>
+ *     1、第一个请求到达后等待 maxDelayMillis，期间到达的请求合并成一批
+ *     2、攒够 maxBatchSize 个请求时立即发起调用，不再等待
+ *     3、一批内相同的key只查询一次，调用失败时这一批的请求都以同一个异常结束
+ *     4、定时线程只负责计时，阻塞的 batchQuery 调用在单独的查询线程池中执行
+ * </pre>
+ *
+ * @author cola
+ */
+public class UserQueryBatcher implements AutoCloseable {
+
+    private static final int DEFAULT_LOAD_THREADS = 8;
+
+    private final UserFacadeService userFacadeService;
+
+    private final int maxBatchSize;
+
+    private final long maxDelayMillis;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ExecutorService loadExecutor;
+
+    private final KeyBatcher<Long> idBatcher;
+
+    private final KeyBatcher<String> telephoneBatcher;
+
+    public UserQueryBatcher(UserFacadeService userFacadeService) {
+        this(userFacadeService, UserBatchQueryRequest.MAX_BATCH_SIZE, 2);
+    }
+
+    public UserQueryBatcher(UserFacadeService userFacadeService, int maxBatchSize, long maxDelayMillis) {
+        this(userFacadeService, maxBatchSize, maxDelayMillis, DEFAULT_LOAD_THREADS);
+    }
+
+    public UserQueryBatcher(UserFacadeService userFacadeService, int maxBatchSize, long maxDelayMillis, int loadThreads) {
+        if (maxBatchSize <= 0 || maxBatchSize > UserBatchQueryRequest.MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("maxBatchSize must be between 1 and " + UserBatchQueryRequest.MAX_BATCH_SIZE);
+        }
+        this.userFacadeService = userFacadeService;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("user-query-batcher-%d").setDaemon(true).build());
+        this.loadExecutor = Executors.newFixedThreadPool(loadThreads,
+                new ThreadFactoryBuilder().setNameFormat("user-query-loader-%d").setDaemon(true).build());
+        this.idBatcher = new KeyBatcher<>(ids -> batchQuery(UserBatchQueryRequest.ofUserIds(ids)));
+        this.telephoneBatcher = new KeyBatcher<>(telephones -> batchQuery(UserBatchQueryRequest.ofTelephones(telephones)));
+    }
+
+    /**
+     * 按用户ID查询，用户不存在时结果为 null
+     */
+    public CompletableFuture<UserInfo> queryById(Long userId) {
+        return idBatcher.submit(userId);
+    }
+
+    /**
+     * 按手机号查询，用户不存在时结果为 null
+     */
+    public CompletableFuture<UserInfo> queryByTelephone(String telephone) {
+        return telephoneBatcher.submit(telephone);
+    }
+
+    /**
+     * 按用户ID同步查询
+     */
+    public UserInfo getById(Long userId) {
+        return join(queryById(userId));
+    }
+
+    /**
+     * 按手机号同步查询
+     */
+    public UserInfo getByTelephone(String telephone) {
+        return join(queryByTelephone(telephone));
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        loadExecutor.shutdown();
+    }
+
+    private Map<String, UserInfo> batchQuery(UserBatchQueryRequest request) {
+        UserQueryResponse<Map<String, UserInfo>> response = userFacadeService.batchQuery(request);
+        if (response == null || !Boolean.TRUE.equals(response.getSuccess())) {
+            throw new IllegalStateException("batch query user failed, code = "
+                    + (response == null ? null : response.getResponseCode())
+                    + " , message = " + (response == null ? null : response.getResponseMessage()));
+        }
+        return response.getData() == null ? Collections.emptyMap() : response.getData();
+    }
+
+    private static UserInfo join(CompletableFuture<UserInfo> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private final class KeyBatcher<K> {
+
+        private static final int IDLE = 0;
+
+        private static final int DELAYED = 1;
+
+        private static final int IMMEDIATE = 2;
+
+        private final Function<List<K>, Map<String, UserInfo>> loader;
+
+        private final Queue<Pending<K>> pendings = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * 调度状态，定时触发和攒满触发共用，同一时刻最多各有一个未开始的 flush
+         */
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+
+        private KeyBatcher(Function<List<K>, Map<String, UserInfo>> loader) {
+            this.loader = loader;
+        }
+
+        private CompletableFuture<UserInfo> submit(K key) {
+            Pending<K> pending = new Pending<>(key, new CompletableFuture<>());
+            pendings.add(pending);
+            if (size.incrementAndGet() >= maxBatchSize) {
+                int current = state.get();
+                if (current != IMMEDIATE && state.compareAndSet(current, IMMEDIATE)) {
+                    loadExecutor.execute(this::flush);
+                }
+            } else if (state.compareAndSet(IDLE, DELAYED)) {
+                scheduler.schedule(() -> loadExecutor.execute(this::flush), maxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+            return pending.future;
+        }
+
+        private void flush() {
+            List<Pending<K>> batch = new ArrayList<>(maxBatchSize);
+            while (true) {
+                // 每次先清除标记再取数据，之后入队的请求会重新调度
+                state.set(IDLE);
+                Pending<K> pending;
+                while (batch.size() < maxBatchSize && (pending = pendings.poll()) != null) {
+                    batch.add(pending);
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                size.addAndGet(-batch.size());
+                load(batch);
+                batch.clear();
+            }
+        }
+
+        private void load(List<Pending<K>> batch) {
+            Set<K> keys = new LinkedHashSet<>(batch.size() * 2);
+            for (Pending<K> pending : batch) {
+                keys.add(pending.key);
+            }
+            try {
+                Map<String, UserInfo> result = loader.apply(new ArrayList<>(keys));
+                for (Pending<K> pending : batch) {
+                    pending.future.complete(result.get(String.valueOf(pending.key)));
+                }
+            } catch (Throwable e) {
+                for (Pending<K> pending : batch) {
+                    pending.future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private record Pending<K>(K key, CompletableFuture<UserInfo> future) {
+    }
+}
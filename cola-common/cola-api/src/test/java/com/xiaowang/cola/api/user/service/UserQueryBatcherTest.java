@@ -0,0 +1,99 @@
+package com.xiaowang.cola.api.user.service;
+
+import com.xiaowang.cola.api.user.request.UserBatchQueryRequest;
+import com.xiaowang.cola.api.user.response.UserQueryResponse;
+import com.xiaowang.cola.api.user.response.data.UserInfo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author cola
+ */
+public class UserQueryBatcherTest {
+
+    @Test
+    public void concurrentQueriesAreMergedAndDeduplicated() throws Exception {
+        UserFacadeService userFacadeService = Mockito.mock(UserFacadeService.class);
+        Mockito.when(userFacadeService.batchQuery(Mockito.any())).thenAnswer(invocation -> {
+            UserBatchQueryRequest request = invocation.getArgument(0);
+            Map<String, UserInfo> data = new HashMap<>();
+            for (Long userId : request.getUserIds()) {
+                if (userId != 3L) {
+                    data.put(String.valueOf(userId), userInfo(userId));
+                }
+            }
+            return success(data);
+        });
+
+        try (UserQueryBatcher batcher = new UserQueryBatcher(userFacadeService, 10, 50)) {
+            CompletableFuture<UserInfo> first = batcher.queryById(1L);
+            CompletableFuture<UserInfo> second = batcher.queryById(2L);
+            CompletableFuture<UserInfo> duplicate = batcher.queryById(2L);
+            CompletableFuture<UserInfo> missing = batcher.queryById(3L);
+
+            Assertions.assertEquals(1L, first.get(1, TimeUnit.SECONDS).getUserId());
+            Assertions.assertEquals(2L, second.get(1, TimeUnit.SECONDS).getUserId());
+            Assertions.assertEquals(2L, duplicate.get(1, TimeUnit.SECONDS).getUserId());
+            Assertions.assertNull(missing.get(1, TimeUnit.SECONDS));
+        }
+
+        ArgumentCaptor<UserBatchQueryRequest> captor = ArgumentCaptor.forClass(UserBatchQueryRequest.class);
+        Mockito.verify(userFacadeService, Mockito.times(1)).batchQuery(captor.capture());
+        Assertions.assertEquals(List.of(1L, 2L, 3L), captor.getValue().getUserIds());
+    }
+
+    @Test
+    public void fullBatchIsLoadedWithoutWaitingForTimer() throws Exception {
+        UserFacadeService userFacadeService = Mockito.mock(UserFacadeService.class);
+        Mockito.when(userFacadeService.batchQuery(Mockito.any())).thenReturn(success(Map.of("1", userInfo(1L))));
+
+        try (UserQueryBatcher batcher = new UserQueryBatcher(userFacadeService, 2, TimeUnit.MINUTES.toMillis(1))) {
+            CompletableFuture<UserInfo> first = batcher.queryById(1L);
+            CompletableFuture<UserInfo> second = batcher.queryById(2L);
+            Assertions.assertEquals(1L, first.get(1, TimeUnit.SECONDS).getUserId());
+            Assertions.assertNull(second.get(1, TimeUnit.SECONDS));
+        }
+        Mockito.verify(userFacadeService, Mockito.times(1)).batchQuery(Mockito.any());
+    }
+
+    @Test
+    public void failureIsPropagatedToWholeBatch() {
+        UserFacadeService userFacadeService = Mockito.mock(UserFacadeService.class);
+        UserQueryResponse<Map<String, UserInfo>> failed = new UserQueryResponse<>();
+        failed.setSuccess(false);
+        failed.setResponseCode("SYSTEM_ERROR");
+        Mockito.when(userFacadeService.batchQuery(Mockito.any())).thenReturn(failed);
+
+        try (UserQueryBatcher batcher = new UserQueryBatcher(userFacadeService, 10, 20)) {
+            CompletableFuture<UserInfo> first = batcher.queryByTelephone("13800000001");
+            CompletableFuture<UserInfo> second = batcher.queryByTelephone("13800000002");
+
+            ExecutionException exception = Assertions.assertThrows(ExecutionException.class, () -> first.get(1, TimeUnit.SECONDS));
+            Assertions.assertInstanceOf(IllegalStateException.class, exception.getCause());
+            Assertions.assertThrows(ExecutionException.class, () -> second.get(1, TimeUnit.SECONDS));
+            Assertions.assertThrows(IllegalStateException.class, () -> batcher.getByTelephone("13800000003"));
+        }
+    }
+
+    private static UserInfo userInfo(Long userId) {
+        UserInfo userInfo = new UserInfo();
+        userInfo.setUserId(userId);
+        return userInfo;
+    }
+
+    private static UserQueryResponse<Map<String, UserInfo>> success(Map<String, UserInfo> data) {
+        UserQueryResponse<Map<String, UserInfo>> response = new UserQueryResponse<>();
+        response.setSuccess(true);
+        response.setData(data);
+        return response;
+    }
+}
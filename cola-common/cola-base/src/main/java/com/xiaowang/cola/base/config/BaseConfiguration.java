@@ -1,8 +1,11 @@
 package com.xiaowang.cola.base.config;
 
+import com.xiaowang.cola.base.stress.StressTaskDecorator;
 import com.xiaowang.cola.base.utils.SpringContextHolder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
 
 /**
  * 通用模块的配置类
@@ -16,4 +19,13 @@ public class BaseConfiguration {
     public SpringContextHolder springContextHolder() {
         return new SpringContextHolder();
     }
+
+    /**
+     * Spring Boot 会把该装饰器应用到默认的任务线程池，@Async 任务会带上压测标记
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public TaskDecorator stressTaskDecorator() {
+        return new StressTaskDecorator();
+    }
 }
@@ -0,0 +1,60 @@
+package com.xiaowang.cola.base.crypto;
+
+import com.xiaowang.cola.base.exception.SystemException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+
+import static com.xiaowang.cola.base.exception.BizErrorCode.CRYPTO_FAILED;
+
+/**
+ * AES/ECB/PKCS5Padding 加解密，线程安全
+ * <p>
+ * 与 hutool SecureUtil.aes(key) 的默认模式一致，仅用于读取历史数据，新数据请使用 {@link AesGcmCipher}
+ *
+ * @author cola
+ */
+public final class AesEcbCipher {
+
+    private static final String TRANSFORMATION = "AES/ECB/PKCS5Padding";
+
+    /**
+     * ECB 没有 IV，初始化后的 Cipher 在 doFinal 之后会自动复位，可以直接复用
+     */
+    private final ThreadLocal<Cipher> encryptHolder;
+
+    private final ThreadLocal<Cipher> decryptHolder;
+
+    AesEcbCipher(byte[] key) {
+        SecretKeySpec keySpec = new SecretKeySpec(key, "AES");
+        this.encryptHolder = ThreadLocal.withInitial(() -> init(Cipher.ENCRYPT_MODE, keySpec));
+        this.decryptHolder = ThreadLocal.withInitial(() -> init(Cipher.DECRYPT_MODE, keySpec));
+    }
+
+    public byte[] encrypt(byte[] plain) {
+        try {
+            return encryptHolder.get().doFinal(plain);
+        } catch (GeneralSecurityException e) {
+            throw new SystemException(e, CRYPTO_FAILED);
+        }
+    }
+
+    public byte[] decrypt(byte[] data) {
+        try {
+            return decryptHolder.get().doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new SystemException(e, CRYPTO_FAILED);
+        }
+    }
+
+    private static Cipher init(int mode, SecretKeySpec keySpec) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(mode, keySpec);
+            return cipher;
+        } catch (GeneralSecurityException e) {
+            throw new SystemException(e, CRYPTO_FAILED);
+        }
+    }
+}
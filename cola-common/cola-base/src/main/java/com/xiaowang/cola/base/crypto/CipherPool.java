@@ -0,0 +1,40 @@
+package com.xiaowang.cola.base.crypto;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 加解密服务，按密钥缓存线程安全的 Cipher 池
+ * <p>
+ * TypeHandler、工具类等不受 Spring 管理的地方也会用到，所以提供静态方法，同一个密钥全局只初始化一次
+ *
+ * @author cola
+ */
+public final class CipherPool {
+
+    private static final Map<String, AesGcmCipher> AES_GCM_CIPHERS = new ConcurrentHashMap<>();
+
+    private static final Map<String, AesEcbCipher> AES_ECB_CIPHERS = new ConcurrentHashMap<>();
+
+    private CipherPool() {
+    }
+
+    /**
+     * 获取 AES-GCM 加解密器
+     *
+     * @param key 16/24/32 字节密钥
+     */
+    public static AesGcmCipher aesGcm(byte[] key) {
+        return AES_GCM_CIPHERS.computeIfAbsent(Base64.getEncoder().encodeToString(key), k -> new AesGcmCipher(key.clone()));
+    }
+
+    /**
+     * 获取 AES-ECB 加解密器，仅用于兼容历史数据
+     *
+     * @param key 16/24/32 字节密钥
+     */
+    public static AesEcbCipher aesEcb(byte[] key) {
+        return AES_ECB_CIPHERS.computeIfAbsent(Base64.getEncoder().encodeToString(key), k -> new AesEcbCipher(key.clone()));
+    }
+}
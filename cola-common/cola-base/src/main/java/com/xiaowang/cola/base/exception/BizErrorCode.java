@@ -45,7 +45,17 @@ public enum BizErrorCode implements ErrorCode {
     /**
      * 远程调用返回结果失败
      */
-    REMOTE_CALL_RESPONSE_IS_FAILED("REMOTE_CALL_RESPONSE_IS_FAILED", "远程调用返回结果失败");
+    REMOTE_CALL_RESPONSE_IS_FAILED("REMOTE_CALL_RESPONSE_IS_FAILED", "远程调用返回结果失败"),
+
+    /**
+     * 加解密失败
+     */
+    CRYPTO_FAILED("CRYPTO_FAILED", "加解密失败"),
+
+    /**
+     * 分页游标不合法
+     */
+    INVALID_PAGE_CURSOR("INVALID_PAGE_CURSOR", "分页游标不合法");
 
 
     private String code;
@@ -0,0 +1,154 @@
+package com.xiaowang.cola.base.request;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.xiaowang.cola.base.exception.BizErrorCode;
+import com.xiaowang.cola.base.exception.BizException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 游标分页的游标，记录上一页最后一条记录的 (排序列的值, 主键ID) 和下一页的页码
+ * <pre>
+ *     1、对调用方是不透明的字符串，原样回传即可
+ *     2、排序值支持 Date、LocalDateTime、整数和字符串，解码后还原成原来的类型用于 SQL 绑定
+ *     3、内容后面附带 HMAC 签名，被篡改的游标解码时失败
+ *     4、签名密钥由调用方传入（spring.page.cursor.secret），没有默认值，多实例部署时必须一致
+ * </pre>
+ *
+ * @param sortValue 排序列的值
+ * @param id        主键ID，排序值相同时用于确定顺序
+ * @param page      游标指向的页码
+ * @author cola
+ */
+public record PageCursor(Object sortValue, long id, int page) {
+
+    private static final String VERSION = "2";
+
+    private static final String SIGN_ALGORITHM = "HmacSHA256";
+
+    /**
+     * Mac 不是线程安全的，每个线程按密钥缓存一份，避免每次编解码都 Mac.getInstance
+     */
+    private static final ThreadLocal<Map<String, Mac>> MACS = ThreadLocal.withInitial(HashMap::new);
+
+    private static final int SIGN_LENGTH = 16;
+
+    private static final String TYPE_DATE = "d";
+
+    private static final String TYPE_LOCAL_DATE_TIME = "t";
+
+    private static final String TYPE_LONG = "n";
+
+    private static final String TYPE_STRING = "s";
+
+    public PageCursor {
+        if (sortValue == null) {
+            throw new IllegalArgumentException("sortValue must not be null");
+        }
+    }
+
+    /**
+     * 编码游标
+     *
+     * @param secret 签名密钥
+     * @return 游标
+     */
+    public String encode(String secret) {
+        JSONArray array = new JSONArray(5);
+        array.add(VERSION);
+        if (sortValue instanceof Date date) {
+            array.add(TYPE_DATE);
+            array.add(date.getTime());
+        } else if (sortValue instanceof LocalDateTime localDateTime) {
+            array.add(TYPE_LOCAL_DATE_TIME);
+            array.add(localDateTime.toString());
+        } else if (sortValue instanceof Number number) {
+            array.add(TYPE_LONG);
+            array.add(number.longValue());
+        } else {
+            array.add(TYPE_STRING);
+            array.add(sortValue.toString());
+        }
+        array.add(id);
+        array.add(page);
+        byte[] content = array.toJSONString().getBytes(StandardCharsets.UTF_8);
+        byte[] signed = Arrays.copyOf(content, content.length + SIGN_LENGTH);
+        System.arraycopy(sign(content, secret), 0, signed, content.length, SIGN_LENGTH);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(signed);
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param cursor 游标，为空时返回 null
+     * @param secret 签名密钥，和编码时一致
+     * @return 游标
+     * @throws BizException 游标被篡改或者格式不对
+     */
+    public static PageCursor decode(String cursor, String secret) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        checkSecret(secret);
+        try {
+            byte[] signed = Base64.getUrlDecoder().decode(cursor);
+            if (signed.length <= SIGN_LENGTH) {
+                throw new BizException(BizErrorCode.INVALID_PAGE_CURSOR);
+            }
+            byte[] content = Arrays.copyOf(signed, signed.length - SIGN_LENGTH);
+            byte[] signature = Arrays.copyOfRange(signed, content.length, signed.length);
+            if (!MessageDigest.isEqual(signature, Arrays.copyOf(sign(content, secret), SIGN_LENGTH))) {
+                throw new BizException(BizErrorCode.INVALID_PAGE_CURSOR);
+            }
+            JSONArray array = JSON.parseArray(new String(content, StandardCharsets.UTF_8));
+            if (array == null || array.size() != 5 || !VERSION.equals(array.getString(0))) {
+                throw new BizException(BizErrorCode.INVALID_PAGE_CURSOR);
+            }
+            Object sortValue = switch (array.getString(1)) {
+                case TYPE_DATE -> new Date(array.getLongValue(2));
+                case TYPE_LOCAL_DATE_TIME -> LocalDateTime.parse(array.getString(2));
+                case TYPE_LONG -> array.getLongValue(2);
+                case TYPE_STRING -> array.getString(2);
+                default -> throw new BizException(BizErrorCode.INVALID_PAGE_CURSOR);
+            };
+            return new PageCursor(sortValue, array.getLongValue(3), array.getIntValue(4));
+        } catch (BizException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BizException(e, BizErrorCode.INVALID_PAGE_CURSOR);
+        }
+    }
+
+    private static byte[] sign(byte[] content, String secret) {
+        checkSecret(secret);
+        // doFinal 之后 Mac 会重置，可以直接复用
+        return MACS.get().computeIfAbsent(secret, PageCursor::newMac).doFinal(content);
+    }
+
+    private static Mac newMac(String secret) {
+        try {
+            Mac mac = Mac.getInstance(SIGN_ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SIGN_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void checkSecret(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("page cursor secret must be configured");
+        }
+    }
+}
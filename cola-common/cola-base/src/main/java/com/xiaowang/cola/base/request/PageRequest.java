@@ -21,4 +21,8 @@ public class PageRequest extends BaseRequest {
      * 每页结果数
      */
     private int pageSize;
+    /**
+     * 上一页返回的 nextCursor，不为空时按游标翻页，忽略 currentPage
+     */
+    private String cursor;
 }
@@ -31,6 +31,14 @@ public class PageResponse<T> extends MultiResponse<T> {
      * 总数
      */
     private int total;
+    /**
+     * 下一页的游标，没有下一页时为空
+     */
+    private String nextCursor;
+    /**
+     * 是否还有下一页
+     */
+    private boolean hasMore;
 
     public static <T> PageResponse<T> of(List<T> datas, int total, int pageSize,int currentPage) {
         PageResponse<T> pageResponse = new PageResponse<>();
@@ -40,6 +48,23 @@ public class PageResponse<T> extends MultiResponse<T> {
         pageResponse.setPageSize(pageSize);
         pageResponse.setCurrentPage(currentPage);
         pageResponse.setTotalPage((pageSize + total - 1) / pageSize);
+        pageResponse.setHasMore(currentPage < pageResponse.getTotalPage());
+        return pageResponse;
+    }
+
+    /**
+     * 游标分页的结果，total 可以是缓存的或者近似的总数
+     */
+    public static <T> PageResponse<T> ofCursor(List<T> datas, int total, int pageSize, int currentPage, String nextCursor) {
+        PageResponse<T> pageResponse = new PageResponse<>();
+        pageResponse.setSuccess(true);
+        pageResponse.setDatas(datas);
+        pageResponse.setTotal(total);
+        pageResponse.setPageSize(pageSize);
+        pageResponse.setCurrentPage(currentPage);
+        pageResponse.setTotalPage((pageSize + total - 1) / pageSize);
+        pageResponse.setNextCursor(nextCursor);
+        pageResponse.setHasMore(nextCursor != null);
         return pageResponse;
     }
 }
@@ -0,0 +1,92 @@
+package com.xiaowang.cola.base.stress;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 压测流量上下文
+ * <pre>
+ *     1、入口（TokenFilter 的 isStress 请求头、Dubbo 隐式参数、MQ 消息头）标记当前线程为压测流量
+ *     2、Redis key 加影子前缀，SQL 表名加影子后缀，MQ 消息带上压测标记
+ *     3、异步线程、Dubbo 调用、MQ 消费时透传标记
+ * </pre>
+ *
+ * @author cola
+ */
+public final class StressContext {
+
+    /**
+     * 压测标记在请求头、Dubbo 隐式参数和 MQ 消息头中的名字
+     */
+    public static final String STRESS_HEADER = "isStress";
+
+    /**
+     * 影子 Redis key 前缀
+     */
+    public static final String SHADOW_KEY_PREFIX = "shadow:";
+
+    /**
+     * 影子表后缀
+     */
+    public static final String SHADOW_TABLE_SUFFIX = "_shadow";
+
+    public static final ThreadLocal<Boolean> STRESS_THREAD_LOCAL = new ThreadLocal<>();
+
+    private StressContext() {
+    }
+
+    /**
+     * 当前线程是否为压测流量
+     */
+    public static boolean isStress() {
+        return Boolean.TRUE.equals(STRESS_THREAD_LOCAL.get());
+    }
+
+    /**
+     * 在指定的压测标记下执行任务，执行完恢复原来的标记
+     */
+    public static void runWithStress(boolean stress, Runnable task) {
+        Boolean previous = STRESS_THREAD_LOCAL.get();
+        set(stress);
+        try {
+            task.run();
+        } finally {
+            set(Boolean.TRUE.equals(previous));
+        }
+    }
+
+    /**
+     * 包装任务，把当前线程的压测标记带到执行线程
+     */
+    public static Runnable wrap(Runnable task) {
+        if (!isStress()) {
+            return task;
+        }
+        return () -> runWithStress(true, task);
+    }
+
+    /**
+     * 包装任务，把当前线程的压测标记带到执行线程
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        if (!isStress()) {
+            return task;
+        }
+        return () -> {
+            Boolean previous = STRESS_THREAD_LOCAL.get();
+            set(true);
+            try {
+                return task.call();
+            } finally {
+                set(Boolean.TRUE.equals(previous));
+            }
+        };
+    }
+
+    private static void set(boolean stress) {
+        if (stress) {
+            STRESS_THREAD_LOCAL.set(Boolean.TRUE);
+        } else {
+            STRESS_THREAD_LOCAL.remove();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.xiaowang.cola.base.stress;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * 把压测标记透传到 @Async 等 Spring 线程池任务中
+ *
+ * @author cola
+ */
+public class StressTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return StressContext.wrap(runnable);
+    }
+}
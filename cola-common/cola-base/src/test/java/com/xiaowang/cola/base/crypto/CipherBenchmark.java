@@ -0,0 +1,87 @@
+package com.xiaowang.cola.base.crypto;
+
+import cn.hutool.crypto.SecureUtil;
+import cn.hutool.crypto.symmetric.AES;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 加解密基准测试，对比每次新建 hutool AES、共享 hutool AES 和 CipherPool
+ * <p>
+ * 直接运行 main 方法即可
+ *
+ * @author cola
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class CipherBenchmark {
+
+    private static final byte[] KEY = "tokenbynfturbo_0".getBytes(StandardCharsets.UTF_8);
+
+    private static final String PLAIN = "token:buy:29:10085:5ac6542b-64b1-4d41-91b9-e6c55849bb7f";
+
+    private final AES sharedAes = SecureUtil.aes(KEY);
+
+    private final AesGcmCipher gcmCipher = CipherPool.aesGcm(KEY);
+
+    private final AesEcbCipher ecbCipher = CipherPool.aesEcb(KEY);
+
+    private final String hutoolEncrypted = sharedAes.encryptBase64(PLAIN);
+
+    private final byte[] gcmEncrypted = gcmCipher.encrypt(PLAIN.getBytes(StandardCharsets.UTF_8));
+
+    private final byte[] ecbEncrypted = ecbCipher.encrypt(PLAIN.getBytes(StandardCharsets.UTF_8));
+
+    @Benchmark
+    public String hutoolNewInstanceDecrypt() {
+        return SecureUtil.aes(KEY).decryptStr(hutoolEncrypted);
+    }
+
+    @Benchmark
+    public String hutoolSharedDecrypt() {
+        return sharedAes.decryptStr(hutoolEncrypted);
+    }
+
+    @Benchmark
+    public byte[] poolEcbDecrypt() {
+        return ecbCipher.decrypt(ecbEncrypted);
+    }
+
+    @Benchmark
+    public byte[] poolGcmDecrypt() {
+        return gcmCipher.decrypt(gcmEncrypted);
+    }
+
+    @Benchmark
+    public String hutoolNewInstanceEncrypt() {
+        return SecureUtil.aes(KEY).encryptBase64(PLAIN);
+    }
+
+    @Benchmark
+    public byte[] poolGcmEncrypt() {
+        return gcmCipher.encrypt(PLAIN.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CipherBenchmark.class.getSimpleName()).build()).run();
+    }
+}
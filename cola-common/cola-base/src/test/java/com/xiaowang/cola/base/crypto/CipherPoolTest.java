@@ -0,0 +1,41 @@
+package com.xiaowang.cola.base.crypto;
+
+import cn.hutool.crypto.SecureUtil;
+import com.xiaowang.cola.base.exception.SystemException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+/**
+ * @author cola
+ */
+public class CipherPoolTest {
+
+    private static final byte[] KEY = "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void aesGcmRoundTrip() {
+        AesGcmCipher cipher = CipherPool.aesGcm(KEY);
+        Assertions.assertSame(cipher, CipherPool.aesGcm(KEY.clone()));
+
+        byte[] plain = "token:buy:29:10085".getBytes(StandardCharsets.UTF_8);
+        byte[] encrypted = cipher.encrypt(plain);
+        Assertions.assertEquals(12 + plain.length + 16, encrypted.length);
+        Assertions.assertArrayEquals(plain, cipher.decrypt(encrypted));
+        // 每次加密的IV不同
+        Assertions.assertFalse(java.util.Arrays.equals(encrypted, cipher.encrypt(plain)));
+
+        encrypted[encrypted.length - 1] ^= 1;
+        Assertions.assertThrows(SystemException.class, () -> cipher.decrypt(encrypted));
+    }
+
+    @Test
+    public void aesEcbCompatibleWithHutool() {
+        String hex = SecureUtil.aes(KEY).encryptHex("张三");
+        AesEcbCipher cipher = CipherPool.aesEcb(KEY);
+        Assertions.assertEquals("张三", new String(cipher.decrypt(HexFormat.of().parseHex(hex)), StandardCharsets.UTF_8));
+        Assertions.assertEquals(hex, HexFormat.of().formatHex(cipher.encrypt("张三".getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,56 @@
+package com.xiaowang.cola.base.request;
+
+import com.xiaowang.cola.base.exception.BizException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * @author cola
+ */
+public class PageCursorTest {
+
+    private static final String SECRET = "test_page_cursor_secret";
+
+    @Test
+    public void encodeAndDecode() {
+        Date date = new Date(1700000000000L);
+        PageCursor dateCursor = PageCursor.decode(new PageCursor(date, 42L, 3).encode(SECRET), SECRET);
+        Assertions.assertEquals(date, dateCursor.sortValue());
+        Assertions.assertEquals(42L, dateCursor.id());
+        Assertions.assertEquals(3, dateCursor.page());
+
+        LocalDateTime localDateTime = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+        Assertions.assertEquals(localDateTime, PageCursor.decode(new PageCursor(localDateTime, 1L, 2).encode(SECRET), SECRET).sortValue());
+        Assertions.assertEquals(7L, PageCursor.decode(new PageCursor(7, 1L, 2).encode(SECRET), SECRET).sortValue());
+        Assertions.assertEquals("a|b", PageCursor.decode(new PageCursor("a|b", 1L, 2).encode(SECRET), SECRET).sortValue());
+
+        // 游标只包含 URL 安全字符
+        Assertions.assertTrue(new PageCursor(date, 42L, 3).encode(SECRET).matches("[A-Za-z0-9_-]+"));
+        Assertions.assertNull(PageCursor.decode(null, SECRET));
+        Assertions.assertNull(PageCursor.decode("", SECRET));
+    }
+
+    @Test
+    public void invalidCursorIsRejected() {
+        Assertions.assertThrows(BizException.class, () -> PageCursor.decode("not a cursor", SECRET));
+        Assertions.assertThrows(BizException.class, () -> PageCursor.decode("WyIyIiwibiIsMSwxXQ", SECRET));
+
+        // 改动内容后签名校验失败
+        String cursor = new PageCursor(7, 1L, 2).encode(SECRET);
+        char[] chars = cursor.toCharArray();
+        chars[8] = chars[8] == 'A' ? 'B' : 'A';
+        Assertions.assertThrows(BizException.class, () -> PageCursor.decode(new String(chars), SECRET));
+    }
+
+    @Test
+    public void secretIsRequired() {
+        String cursor = new PageCursor(7, 1L, 2).encode(SECRET);
+        // 其他密钥签名的游标不能通过校验
+        Assertions.assertThrows(BizException.class, () -> PageCursor.decode(cursor, "other_secret"));
+        Assertions.assertThrows(IllegalStateException.class, () -> PageCursor.decode(cursor, null));
+        Assertions.assertThrows(IllegalStateException.class, () -> new PageCursor(7, 1L, 2).encode(""));
+    }
+}
@@ -0,0 +1,45 @@
+package com.xiaowang.cola.base.stress;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @author cola
+ */
+public class StressContextTest {
+
+    @AfterEach
+    public void clear() {
+        StressContext.STRESS_THREAD_LOCAL.remove();
+    }
+
+    @Test
+    public void runWithStressRestoresPrevious() {
+        Assertions.assertFalse(StressContext.isStress());
+        StressContext.runWithStress(true, () -> {
+            Assertions.assertTrue(StressContext.isStress());
+            StressContext.runWithStress(false, () -> Assertions.assertFalse(StressContext.isStress()));
+            Assertions.assertTrue(StressContext.isStress());
+        });
+        Assertions.assertFalse(StressContext.isStress());
+    }
+
+    @Test
+    public void wrapPropagatesToOtherThread() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            StressContext.STRESS_THREAD_LOCAL.set(Boolean.TRUE);
+            Assertions.assertTrue(executor.submit(StressContext.wrap(StressContext::isStress)).get());
+            Assertions.assertTrue(executor.submit(new StressTaskDecorator().decorate(() -> Assertions.assertTrue(StressContext.isStress()))).get() == null);
+            // 执行完后工作线程的标记被清理
+            StressContext.STRESS_THREAD_LOCAL.remove();
+            Assertions.assertFalse(executor.submit(StressContext.wrap(StressContext::isStress)).get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.xiaowang.cola.cache.bloom;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.BaseStatusListener;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 布隆过滤器的 JVM 内副本
+ * <pre>
+ *     1、启动时从 Redis 读取每段 bitmap 的快照，转换成按 long 存储的位图，查询只读本地内存
+ *     2、订阅 ScalableBloomFilter 的新增广播，把新增的位写入本地；快照加载期间收到的新增在加载完成后补写
+ *     3、定时全量同步，收到版本切换广播或订阅恢复时立即全量同步，弥补丢失的广播
+ *     4、Redis 仍然是唯一的数据源；本地没有加载完成时查询直接走 Redis
+ *     5、本节点的新增通过 add() 写 Redis 后立即写入本地，不依赖广播，其他节点有广播延迟，
+ *        写路径需要用 containsStrictly，本地未命中时再查 Redis
+ * </pre>
+ *
+ * @author cola
+ */
+public class LocalBloomFilterReplica {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalBloomFilterReplica.class);
+
+    private static final String RESYNC = "resync";
+
+    private final ScalableBloomFilter filter;
+
+    private final RedissonClient redissonClient;
+
+    private final long resyncIntervalMillis;
+
+    private final List<ScalableBloomFilter.Segment> segments;
+
+    private final ConcurrentLinkedQueue<String> pendingAdditions = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    private volatile Snapshot snapshot;
+
+    private ScheduledExecutorService scheduler;
+
+    private RTopic topic;
+
+    private int listenerId = -1;
+
+    private int statusListenerId = -1;
+
+    public LocalBloomFilterReplica(ScalableBloomFilter filter, RedissonClient redissonClient, long resyncIntervalMillis) {
+        this.filter = filter;
+        this.redissonClient = redissonClient;
+        this.resyncIntervalMillis = resyncIntervalMillis;
+        this.segments = filter.getSegments();
+    }
+
+    public void start() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("bloom-replica-" + filter.getName() + "-%d").setDaemon(true).build());
+        this.topic = redissonClient.getTopic(filter.getAdditionsChannel(), StringCodec.INSTANCE);
+        this.listenerId = topic.addListener(String.class, (channel, message) -> onMessage(message));
+        this.statusListenerId = topic.addListener(new BaseStatusListener() {
+            @Override
+            public void onSubscribe(String channel) {
+                // 订阅恢复期间的广播可能丢失，重新全量同步
+                if (snapshot != null) {
+                    scheduler.execute(LocalBloomFilterReplica.this::resync);
+                }
+            }
+        });
+        scheduler.scheduleWithFixedDelay(this::resync, 0, resyncIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (topic != null) {
+            topic.removeListener(listenerId, statusListenerId);
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 是否可能存在
+     */
+    public boolean contains(String value) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return filter.contains(value);
+        }
+        long[] hash = ScalableBloomFilter.hash(value);
+        for (int s = 0; s < current.bitsets.length(); s++) {
+            AtomicLongArray bitset = current.bitsets.get(s);
+            if (bitset != null && containsIn(bitset, segments.get(s), hash[0], hash[1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否可能存在，本地未命中时再查 Redis，用于不能接受其他节点广播延迟的写路径
+     */
+    public boolean containsStrictly(String value) {
+        return contains(value) || (snapshot != null && filter.contains(value));
+    }
+
+    /**
+     * 新增，写 Redis 后同时写本地
+     */
+    public boolean add(String value) {
+        boolean added = filter.add(value);
+        Snapshot current = snapshot;
+        if (current != null) {
+            long[] hash = ScalableBloomFilter.hash(value);
+            // 写入哪一段由 Redis 决定，本地写入最后一个已加载的段，只用于本节点立即可见，下次同步时以 Redis 为准
+            int last = current.lastSegment();
+            setBits(current.segment(last), segments.get(last), hash[0], hash[1]);
+        }
+        return added;
+    }
+
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    void onMessage(String message) {
+        if (RESYNC.equals(message)) {
+            scheduler.execute(this::resync);
+            return;
+        }
+        if (loading.get()) {
+            pendingAdditions.add(message);
+        }
+        Snapshot current = snapshot;
+        if (current != null) {
+            apply(current, message);
+        }
+    }
+
+    /**
+     * 全量同步
+     */
+    void resync() {
+        loading.set(true);
+        try {
+            long version;
+            Snapshot loaded;
+            do {
+                version = filter.currentVersion();
+                if (version == 0) {
+                    // 还没有构建完成，查询走 Redis
+                    snapshot = null;
+                    pendingAdditions.clear();
+                    return;
+                }
+                loaded = load(version);
+            } while (version != filter.currentVersion());
+
+            String message;
+            while ((message = pendingAdditions.poll()) != null) {
+                apply(loaded, message);
+            }
+            snapshot = loaded;
+            LOG.debug("bloom filter replica synced, name = {} , version = {} , segments = {}", filter.getName(), version,
+                    loaded.bitsets.length());
+        } catch (Exception e) {
+            LOG.warn("bloom filter replica sync failed, name = {}", filter.getName(), e);
+        } finally {
+            loading.set(false);
+        }
+    }
+
+    private Snapshot load(long version) {
+        int segmentCount = Math.min(filter.segmentCount(version), segments.size());
+        Snapshot loaded = new Snapshot(segments.size());
+        String prefix = filter.getKeyPrefix() + version + ":";
+        for (int s = 0; s < segmentCount; s++) {
+            byte[] bytes = redissonClient.<byte[]>getBucket(prefix + s, ByteArrayCodec.INSTANCE).get();
+            loaded.bitsets.set(s, toBitset(bytes, segments.get(s).bits()));
+        }
+        return loaded;
+    }
+
+    private void apply(Snapshot current, String message) {
+        for (String addition : message.split(",")) {
+            String[] parts = addition.split(":");
+            if (parts.length != 3) {
+                continue;
+            }
+            int s = Integer.parseInt(parts[0]);
+            if (s >= segments.size()) {
+                continue;
+            }
+            setBits(current.segment(s), segments.get(s), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        }
+    }
+
+    /**
+     * Redis bitmap 中第 n 位是第 n/8 个字节的从高到低第 n%8 位，转换成 long 数组中第 n/64 个元素的从低到高第 n%64 位
+     */
+    static AtomicLongArray toBitset(byte[] bytes, long bits) {
+        AtomicLongArray bitset = new AtomicLongArray(wordCount(bits));
+        if (bytes == null) {
+            return bitset;
+        }
+        int length = Math.min(bytes.length, bitset.length() * 8);
+        for (int w = 0; w < bitset.length(); w++) {
+            long word = 0;
+            for (int b = 0; b < 8; b++) {
+                int index = w * 8 + b;
+                if (index >= length) {
+                    break;
+                }
+                long reversed = Integer.reverse(bytes[index] & 0xFF) >>> 24;
+                word |= reversed << (b * 8);
+            }
+            if (word != 0) {
+                bitset.set(w, word);
+            }
+        }
+        return bitset;
+    }
+
+    static boolean containsIn(AtomicLongArray bitset, ScalableBloomFilter.Segment segment, long h1, long h2) {
+        for (int j = 0; j < segment.hashes(); j++) {
+            long index = (h1 + j * h2) % segment.bits();
+            if ((bitset.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static void setBits(AtomicLongArray bitset, ScalableBloomFilter.Segment segment, long h1, long h2) {
+        for (int j = 0; j < segment.hashes(); j++) {
+            long index = (h1 + j * h2) % segment.bits();
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bitset.get(word);
+            } while ((current & mask) == 0 && !bitset.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    private static int wordCount(long bits) {
+        return (int) ((bits + 63) >>> 6);
+    }
+
+    /**
+     * 本地快照，段按需创建：广播中出现新启用的段时创建空位图
+     */
+    private final class Snapshot {
+
+        private final AtomicReferenceArray<AtomicLongArray> bitsets;
+
+        private Snapshot(int maxSegments) {
+            this.bitsets = new AtomicReferenceArray<>(maxSegments);
+        }
+
+        private AtomicLongArray segment(int s) {
+            AtomicLongArray bitset = bitsets.get(s);
+            if (bitset == null) {
+                bitsets.compareAndSet(s, null, new AtomicLongArray(wordCount(segments.get(s).bits())));
+                bitset = bitsets.get(s);
+            }
+            return bitset;
+        }
+
+        private int lastSegment() {
+            for (int s = bitsets.length() - 1; s > 0; s--) {
+                if (bitsets.get(s) != null) {
+                    return s;
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package com.xiaowang.cola.cache.bloom;
+
+import com.google.common.hash.Hashing;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于 Redis bitmap 的可扩容布隆过滤器
+ * <pre>
+ *     1、由多段过滤器串联组成，第 i 段容量为 initialCapacity * 2^i，误判率为 fpp / 2^(i+1)，总误判率不超过 fpp；
+ *        当前段写满后自动启用下一段，查询时依次检查所有段
+ *     2、数据按版本存放，{name}:version 指向当前版本。重建时新数据写入新版本，期间的新增会同时写入新旧两个版本，
+ *        重建完成后原子地切换版本并删除旧版本
+ *     3、查询、新增、切换都在一个脚本内完成，一次往返；批量新增每批一次往返
+ *     4、每个值用 murmur3 计算两个32位散列，第 j 个位置为 (h1 + j * h2) % m，JVM 内的副本用同样的方式计算
+ *     5、写入当前版本的新增通过 {name}:additions 频道广播 "段号:h1:h2"，多个以逗号分隔；切换版本时广播 "resync"
+ * </pre>
+ *
+ * @author cola
+ */
+public class ScalableBloomFilter {
+
+    /**
+     * 单个 bitmap 最大 2^32 位
+     */
+    private static final long MAX_SEGMENT_BITS = 1L << 32;
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private static final String FUNCTIONS = """
+            local S = tonumber(ARGV[2])
+            local function bits(s) return tonumber(ARGV[3 + s * 3]) end
+            local function hashes(s) return tonumber(ARGV[4 + s * 3]) end
+            local function capacity(s) return tonumber(ARGV[5 + s * 3]) end
+            local function segments(prefix)
+                return tonumber(redis.call('get', prefix .. 'segments') or '1')
+            end
+            local function contains(prefix, h1, h2)
+                for s = 0, segments(prefix) - 1 do
+                    local hit = true
+                    local m = bits(s)
+                    for j = 0, hashes(s) - 1 do
+                        if redis.call('getbit', prefix .. s, (h1 + j * h2) % m) == 0 then
+                            hit = false
+                            break
+                        end
+                    end
+                    if hit then
+                        return true
+                    end
+                end
+                return false
+            end
+            local function add(prefix, h1, h2)
+                if contains(prefix, h1, h2) then
+                    return -1
+                end
+                local count = segments(prefix)
+                local last = count - 1
+                local m = bits(last)
+                for j = 0, hashes(last) - 1 do
+                    redis.call('setbit', prefix .. last, (h1 + j * h2) % m, 1)
+                end
+                if redis.call('incr', prefix .. 'count') >= capacity(last) and count < S then
+                    redis.call('set', prefix .. 'segments', count + 1)
+                end
+                return last
+            end
+            """;
+
+    static final String CONTAINS_SCRIPT = FUNCTIONS + """
+            local version = redis.call('get', KEYS[1] .. 'version')
+            if not version then
+                return -1
+            end
+            local offset = 3 + S * 3
+            if contains(KEYS[1] .. version .. ':', tonumber(ARGV[offset]), tonumber(ARGV[offset + 1])) then
+                return 1
+            end
+            return 0
+            """;
+
+    static final String ADD_SCRIPT = FUNCTIONS + """
+            local prefixes = {}
+            if ARGV[1] ~= '' then
+                prefixes[1] = KEYS[1] .. ARGV[1] .. ':'
+            else
+                local version = redis.call('get', KEYS[1] .. 'version')
+                if version then
+                    table.insert(prefixes, KEYS[1] .. version .. ':')
+                end
+                local rebuilding = redis.call('get', KEYS[1] .. 'rebuilding')
+                if rebuilding and rebuilding ~= version then
+                    table.insert(prefixes, KEYS[1] .. rebuilding .. ':')
+                end
+            end
+            local added = {}
+            for i = 3 + S * 3, #ARGV, 2 do
+                local h1 = tonumber(ARGV[i])
+                local h2 = tonumber(ARGV[i + 1])
+                for index, prefix in ipairs(prefixes) do
+                    local segment = add(prefix, h1, h2)
+                    if index == 1 and segment >= 0 then
+                        table.insert(added, segment .. ':' .. ARGV[i] .. ':' .. ARGV[i + 1])
+                    end
+                end
+            end
+            -- 只广播写入当前版本的新增，重建中的版本切换后由副本全量同步
+            if #added > 0 and ARGV[1] == '' and redis.call('get', KEYS[1] .. 'version') then
+                redis.call('publish', KEYS[1] .. 'additions', table.concat(added, ','))
+            end
+            return #added
+            """;
+
+    static final String BEGIN_REBUILD_SCRIPT = """
+            local previous = redis.call('get', KEYS[1] .. 'rebuilding')
+            local version = redis.call('incr', KEYS[1] .. 'seq')
+            redis.call('set', KEYS[1] .. 'rebuilding', version)
+            return {version, tonumber(previous or '0')}
+            """;
+
+    static final String COMMIT_REBUILD_SCRIPT = """
+            if redis.call('get', KEYS[1] .. 'rebuilding') ~= ARGV[1] then
+                return -1
+            end
+            local previous = redis.call('get', KEYS[1] .. 'version')
+            redis.call('set', KEYS[1] .. 'version', ARGV[1])
+            redis.call('del', KEYS[1] .. 'rebuilding')
+            redis.call('publish', KEYS[1] .. 'additions', 'resync')
+            return tonumber(previous or '0')
+            """;
+
+    static final String STATS_SCRIPT = """
+            local version = redis.call('get', KEYS[1] .. 'version')
+            if not version then
+                return {}
+            end
+            local prefix = KEYS[1] .. version .. ':'
+            local segments = tonumber(redis.call('get', prefix .. 'segments') or '1')
+            local result = {tonumber(version), tonumber(redis.call('get', prefix .. 'count') or '0'), segments}
+            for s = 0, segments - 1 do
+                table.insert(result, redis.call('bitcount', prefix .. s))
+            end
+            return result
+            """;
+
+    private final RedissonClient redissonClient;
+
+    private final String name;
+
+    private final String base;
+
+    private final List<Segment> segments;
+
+    /**
+     * 脚本参数中的分段配置部分，所有调用共用
+     */
+    private final List<Object> segmentArgs;
+
+    /**
+     * @param name            过滤器名称
+     * @param initialCapacity 第一段的容量
+     * @param fpp             总误判率
+     */
+    public ScalableBloomFilter(RedissonClient redissonClient, String name, long initialCapacity, double fpp) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be positive");
+        }
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("fpp must be between 0 and 1");
+        }
+        this.redissonClient = redissonClient;
+        this.name = name;
+        this.base = "{" + name + "}:";
+        this.segments = Collections.unmodifiableList(createSegments(initialCapacity, fpp));
+        List<Object> args = new ArrayList<>(segments.size() * 3 + 1);
+        args.add(String.valueOf(segments.size()));
+        for (Segment segment : segments) {
+            args.add(String.valueOf(segment.bits()));
+            args.add(String.valueOf(segment.hashes()));
+            args.add(String.valueOf(segment.cumulativeCapacity()));
+        }
+        this.segmentArgs = args;
+    }
+
+    static List<Segment> createSegments(long initialCapacity, double fpp) {
+        List<Segment> segments = new ArrayList<>();
+        long cumulativeCapacity = 0;
+        for (int i = 0; i < MAX_SEGMENTS; i++) {
+            long capacity = initialCapacity << i;
+            double segmentFpp = fpp / (1L << (i + 1));
+            long bits = (long) Math.ceil(-capacity * Math.log(segmentFpp) / (Math.log(2) * Math.log(2)));
+            if (bits > MAX_SEGMENT_BITS) {
+                break;
+            }
+            int hashes = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+            cumulativeCapacity += capacity;
+            segments.add(new Segment(bits, hashes, capacity, cumulativeCapacity));
+        }
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("initialCapacity is too large");
+        }
+        return segments;
+    }
+
+    /**
+     * 是否可能存在
+     *
+     * @return 过滤器还没有构建完成时返回 true，由调用方回源确认
+     */
+    public boolean contains(String value) {
+        long[] hash = hash(value);
+        Long result = eval(RScript.Mode.READ_ONLY, CONTAINS_SCRIPT, args("", hash));
+        return result == null || result != 0;
+    }
+
+    /**
+     * 新增，重建期间同时写入新版本
+     *
+     * @return 之前不存在时返回 true
+     */
+    public boolean add(String value) {
+        Long result = eval(RScript.Mode.READ_WRITE, ADD_SCRIPT, args("", hash(value)));
+        return result != null && result > 0;
+    }
+
+    /**
+     * 批量新增，一次往返
+     *
+     * @return 新增的数量
+     */
+    public int addAll(Collection<String> values) {
+        return addAll("", values);
+    }
+
+    /**
+     * 开始重建，返回新版本号，之后的新增会同时写入新版本
+     */
+    public long beginRebuild() {
+        List<Long> result = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                BEGIN_REBUILD_SCRIPT, RScript.ReturnType.MULTI, List.of(base));
+        long previous = result.get(1);
+        if (previous > 0) {
+            // 上一次重建没有完成，清理残留数据
+            deleteVersion(previous);
+        }
+        return result.get(0);
+    }
+
+    /**
+     * 向重建中的版本批量写入
+     */
+    public int rebuildAddAll(long version, Collection<String> values) {
+        return addAll(String.valueOf(version), values);
+    }
+
+    /**
+     * 完成重建，切换到新版本并删除旧版本
+     *
+     * @return 版本已被其他重建覆盖时返回 false
+     */
+    public boolean commitRebuild(long version) {
+        Long previous = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                COMMIT_REBUILD_SCRIPT, RScript.ReturnType.INTEGER, List.of(base), String.valueOf(version));
+        if (previous == null || previous < 0) {
+            return false;
+        }
+        if (previous > 0) {
+            deleteVersion(previous);
+        }
+        return true;
+    }
+
+    /**
+     * 是否已经构建完成
+     */
+    public boolean isReady() {
+        return redissonClient.getBucket(base + "version", StringCodec.INSTANCE).isExists();
+    }
+
+    /**
+     * 是否正在重建
+     */
+    public boolean isRebuilding() {
+        return redissonClient.getBucket(base + "rebuilding", StringCodec.INSTANCE).isExists();
+    }
+
+    /**
+     * 统计信息，需要对每段做 BITCOUNT，不要频繁调用
+     */
+    public Stats stats() {
+        List<Long> result = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_ONLY,
+                STATS_SCRIPT, RScript.ReturnType.MULTI, List.of(base));
+        if (result == null || result.isEmpty()) {
+            return new Stats(0, 0, 0, 0, 0, 1);
+        }
+        long count = result.get(1);
+        int segmentCount = result.get(2).intValue();
+        long capacity = 0;
+        long setBits = 0;
+        long totalBits = 0;
+        double notFalsePositive = 1;
+        for (int i = 0; i < segmentCount; i++) {
+            Segment segment = segments.get(i);
+            long segmentSetBits = result.get(3 + i);
+            capacity += segment.capacity();
+            setBits += segmentSetBits;
+            totalBits += segment.bits();
+            // 每段误判率约为 填充率^k
+            notFalsePositive *= 1 - Math.pow((double) segmentSetBits / segment.bits(), segment.hashes());
+        }
+        return new Stats(result.get(0), count, segmentCount, capacity, totalBits == 0 ? 0 : (double) setBits / totalBits,
+                1 - notFalsePositive);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Redis 中的key前缀，第 i 段的 bitmap 为 keyPrefix + version + ":" + i
+     */
+    public String getKeyPrefix() {
+        return base;
+    }
+
+    /**
+     * 新增广播频道
+     */
+    public String getAdditionsChannel() {
+        return base + "additions";
+    }
+
+    /**
+     * 当前版本号，没有构建完成时返回 0
+     */
+    public long currentVersion() {
+        String version = redissonClient.<String>getBucket(base + "version", StringCodec.INSTANCE).get();
+        return version == null ? 0 : Long.parseLong(version);
+    }
+
+    /**
+     * 指定版本已启用的段数
+     */
+    public int segmentCount(long version) {
+        String count = redissonClient.<String>getBucket(base + version + ":segments", StringCodec.INSTANCE).get();
+        return count == null ? 1 : Integer.parseInt(count);
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * 计算两个32位散列
+     */
+    public static long[] hash(String value) {
+        long hash = Hashing.murmur3_128().hashString(value, StandardCharsets.UTF_8).asLong();
+        return new long[]{hash & 0xFFFFFFFFL, hash >>> 32};
+    }
+
+    private int addAll(String version, Collection<String> values) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        List<Object> args = new ArrayList<>(segmentArgs.size() + 1 + values.size() * 2);
+        args.add(version);
+        args.addAll(segmentArgs);
+        for (String value : values) {
+            long[] hash = hash(value);
+            args.add(String.valueOf(hash[0]));
+            args.add(String.valueOf(hash[1]));
+        }
+        Long result = eval(RScript.Mode.READ_WRITE, ADD_SCRIPT, args.toArray());
+        return result == null ? 0 : result.intValue();
+    }
+
+    private Object[] args(String version, long[] hash) {
+        Object[] args = new Object[segmentArgs.size() + 3];
+        args[0] = version;
+        for (int i = 0; i < segmentArgs.size(); i++) {
+            args[i + 1] = segmentArgs.get(i);
+        }
+        args[args.length - 2] = String.valueOf(hash[0]);
+        args[args.length - 1] = String.valueOf(hash[1]);
+        return args;
+    }
+
+    private Long eval(RScript.Mode mode, String script, Object[] args) {
+        return redissonClient.getScript(StringCodec.INSTANCE).eval(mode, script, RScript.ReturnType.INTEGER, List.of(base), args);
+    }
+
+    private void deleteVersion(long version) {
+        String prefix = base + version + ":";
+        String[] keys = new String[segments.size() + 2];
+        for (int i = 0; i < segments.size(); i++) {
+            keys[i] = prefix + i;
+        }
+        keys[segments.size()] = prefix + "count";
+        keys[segments.size() + 1] = prefix + "segments";
+        redissonClient.getKeys().unlinkAsync(keys);
+    }
+
+    /**
+     * 分段配置
+     *
+     * @param bits               位数
+     * @param hashes             散列函数个数
+     * @param capacity           容量
+     * @param cumulativeCapacity 到这一段为止的总容量
+     */
+    public record Segment(long bits, int hashes, long capacity, long cumulativeCapacity) {
+    }
+
+    /**
+     * 统计信息
+     *
+     * @param version       当前版本
+     * @param count         已写入的数量
+     * @param segments      已启用的段数
+     * @param capacity      已启用的段的总容量
+     * @param fillRatio     置位比例
+     * @param estimatedFpp  按置位比例估算的误判率
+     */
+    public record Stats(long version, long count, int segments, long capacity, double fillRatio, double estimatedFpp) {
+    }
+}
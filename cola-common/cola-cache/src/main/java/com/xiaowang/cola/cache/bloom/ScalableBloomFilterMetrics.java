@@ -0,0 +1,85 @@
+package com.xiaowang.cola.cache.bloom;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 布隆过滤器监控
+ * <pre>
+ *     cola.bloom.count     已写入的数量
+ *     cola.bloom.capacity  已启用的段的总容量
+ *     cola.bloom.fill      置位比例
+ *     cola.bloom.fpp       按置位比例估算的误判率
+ * </pre>
+ * 统计信息需要 BITCOUNT，采集时按 refreshIntervalMillis 缓存
+ *
+ * @author cola
+ */
+public class ScalableBloomFilterMetrics implements MeterBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScalableBloomFilterMetrics.class);
+
+    private final List<ScalableBloomFilter> filters;
+
+    private final long refreshIntervalMillis;
+
+    public ScalableBloomFilterMetrics(List<ScalableBloomFilter> filters, long refreshIntervalMillis) {
+        this.filters = filters;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (ScalableBloomFilter filter : filters) {
+            CachedStats stats = new CachedStats(filter);
+            gauge(registry, "cola.bloom.count", filter, stats, ScalableBloomFilter.Stats::count);
+            gauge(registry, "cola.bloom.capacity", filter, stats, ScalableBloomFilter.Stats::capacity);
+            gauge(registry, "cola.bloom.fill", filter, stats, ScalableBloomFilter.Stats::fillRatio);
+            gauge(registry, "cola.bloom.fpp", filter, stats, ScalableBloomFilter.Stats::estimatedFpp);
+        }
+    }
+
+    private void gauge(MeterRegistry registry, String name, ScalableBloomFilter filter, CachedStats stats,
+                       ToDoubleFunction<ScalableBloomFilter.Stats> value) {
+        Gauge.builder(name, stats, s -> {
+            ScalableBloomFilter.Stats current = s.get();
+            return current == null ? Double.NaN : value.applyAsDouble(current);
+        }).tag("name", filter.getName()).register(registry);
+    }
+
+    private final class CachedStats {
+
+        private final ScalableBloomFilter filter;
+
+        private volatile ScalableBloomFilter.Stats stats;
+
+        private volatile long refreshedAt;
+
+        private CachedStats(ScalableBloomFilter filter) {
+            this.filter = filter;
+        }
+
+        private ScalableBloomFilter.Stats get() {
+            long now = System.currentTimeMillis();
+            if (now - refreshedAt >= refreshIntervalMillis) {
+                synchronized (this) {
+                    if (now - refreshedAt >= refreshIntervalMillis) {
+                        try {
+                            stats = filter.stats();
+                        } catch (Exception e) {
+                            LOG.warn("refresh bloom filter stats failed, name = {}", filter.getName(), e);
+                        }
+                        refreshedAt = now;
+                    }
+                }
+            }
+            return stats;
+        }
+    }
+}
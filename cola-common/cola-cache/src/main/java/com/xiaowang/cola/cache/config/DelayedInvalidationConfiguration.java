@@ -0,0 +1,29 @@
+package com.xiaowang.cola.cache.config;
+
+import com.xiaowang.cola.cache.invalidate.DelayedCacheInvalidator;
+import com.xiaowang.cola.cache.invalidate.DelayedInvalidationBacking;
+import com.xiaowang.cola.cache.invalidate.DelayedInvalidationProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 缓存延迟删除配置
+ *
+ * @author cola
+ */
+@Configuration
+@EnableConfigurationProperties(DelayedInvalidationProperties.class)
+public class DelayedInvalidationConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public DelayedCacheInvalidator delayedCacheInvalidator(DelayedInvalidationProperties properties,
+                                                           ObjectProvider<DelayedInvalidationBacking> backing) {
+        DelayedCacheInvalidator invalidator = new DelayedCacheInvalidator(properties);
+        backing.ifAvailable(invalidator::setBacking);
+        return invalidator;
+    }
+}
@@ -0,0 +1,49 @@
+package com.xiaowang.cola.cache.config;
+
+import com.xiaowang.cola.cache.hotkey.HotKeyDetector;
+import com.xiaowang.cola.cache.hotkey.HotKeyEndpoint;
+import com.xiaowang.cola.cache.hotkey.HotKeyLocalCache;
+import com.xiaowang.cola.cache.hotkey.HotKeyMetrics;
+import com.xiaowang.cola.cache.hotkey.HotKeyProperties;
+import com.xiaowang.cola.cache.hotkey.HotKeySampleAspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 热点Key探测配置
+ *
+ * @author cola
+ */
+@Configuration
+@EnableConfigurationProperties(HotKeyProperties.class)
+public class HotKeyConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public HotKeyDetector hotKeyDetector(HotKeyProperties properties) {
+        return new HotKeyDetector(properties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public HotKeyLocalCache hotKeyLocalCache(HotKeyDetector hotKeyDetector, HotKeyProperties properties) {
+        return new HotKeyLocalCache(hotKeyDetector, properties);
+    }
+
+    @Bean
+    public HotKeySampleAspect hotKeySampleAspect(HotKeyDetector hotKeyDetector) {
+        return new HotKeySampleAspect(hotKeyDetector);
+    }
+
+    @Bean
+    public HotKeyEndpoint hotKeyEndpoint(HotKeyDetector hotKeyDetector) {
+        return new HotKeyEndpoint(hotKeyDetector);
+    }
+
+    @Bean
+    public HotKeyMetrics hotKeyMetrics(HotKeyDetector hotKeyDetector) {
+        return new HotKeyMetrics(hotKeyDetector);
+    }
+}
@@ -0,0 +1,86 @@
+package com.xiaowang.cola.cache.hotkey;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的 Count-Min Sketch，用固定内存估算 key 的访问频次
+ * <pre>
+ *     1、depth 行计数器，每行用不同的种子对 key 做散列
+ *     2、写入时各行计数器原子自增，估算值取各行的最小值，只会高估不会低估
+ * </pre>
+ *
+ * @author cola
+ */
+public class CountMinSketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L,
+            0x9e3779b97f4a7c15L, 0xff51afd7ed558ccdL, 0xc4ceb9fe1a85ec53L, 0x87c37b91114253d5L
+    };
+
+    private final int depth;
+
+    private final int widthMask;
+
+    private final AtomicLongArray counters;
+
+    /**
+     * @param depth 行数，最大为 8
+     * @param width 每行宽度，会向上取整为 2 的幂
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("depth must be between 1 and " + SEEDS.length);
+        }
+        if (width <= 0) {
+            throw new IllegalArgumentException("width must be positive");
+        }
+        this.depth = depth;
+        int actualWidth = Integer.highestOneBit(width) == width ? width : Integer.highestOneBit(width) << 1;
+        this.widthMask = actualWidth - 1;
+        this.counters = new AtomicLongArray(depth * actualWidth);
+    }
+
+    /**
+     * 累加 key 的计数
+     *
+     * @param key   key
+     * @param count 增量
+     * @return 累加后的估算值
+     */
+    public long add(String key, long count) {
+        long hash = spread(key.hashCode());
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            long value = counters.addAndGet(indexOf(hash, i), count);
+            estimate = Math.min(estimate, value);
+        }
+        return estimate;
+    }
+
+    /**
+     * 估算 key 的计数
+     *
+     * @param key key
+     * @return 估算值
+     */
+    public long estimate(String key) {
+        long hash = spread(key.hashCode());
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            estimate = Math.min(estimate, counters.get(indexOf(hash, i)));
+        }
+        return estimate;
+    }
+
+    private int indexOf(long hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h ^= h >>> 32;
+        return row * (widthMask + 1) + ((int) h & widthMask);
+    }
+
+    private static long spread(int hashCode) {
+        long h = hashCode * 0x9e3779b97f4a7c15L;
+        return h ^ (h >>> 29);
+    }
+}
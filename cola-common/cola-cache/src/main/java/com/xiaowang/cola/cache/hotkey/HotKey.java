@@ -0,0 +1,35 @@
+package com.xiaowang.cola.cache.hotkey;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * 热点Key
+ *
+ * @author cola
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class HotKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 业务场景
+     */
+    private String scene;
+
+    /**
+     * 业务key
+     */
+    private String key;
+
+    /**
+     * 窗口内的估算访问次数
+     */
+    private long count;
+}
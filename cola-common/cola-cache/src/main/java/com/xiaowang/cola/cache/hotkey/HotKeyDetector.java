@@ -0,0 +1,194 @@
+package com.xiaowang.cola.cache.hotkey;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static com.xiaowang.cola.cache.constant.CacheConstant.CACHE_KEY_SEPARATOR;
+
+/**
+ * 热点Key探测器
+ * <pre>
+ *     1、按时间窗口统计，每个窗口一个 Count-Min Sketch，采样路径上只有原子自增，没有锁
+ *     2、估算值超过阈值的 key 进入候选集合，窗口结束时用小顶堆取 Top-K 作为该窗口的热点
+ *     3、热点结果在下一个窗口结束前一直有效，供本地缓存提升、监控和端点查询使用
+ * </pre>
+ * 场景名中不要包含 ":"，窗口结束时会按第一个 ":" 拆分场景和 key
+ *
+ * @author cola
+ */
+@Slf4j
+public class HotKeyDetector implements AutoCloseable {
+
+    private final HotKeyProperties properties;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder sampledCount = new LongAdder();
+
+    private final List<Consumer<List<HotKey>>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile Window current;
+
+    private volatile List<HotKey> hotKeys = List.of();
+
+    private volatile Set<String> hotKeySet = Set.of();
+
+    public HotKeyDetector(HotKeyProperties properties) {
+        this.properties = properties;
+        this.current = new Window();
+        if (properties.isEnabled()) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("hotkey-detector-%d").setDaemon(true).build());
+            this.scheduler.scheduleAtFixedRate(this::rotate, properties.getWindowSeconds(),
+                    properties.getWindowSeconds(), TimeUnit.SECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * 采样一次访问
+     *
+     * @param scene 业务场景
+     * @param key   业务key
+     */
+    public void sample(String scene, Object key) {
+        if (!properties.isEnabled() || key == null) {
+            return;
+        }
+        int sampleRate = properties.getSampleRate();
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return;
+        }
+        sampledCount.increment();
+
+        String compositeKey = scene + CACHE_KEY_SEPARATOR + key;
+        Window window = current;
+        long estimate = window.sketch.add(compositeKey, Math.max(sampleRate, 1));
+        if (estimate >= properties.getThreshold()) {
+            window.offer(compositeKey, estimate);
+        }
+    }
+
+    /**
+     * 判断是否为上一个窗口的热点Key
+     *
+     * @param scene 业务场景
+     * @param key   业务key
+     * @return 是否热点
+     */
+    public boolean isHot(String scene, Object key) {
+        Set<String> keys = hotKeySet;
+        return !keys.isEmpty() && key != null && keys.contains(scene + CACHE_KEY_SEPARATOR + key);
+    }
+
+    /**
+     * 上一个窗口的热点Key，按访问次数倒序
+     */
+    public List<HotKey> getHotKeys() {
+        return hotKeys;
+    }
+
+    /**
+     * 累计采样次数
+     */
+    public long getSampledCount() {
+        return sampledCount.sum();
+    }
+
+    public HotKeyProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * 注册窗口结束时的回调，参数为该窗口的热点Key
+     */
+    public void addListener(Consumer<List<HotKey>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 结束当前窗口，计算 Top-K 并开启新窗口
+     */
+    void rotate() {
+        try {
+            Window closed = current;
+            current = new Window();
+
+            int topK = properties.getTopK();
+            PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(topK + 1, Map.Entry.comparingByValue());
+            for (Map.Entry<String, Long> entry : closed.candidates.entrySet()) {
+                heap.offer(entry);
+                if (heap.size() > topK) {
+                    heap.poll();
+                }
+            }
+
+            List<HotKey> result = new ArrayList<>(heap.size());
+            Set<String> resultSet = new HashSet<>(heap.size() * 2);
+            while (!heap.isEmpty()) {
+                Map.Entry<String, Long> entry = heap.poll();
+                String compositeKey = entry.getKey();
+                int index = compositeKey.indexOf(CACHE_KEY_SEPARATOR);
+                result.add(new HotKey(compositeKey.substring(0, index), compositeKey.substring(index + 1), entry.getValue()));
+                resultSet.add(compositeKey);
+            }
+            result.sort(Comparator.comparingLong(HotKey::getCount).reversed());
+
+            for (HotKey hotKey : result) {
+                if (!hotKeySet.contains(hotKey.getScene() + CACHE_KEY_SEPARATOR + hotKey.getKey())) {
+                    log.warn("hot key found, scene : {} , key : {} , count : {}", hotKey.getScene(), hotKey.getKey(), hotKey.getCount());
+                }
+            }
+
+            this.hotKeys = List.copyOf(result);
+            this.hotKeySet = Set.copyOf(resultSet);
+
+            for (Consumer<List<HotKey>> listener : listeners) {
+                listener.accept(this.hotKeys);
+            }
+        } catch (Exception e) {
+            log.error("hot key window rotate failed", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 统计窗口
+     */
+    private class Window {
+
+        private final CountMinSketch sketch = new CountMinSketch(properties.getSketchDepth(), properties.getSketchWidth());
+
+        private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+
+        void offer(String compositeKey, long estimate) {
+            if (candidates.size() >= properties.getMaxCandidates() && !candidates.containsKey(compositeKey)) {
+                return;
+            }
+            candidates.merge(compositeKey, estimate, Math::max);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.xiaowang.cola.cache.hotkey;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 热点Key查询端点，/actuator/hotkeys
+ *
+ * @author cola
+ */
+@Endpoint(id = "hotkeys")
+public class HotKeyEndpoint {
+
+    private final HotKeyDetector hotKeyDetector;
+
+    public HotKeyEndpoint(HotKeyDetector hotKeyDetector) {
+        this.hotKeyDetector = hotKeyDetector;
+    }
+
+    @ReadOperation
+    public Map<String, Object> hotKeys() {
+        HotKeyProperties properties = hotKeyDetector.getProperties();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", properties.isEnabled());
+        result.put("windowSeconds", properties.getWindowSeconds());
+        result.put("threshold", properties.getThreshold());
+        result.put("sampledCount", hotKeyDetector.getSampledCount());
+        result.put("hotKeys", hotKeyDetector.getHotKeys());
+        return result;
+    }
+
+    @ReadOperation
+    public List<HotKey> hotKeysOfScene(@Selector String scene) {
+        return hotKeyDetector.getHotKeys().stream().filter(hotKey -> hotKey.getScene().equals(scene)).toList();
+    }
+}
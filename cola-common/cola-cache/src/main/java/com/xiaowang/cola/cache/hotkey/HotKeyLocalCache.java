@@ -0,0 +1,70 @@
+package com.xiaowang.cola.cache.hotkey;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xiaowang.cola.base.stress.StressContext;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static com.xiaowang.cola.cache.constant.CacheConstant.CACHE_KEY_SEPARATOR;
+
+/**
+ * 热点Key本地缓存
+ * <p>
+ * 只有被探测为热点的读key才会进入本地缓存，过期时间很短，用来挡住热点key对Redis单分片的集中访问。
+ * 压测流量的场景加上影子前缀，单独探测和缓存，不会读到或写入正常流量的本地缓存
+ *
+ * @author cola
+ */
+public class HotKeyLocalCache {
+
+    private final HotKeyDetector hotKeyDetector;
+
+    private final boolean enabled;
+
+    private final Cache<String, Object> cache;
+
+    public HotKeyLocalCache(HotKeyDetector hotKeyDetector, HotKeyProperties properties) {
+        this.hotKeyDetector = hotKeyDetector;
+        this.enabled = properties.isEnabled() && properties.isLocalCacheEnabled();
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(properties.getLocalCacheExpireMillis()))
+                .maximumSize(properties.getLocalCacheMaxSize())
+                .build();
+    }
+
+    /**
+     * 采样并读取，热点key优先走本地缓存，非热点key直接调用loader
+     *
+     * @param scene  业务场景
+     * @param key    业务key
+     * @param loader 实际的读取逻辑
+     * @return 读取结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String scene, Object key, Supplier<T> loader) {
+        String actualScene = actualScene(scene);
+        hotKeyDetector.sample(actualScene, key);
+        if (!enabled || !hotKeyDetector.isHot(actualScene, key)) {
+            return loader.get();
+        }
+        return (T) cache.get(actualScene + CACHE_KEY_SEPARATOR + key, k -> loader.get());
+    }
+
+    /**
+     * 写操作后主动失效本地缓存
+     *
+     * @param scene 业务场景
+     * @param key   业务key
+     */
+    public void invalidate(String scene, Object key) {
+        if (enabled) {
+            cache.invalidate(actualScene(scene) + CACHE_KEY_SEPARATOR + key);
+        }
+    }
+
+    private static String actualScene(String scene) {
+        return StressContext.isStress() ? StressContext.SHADOW_KEY_PREFIX + scene : scene;
+    }
+}
@@ -0,0 +1,44 @@
+package com.xiaowang.cola.cache.hotkey;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 热点Key监控指标
+ * <pre>
+ *     cola.hotkey.sampled 累计采样次数
+ *     cola.hotkey.size    当前热点Key数量
+ *     cola.hotkey.count   每个热点Key在窗口内的访问次数，按 scene、key 打标，窗口结束时整体覆盖
+ * </pre>
+ *
+ * @author cola
+ */
+public class HotKeyMetrics implements MeterBinder {
+
+    private final HotKeyDetector hotKeyDetector;
+
+    public HotKeyMetrics(HotKeyDetector hotKeyDetector) {
+        this.hotKeyDetector = hotKeyDetector;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cola.hotkey.sampled", hotKeyDetector, HotKeyDetector::getSampledCount)
+                .description("hot key sampled count")
+                .register(registry);
+        Gauge.builder("cola.hotkey.size", hotKeyDetector, detector -> detector.getHotKeys().size())
+                .description("hot key count of last window")
+                .register(registry);
+
+        MultiGauge hotKeyCount = MultiGauge.builder("cola.hotkey.count")
+                .description("estimated access count of hot key in last window")
+                .register(registry);
+        hotKeyDetector.addListener(hotKeys -> hotKeyCount.register(hotKeys.stream()
+                .<MultiGauge.Row<?>>map(hotKey -> MultiGauge.Row.of(Tags.of("scene", hotKey.getScene(), "key", hotKey.getKey()), hotKey.getCount()))
+                .toList(), true));
+    }
+}
@@ -0,0 +1,156 @@
+package com.xiaowang.cola.cache.hotkey;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 热点Key探测配置
+ *
+ * @author cola
+ */
+@ConfigurationProperties(prefix = HotKeyProperties.PREFIX)
+public class HotKeyProperties {
+    public static final String PREFIX = "spring.hotkey";
+
+    /**
+     * 是否开启探测
+     */
+    private boolean enabled = true;
+
+    /**
+     * 统计窗口，单位秒
+     */
+    private int windowSeconds = 5;
+
+    /**
+     * 采样率，1/sampleRate 的访问会被记录，记录时按 sampleRate 加权
+     */
+    private int sampleRate = 1;
+
+    /**
+     * 窗口内访问次数超过该值才会成为热点候选
+     */
+    private long threshold = 500;
+
+    /**
+     * 每个窗口保留的热点Key数量
+     */
+    private int topK = 20;
+
+    /**
+     * 候选集合的最大容量，避免大量长尾key占用内存
+     */
+    private int maxCandidates = 1024;
+
+    /**
+     * Count-Min Sketch 行数
+     */
+    private int sketchDepth = 4;
+
+    /**
+     * Count-Min Sketch 每行宽度
+     */
+    private int sketchWidth = 1 << 14;
+
+    /**
+     * 是否把热点读key提升到本地缓存
+     */
+    private boolean localCacheEnabled = false;
+
+    /**
+     * 本地缓存过期时间，单位毫秒
+     */
+    private long localCacheExpireMillis = 1000;
+
+    /**
+     * 本地缓存最大条数
+     */
+    private long localCacheMaxSize = 10000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    public void setWindowSeconds(int windowSeconds) {
+        this.windowSeconds = windowSeconds;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(long threshold) {
+        this.threshold = threshold;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    public void setTopK(int topK) {
+        this.topK = topK;
+    }
+
+    public int getMaxCandidates() {
+        return maxCandidates;
+    }
+
+    public void setMaxCandidates(int maxCandidates) {
+        this.maxCandidates = maxCandidates;
+    }
+
+    public int getSketchDepth() {
+        return sketchDepth;
+    }
+
+    public void setSketchDepth(int sketchDepth) {
+        this.sketchDepth = sketchDepth;
+    }
+
+    public int getSketchWidth() {
+        return sketchWidth;
+    }
+
+    public void setSketchWidth(int sketchWidth) {
+        this.sketchWidth = sketchWidth;
+    }
+
+    public boolean isLocalCacheEnabled() {
+        return localCacheEnabled;
+    }
+
+    public void setLocalCacheEnabled(boolean localCacheEnabled) {
+        this.localCacheEnabled = localCacheEnabled;
+    }
+
+    public long getLocalCacheExpireMillis() {
+        return localCacheExpireMillis;
+    }
+
+    public void setLocalCacheExpireMillis(long localCacheExpireMillis) {
+        this.localCacheExpireMillis = localCacheExpireMillis;
+    }
+
+    public long getLocalCacheMaxSize() {
+        return localCacheMaxSize;
+    }
+
+    public void setLocalCacheMaxSize(long localCacheMaxSize) {
+        this.localCacheMaxSize = localCacheMaxSize;
+    }
+}
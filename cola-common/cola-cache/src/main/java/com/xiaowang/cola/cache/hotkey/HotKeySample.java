@@ -0,0 +1,28 @@
+package com.xiaowang.cola.cache.hotkey;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 热点Key采样注解
+ * <p>
+ * 用于带 @Cached 的方法，切面在缓存代理之外执行，本地缓存命中的访问也会被采样
+ *
+ * @author cola
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface HotKeySample {
+
+    /**
+     * 业务场景
+     */
+    String scene();
+
+    /**
+     * key 的 SpEL 表达式，如 #userId
+     */
+    String keyExpression();
+}
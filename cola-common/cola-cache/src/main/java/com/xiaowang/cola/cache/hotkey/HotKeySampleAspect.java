@@ -0,0 +1,60 @@
+package com.xiaowang.cola.cache.hotkey;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.StandardReflectionParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 热点Key采样切面，表达式和参数名按方法缓存，采样路径上不重复解析
+ *
+ * @author cola
+ */
+@Aspect
+@Order(Integer.MIN_VALUE + 2)
+public class HotKeySampleAspect {
+
+    private final HotKeyDetector hotKeyDetector;
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+
+    private final StandardReflectionParameterNameDiscoverer discoverer = new StandardReflectionParameterNameDiscoverer();
+
+    private final Map<Method, Expression> expressionCache = new ConcurrentHashMap<>();
+
+    private final Map<Method, String[]> parameterNamesCache = new ConcurrentHashMap<>();
+
+    public HotKeySampleAspect(HotKeyDetector hotKeyDetector) {
+        this.hotKeyDetector = hotKeyDetector;
+    }
+
+    @Around("@annotation(hotKeySample)")
+    public Object process(ProceedingJoinPoint pjp, HotKeySample hotKeySample) throws Throwable {
+        if (hotKeyDetector.getProperties().isEnabled()) {
+            Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+            Expression expression = expressionCache.computeIfAbsent(method, m -> parser.parseExpression(hotKeySample.keyExpression()));
+            String[] parameterNames = parameterNamesCache.computeIfAbsent(method, m -> {
+                String[] names = discoverer.getParameterNames(m);
+                return names == null ? new String[0] : names;
+            });
+
+            EvaluationContext context = new StandardEvaluationContext();
+            Object[] args = pjp.getArgs();
+            for (int i = 0; i < parameterNames.length; i++) {
+                context.setVariable(parameterNames[i], args[i]);
+            }
+            hotKeyDetector.sample(hotKeySample.scene(), expression.getValue(context));
+        }
+        return pjp.proceed();
+    }
+}
@@ -0,0 +1,185 @@
+package com.xiaowang.cola.cache.invalidate;
+
+import com.alicp.jetcache.Cache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于哈希时间轮的缓存延迟删除
+ * <pre>
+ *     1、按到期时间落到时间轮的格子里，同一格内同一个缓存的相同key只删除一次
+ *     2、每格到期时按缓存分组，调用 Cache.removeAll 批量删除：远程一次批量删除，
+ *        开启了 syncLocal 的缓存由 JetCache 广播通知其他节点清理本地缓存
+ *     3、可选的 DelayedInvalidationBacking 在每格把新增的延迟删除批量持久化，用于重启后补偿
+ *     4、只有一个时间轮线程，不会因为批量操作产生大量任务
+ * </pre>
+ * 使用前先通过 register 注册缓存，延迟删除和补偿消息都按缓存名称查找
+ *
+ * @author cola
+ */
+@Slf4j
+public class DelayedCacheInvalidator implements AutoCloseable {
+
+    private final long tickMillis;
+
+    private final int mask;
+
+    private final Map<Long, Map<String, Set<Object>>>[] wheel;
+
+    private final Map<String, Cache<Object, ?>> caches = new ConcurrentHashMap<>();
+
+    private final ConcurrentLinkedQueue<Pending> pendingBacking = new ConcurrentLinkedQueue<>();
+
+    private final long startNanos = System.nanoTime();
+
+    private final ScheduledExecutorService ticker;
+
+    private volatile long processedTick;
+
+    private volatile DelayedInvalidationBacking backing;
+
+    @SuppressWarnings("unchecked")
+    public DelayedCacheInvalidator(DelayedInvalidationProperties properties) {
+        if (properties.getTickMillis() <= 0 || properties.getWheelSize() <= 0) {
+            throw new IllegalArgumentException("tickMillis and wheelSize must be positive");
+        }
+        int wheelSize = properties.getWheelSize();
+        int actualSize = Integer.highestOneBit(wheelSize) == wheelSize ? wheelSize : Integer.highestOneBit(wheelSize) << 1;
+        this.tickMillis = properties.getTickMillis();
+        this.mask = actualSize - 1;
+        this.wheel = new Map[actualSize];
+        for (int i = 0; i < actualSize; i++) {
+            wheel[i] = new ConcurrentHashMap<>();
+        }
+        this.ticker = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("cache-delay-invalidator-%d").setDaemon(true).build());
+        this.ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void setBacking(DelayedInvalidationBacking backing) {
+        this.backing = backing;
+    }
+
+    /**
+     * 注册缓存
+     */
+    @SuppressWarnings("unchecked")
+    public void register(String cacheName, Cache<?, ?> cache) {
+        caches.put(cacheName, (Cache<Object, ?>) cache);
+    }
+
+    /**
+     * 延迟删除
+     *
+     * @param cacheName   已注册的缓存名称
+     * @param key         缓存key
+     * @param delayMillis 延迟时间，毫秒
+     */
+    public void invalidate(String cacheName, Object key, long delayMillis) {
+        if (!caches.containsKey(cacheName)) {
+            throw new IllegalArgumentException("cache not registered : " + cacheName);
+        }
+        long deadlineTick = Math.max(currentTick() + 1,
+                (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + delayMillis + tickMillis - 1) / tickMillis);
+        Map<Long, Map<String, Set<Object>>> bucket = wheel[(int) (deadlineTick & mask)];
+        bucket.computeIfAbsent(deadlineTick, t -> new ConcurrentHashMap<>())
+                .computeIfAbsent(cacheName, c -> ConcurrentHashMap.newKeySet())
+                .add(key);
+        if (deadlineTick <= processedTick) {
+            // 写入时这一格已经处理过了，交给时间轮线程立即删除。
+            // 时间轮线程可能在写入前已经取走了这一格并删除完，这次的key不一定在里面，所以单独再加一次
+            Map<String, Set<Object>> missed = bucket.remove(deadlineTick);
+            Map<String, Set<Object>> batch = missed == null ? new HashMap<>(2) : missed;
+            batch.computeIfAbsent(cacheName, c -> ConcurrentHashMap.newKeySet()).add(key);
+            ticker.execute(() -> remove(batch));
+        }
+        if (backing != null) {
+            pendingBacking.add(new Pending(cacheName, key, delayMillis));
+        }
+    }
+
+    /**
+     * 立即批量删除，用于处理持久化的补偿消息
+     */
+    public void invalidateNow(String cacheName, Set<Object> keys) {
+        Map<String, Set<Object>> batch = new HashMap<>(2);
+        batch.put(cacheName, keys);
+        remove(batch);
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdown();
+    }
+
+    private long currentTick() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) / tickMillis;
+    }
+
+    void tick() {
+        try {
+            flushBacking();
+            long now = currentTick();
+            for (long t = processedTick + 1; t <= now; t++) {
+                // 先推进进度再取数据，与 invalidate 中的检查配合，保证不会遗漏
+                processedTick = t;
+                Map<String, Set<Object>> expired = wheel[(int) (t & mask)].remove(t);
+                if (expired != null) {
+                    remove(expired);
+                }
+            }
+        } catch (Throwable e) {
+            log.error("delayed cache invalidation tick failed", e);
+        }
+    }
+
+    private void remove(Map<String, Set<Object>> batch) {
+        for (Map.Entry<String, Set<Object>> entry : batch.entrySet()) {
+            Cache<Object, ?> cache = caches.get(entry.getKey());
+            if (cache == null) {
+                log.warn("cache not registered : {} , keys = {}", entry.getKey(), entry.getValue().size());
+                continue;
+            }
+            try {
+                cache.removeAll(entry.getValue());
+                log.info("delayed cache invalidation, cache = {} , keys = {}", entry.getKey(), entry.getValue().size());
+            } catch (Exception e) {
+                log.error("delayed cache invalidation failed, cache = {} , keys = {}", entry.getKey(), entry.getValue(), e);
+            }
+        }
+    }
+
+    private void flushBacking() {
+        DelayedInvalidationBacking current = backing;
+        if (current == null || pendingBacking.isEmpty()) {
+            return;
+        }
+        Map<String, Map<Long, Set<Object>>> grouped = new HashMap<>();
+        Pending pending;
+        while ((pending = pendingBacking.poll()) != null) {
+            grouped.computeIfAbsent(pending.cacheName(), c -> new HashMap<>())
+                    .computeIfAbsent(pending.delayMillis(), d -> new HashSet<>())
+                    .add(pending.key());
+        }
+        grouped.forEach((cacheName, byDelay) -> byDelay.forEach((delayMillis, keys) -> {
+            try {
+                current.publish(cacheName, keys, delayMillis);
+            } catch (Exception e) {
+                log.error("publish delayed cache invalidation failed, cache = {} , keys = {}", cacheName, keys, e);
+            }
+        }));
+    }
+
+    private record Pending(String cacheName, Object key, long delayMillis) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.xiaowang.cola.cache.invalidate;
+
+import java.util.Set;
+
+/**
+ * 延迟删除的持久化扩展，例如发送 MQ 延迟消息，消费时调用 DelayedCacheInvalidator.invalidateNow，
+ * 节点重启后时间轮中未执行的删除由消息补偿
+ *
+ * @author cola
+ */
+public interface DelayedInvalidationBacking {
+
+    /**
+     * 持久化一批延迟删除
+     *
+     * @param cacheName   缓存名称
+     * @param keys        缓存key
+     * @param delayMillis 延迟时间，毫秒
+     */
+    void publish(String cacheName, Set<Object> keys, long delayMillis);
+}
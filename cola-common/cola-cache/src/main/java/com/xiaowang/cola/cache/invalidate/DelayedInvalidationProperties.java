@@ -0,0 +1,39 @@
+package com.xiaowang.cola.cache.invalidate;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 缓存延迟删除配置
+ *
+ * @author cola
+ */
+@ConfigurationProperties(prefix = DelayedInvalidationProperties.PREFIX)
+public class DelayedInvalidationProperties {
+    public static final String PREFIX = "spring.delay-invalidation";
+
+    /**
+     * 时间轮每格的时长，毫秒，同一格内的相同key只删除一次
+     */
+    private long tickMillis = 100;
+
+    /**
+     * 时间轮格数，会向上取整为 2 的幂
+     */
+    private int wheelSize = 512;
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    public void setTickMillis(long tickMillis) {
+        this.tickMillis = tickMillis;
+    }
+
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    public void setWheelSize(int wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+}
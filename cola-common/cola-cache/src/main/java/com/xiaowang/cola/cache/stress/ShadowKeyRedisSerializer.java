@@ -0,0 +1,43 @@
+package com.xiaowang.cola.cache.stress;
+
+import com.xiaowang.cola.base.stress.StressContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RedisTemplate 的 key 序列化器，压测流量的 key 统一加上影子前缀，反序列化时去掉前缀
+ *
+ * @author cola
+ */
+public class ShadowKeyRedisSerializer implements RedisSerializer<String> {
+
+    @Override
+    public byte[] serialize(String key) throws SerializationException {
+        if (key == null) {
+            return null;
+        }
+        if (StressContext.isStress() && !key.startsWith(StressContext.SHADOW_KEY_PREFIX)) {
+            key = StressContext.SHADOW_KEY_PREFIX + key;
+        }
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null) {
+            return null;
+        }
+        String key = new String(bytes, StandardCharsets.UTF_8);
+        if (key.startsWith(StressContext.SHADOW_KEY_PREFIX)) {
+            return key.substring(StressContext.SHADOW_KEY_PREFIX.length());
+        }
+        return key;
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return String.class;
+    }
+}
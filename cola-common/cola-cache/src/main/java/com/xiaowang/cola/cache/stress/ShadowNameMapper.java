@@ -0,0 +1,32 @@
+package com.xiaowang.cola.cache.stress;
+
+import com.xiaowang.cola.base.stress.StressContext;
+import org.redisson.api.NameMapper;
+
+/**
+ * Redisson 对象名映射，压测流量访问的 key 统一加上影子前缀
+ * <pre>
+ *     Redisson 在创建 RBucket、RLock 等对象时做映射，请求内按需获取的对象会落到影子 key，
+ *     启动时创建并长期持有的对象（如布隆过滤器）不受影响
+ * </pre>
+ *
+ * @author cola
+ */
+public class ShadowNameMapper implements NameMapper {
+
+    @Override
+    public String map(String name) {
+        if (StressContext.isStress() && !name.startsWith(StressContext.SHADOW_KEY_PREFIX)) {
+            return StressContext.SHADOW_KEY_PREFIX + name;
+        }
+        return name;
+    }
+
+    @Override
+    public String unmap(String name) {
+        if (name.startsWith(StressContext.SHADOW_KEY_PREFIX)) {
+            return name.substring(StressContext.SHADOW_KEY_PREFIX.length());
+        }
+        return name;
+    }
+}
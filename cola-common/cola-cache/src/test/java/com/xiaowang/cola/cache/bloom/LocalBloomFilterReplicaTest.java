@@ -0,0 +1,51 @@
+package com.xiaowang.cola.cache.bloom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author cola
+ */
+public class LocalBloomFilterReplicaTest {
+
+    @Test
+    public void snapshotMatchesRedisBitOrder() {
+        ScalableBloomFilter.Segment segment = ScalableBloomFilter.createSegments(1000, 0.01).get(0);
+        byte[] redisBitmap = new byte[(int) ((segment.bits() + 7) / 8)];
+        for (int i = 0; i < 500; i++) {
+            long[] hash = ScalableBloomFilter.hash("藏家_" + i);
+            // 与脚本中 SETBIT 的位置一致：第 n 位是第 n/8 个字节的从高到低第 n%8 位
+            for (int j = 0; j < segment.hashes(); j++) {
+                long n = (hash[0] + j * hash[1]) % segment.bits();
+                redisBitmap[(int) (n >>> 3)] |= (byte) (0x80 >>> (n & 7));
+            }
+        }
+
+        AtomicLongArray bitset = LocalBloomFilterReplica.toBitset(redisBitmap, segment.bits());
+        for (int i = 0; i < 500; i++) {
+            long[] hash = ScalableBloomFilter.hash("藏家_" + i);
+            Assertions.assertTrue(LocalBloomFilterReplica.containsIn(bitset, segment, hash[0], hash[1]));
+        }
+        int falsePositives = 0;
+        for (int i = 500; i < 10500; i++) {
+            long[] hash = ScalableBloomFilter.hash("藏家_" + i);
+            if (LocalBloomFilterReplica.containsIn(bitset, segment, hash[0], hash[1])) {
+                falsePositives++;
+            }
+        }
+        // 半满时误判率远低于满载的 fpp
+        Assertions.assertTrue(falsePositives < 100, "false positives " + falsePositives);
+    }
+
+    @Test
+    public void setBitsIsVisibleToContains() {
+        ScalableBloomFilter.Segment segment = ScalableBloomFilter.createSegments(1000, 0.01).get(0);
+        AtomicLongArray bitset = LocalBloomFilterReplica.toBitset(null, segment.bits());
+        long[] hash = ScalableBloomFilter.hash("ABCDEF");
+        Assertions.assertFalse(LocalBloomFilterReplica.containsIn(bitset, segment, hash[0], hash[1]));
+        LocalBloomFilterReplica.setBits(bitset, segment, hash[0], hash[1]);
+        Assertions.assertTrue(LocalBloomFilterReplica.containsIn(bitset, segment, hash[0], hash[1]));
+    }
+}
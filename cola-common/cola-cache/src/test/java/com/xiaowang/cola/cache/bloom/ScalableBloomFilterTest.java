@@ -0,0 +1,42 @@
+package com.xiaowang.cola.cache.bloom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * @author cola
+ */
+public class ScalableBloomFilterTest {
+
+    @Test
+    public void segmentsDoubleCapacityAndKeepTotalFpp() {
+        List<ScalableBloomFilter.Segment> segments = ScalableBloomFilter.createSegments(100000L, 0.01);
+
+        Assertions.assertTrue(segments.size() > 1);
+        double totalFpp = 0;
+        long cumulative = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            ScalableBloomFilter.Segment segment = segments.get(i);
+            Assertions.assertEquals(100000L << i, segment.capacity());
+            cumulative += segment.capacity();
+            Assertions.assertEquals(cumulative, segment.cumulativeCapacity());
+            Assertions.assertTrue(segment.bits() <= 1L << 32);
+            // 满载时的理论误判率
+            double fill = 1 - Math.exp(-(double) segment.hashes() * segment.capacity() / segment.bits());
+            totalFpp += Math.pow(fill, segment.hashes());
+        }
+        Assertions.assertTrue(totalFpp <= 0.0105, "total fpp " + totalFpp);
+    }
+
+    @Test
+    public void hashIsTwoUnsigned32BitValues() {
+        for (int i = 0; i < 1000; i++) {
+            long[] hash = ScalableBloomFilter.hash("藏家_" + i);
+            Assertions.assertTrue(hash[0] >= 0 && hash[0] <= 0xFFFFFFFFL);
+            Assertions.assertTrue(hash[1] >= 0 && hash[1] <= 0xFFFFFFFFL);
+        }
+        Assertions.assertEquals(ScalableBloomFilter.hash("ABCDEF")[0], ScalableBloomFilter.hash("ABCDEF")[0]);
+    }
+}
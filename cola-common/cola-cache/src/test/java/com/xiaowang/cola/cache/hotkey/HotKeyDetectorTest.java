@@ -0,0 +1,61 @@
+package com.xiaowang.cola.cache.hotkey;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * @author cola
+ */
+public class HotKeyDetectorTest {
+
+    @Test
+    public void sketchNeverUnderestimates() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        for (int i = 0; i < 5000; i++) {
+            sketch.add("key" + (i % 500), 1);
+        }
+        for (int i = 0; i < 500; i++) {
+            Assertions.assertTrue(sketch.estimate("key" + i) >= 10);
+        }
+        Assertions.assertEquals(0, new CountMinSketch(4, 1024).estimate("key0"));
+    }
+
+    @Test
+    public void topKOfWindow() {
+        HotKeyProperties properties = new HotKeyProperties();
+        properties.setEnabled(true);
+        properties.setWindowSeconds(3600);
+        properties.setThreshold(50);
+        properties.setTopK(2);
+
+        try (HotKeyDetector detector = new HotKeyDetector(properties)) {
+            for (int i = 0; i < 300; i++) {
+                detector.sample("user", 1L);
+            }
+            for (int i = 0; i < 200; i++) {
+                detector.sample("user", 2L);
+            }
+            for (int i = 0; i < 100; i++) {
+                detector.sample("stock", "p1");
+            }
+            for (int i = 0; i < 1000; i++) {
+                detector.sample("user", 1000L + i);
+            }
+            Assertions.assertFalse(detector.isHot("user", 1L));
+
+            detector.rotate();
+
+            List<HotKey> hotKeys = detector.getHotKeys();
+            Assertions.assertEquals(2, hotKeys.size());
+            Assertions.assertEquals("1", hotKeys.get(0).getKey());
+            Assertions.assertEquals("2", hotKeys.get(1).getKey());
+            Assertions.assertTrue(detector.isHot("user", 1L));
+            Assertions.assertFalse(detector.isHot("stock", "p1"));
+
+            detector.rotate();
+            Assertions.assertTrue(detector.getHotKeys().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.xiaowang.cola.cache.hotkey;
+
+import com.xiaowang.cola.base.stress.StressContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author cola
+ */
+public class HotKeyLocalCacheTest {
+
+    @Test
+    public void stressLoadIsNotVisibleToNormalTraffic() {
+        HotKeyProperties properties = new HotKeyProperties();
+        properties.setWindowSeconds(3600);
+        properties.setThreshold(10);
+        properties.setLocalCacheEnabled(true);
+        properties.setLocalCacheExpireMillis(60000);
+
+        try (HotKeyDetector detector = new HotKeyDetector(properties)) {
+            HotKeyLocalCache cache = new HotKeyLocalCache(detector, properties);
+            for (int i = 0; i < 20; i++) {
+                cache.get("stock", "p1", () -> "production");
+                StressContext.runWithStress(true, () -> cache.get("stock", "p1", () -> "shadow"));
+            }
+            detector.rotate();
+
+            // 压测流量先把热点key加载进本地缓存
+            StressContext.runWithStress(true, () -> Assertions.assertEquals("shadow", cache.get("stock", "p1", () -> "shadow")));
+            Assertions.assertEquals("production", cache.get("stock", "p1", () -> "production"));
+            // 两边各自命中自己的本地缓存
+            Assertions.assertEquals("production", cache.get("stock", "p1", () -> "reloaded"));
+            StressContext.runWithStress(true, () -> Assertions.assertEquals("shadow", cache.get("stock", "p1", () -> "reloaded")));
+
+            StressContext.runWithStress(true, () -> cache.invalidate("stock", "p1"));
+            Assertions.assertEquals("production", cache.get("stock", "p1", () -> "reloaded"));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.xiaowang.cola.cache.invalidate;
+
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.embedded.LinkedHashMapCacheBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author cola
+ */
+public class DelayedCacheInvalidatorTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void duplicateKeysInOneTickAreRemovedInOneBatch() throws InterruptedException {
+        Cache<Object, Object> target = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder().buildCache();
+        AtomicInteger removeAllCalls = new AtomicInteger();
+        Cache<Object, Object> cache = (Cache<Object, Object>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{Cache.class}, (proxy, method, args) -> {
+                    if ("removeAll".equals(method.getName())) {
+                        removeAllCalls.incrementAndGet();
+                    }
+                    return method.invoke(target, args);
+                });
+        for (int i = 0; i < 10; i++) {
+            target.put(String.valueOf(i), "user" + i);
+        }
+
+        DelayedInvalidationProperties properties = new DelayedInvalidationProperties();
+        properties.setTickMillis(50);
+        properties.setWheelSize(8);
+        try (DelayedCacheInvalidator invalidator = new DelayedCacheInvalidator(properties)) {
+            invalidator.register("user", cache);
+            for (int round = 0; round < 100; round++) {
+                for (int i = 0; i < 5; i++) {
+                    invalidator.invalidate("user", String.valueOf(i), 300);
+                }
+            }
+
+            Thread.sleep(100);
+            Assertions.assertNotNull(target.get("0"));
+            Thread.sleep(600);
+            for (int i = 0; i < 5; i++) {
+                Assertions.assertNull(target.get(String.valueOf(i)));
+            }
+            for (int i = 5; i < 10; i++) {
+                Assertions.assertNotNull(target.get(String.valueOf(i)));
+            }
+            // 500 次调用落在最多两个格子里
+            Assertions.assertTrue(removeAllCalls.get() <= 2, "removeAll calls " + removeAllCalls.get());
+        }
+    }
+
+    @Test
+    public void unregisteredCacheIsRejected() {
+        try (DelayedCacheInvalidator invalidator = new DelayedCacheInvalidator(new DelayedInvalidationProperties())) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> invalidator.invalidate("none", "1", 10));
+            invalidator.invalidateNow("none", Set.of("1"));
+        }
+    }
+}
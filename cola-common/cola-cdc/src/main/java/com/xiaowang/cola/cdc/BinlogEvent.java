@@ -0,0 +1,24 @@
+package com.xiaowang.cola.cdc;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一条 Binlog 行变更事件，Canal 和 Debezium 的消息都转换成这个结构
+ *
+ * @param database  库名
+ * @param table     表名
+ * @param type      事件类型
+ * @param rows      变更后的行，DELETE 时为删除前的行
+ * @param oldRows   变更前的行，只有 UPDATE 有，Canal 只包含被修改的列
+ * @param timestamp 事件在数据库中的执行时间，毫秒
+ * @author cola
+ */
+public record BinlogEvent(String database, String table, BinlogEventType type,
+                          List<Map<String, Object>> rows, List<Map<String, Object>> oldRows, long timestamp) {
+
+    public BinlogEvent {
+        rows = rows == null ? List.of() : rows;
+        oldRows = oldRows == null ? List.of() : oldRows;
+    }
+}
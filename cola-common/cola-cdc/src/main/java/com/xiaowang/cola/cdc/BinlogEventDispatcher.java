@@ -0,0 +1,125 @@
+package com.xiaowang.cola.cdc;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binlog 事件分发器
+ * <pre>
+ *     1、事件进入有界队列，队列满时阻塞提交方，由上游 MQ 消费的背压兜底
+ *     2、单线程消费，攒够 batchSize 条或者第一条事件等待超过 maxDelayMillis 就回调一次监听器，
+ *        事件顺序与 Binlog 顺序一致，前一批处理完才会处理下一批
+ * </pre>
+ *
+ * @author cola
+ */
+@Slf4j
+public class BinlogEventDispatcher implements AutoCloseable {
+
+    private final BlockingQueue<BinlogEvent> queue;
+
+    private final int batchSize;
+
+    private final long maxDelayNanos;
+
+    private final List<BinlogEventListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    public BinlogEventDispatcher(int queueCapacity, int batchSize, long maxDelayMillis) {
+        if (queueCapacity <= 0 || batchSize <= 0 || maxDelayMillis < 0) {
+            throw new IllegalArgumentException("queueCapacity and batchSize must be positive, maxDelayMillis must not be negative");
+        }
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("binlog-dispatcher-%d").setDaemon(true).build();
+        this.worker = threadFactory.newThread(this::run);
+        this.worker.start();
+    }
+
+    public void addListener(BinlogEventListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 按顺序提交事件，队列满时阻塞
+     */
+    public void submit(List<BinlogEvent> events) {
+        if (!running) {
+            throw new IllegalStateException("binlog dispatcher closed");
+        }
+        try {
+            for (BinlogEvent event : events) {
+                queue.put(event);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while submitting binlog events", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        List<BinlogEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                BinlogEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    BinlogEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                if (running) {
+                    continue;
+                }
+                // 关闭时把已经入队的事件处理完
+                queue.drainTo(batch);
+            }
+            if (!batch.isEmpty()) {
+                dispatch(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+
+    private void dispatch(List<BinlogEvent> batch) {
+        for (BinlogEventListener listener : listeners) {
+            try {
+                listener.onEvents(batch);
+            } catch (Exception e) {
+                log.error("binlog listener failed, listener = {} , events = {}", listener.getClass().getSimpleName(), batch.size(), e);
+            }
+        }
+    }
+}
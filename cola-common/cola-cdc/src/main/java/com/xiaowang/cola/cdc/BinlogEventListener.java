@@ -0,0 +1,18 @@
+package com.xiaowang.cola.cdc;
+
+import java.util.List;
+
+/**
+ * Binlog 事件监听器，由分发线程按 Binlog 顺序成批回调
+ *
+ * @author cola
+ */
+public interface BinlogEventListener {
+
+    /**
+     * 处理一批事件
+     *
+     * @param events 按 Binlog 顺序排列的事件
+     */
+    void onEvents(List<BinlogEvent> events);
+}
@@ -0,0 +1,19 @@
+package com.xiaowang.cola.cdc;
+
+import java.util.List;
+
+/**
+ * Binlog 消息解析器
+ *
+ * @author cola
+ */
+public interface BinlogEventParser {
+
+    /**
+     * 解析一条消息，DDL、心跳、墓碑等不需要处理的消息返回空列表
+     *
+     * @param payload 消息体
+     * @return 行变更事件，保持消息内的顺序
+     */
+    List<BinlogEvent> parse(String payload);
+}
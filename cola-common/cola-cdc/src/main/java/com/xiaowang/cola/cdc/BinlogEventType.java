@@ -0,0 +1,15 @@
+package com.xiaowang.cola.cdc;
+
+/**
+ * Binlog 事件类型
+ *
+ * @author cola
+ */
+public enum BinlogEventType {
+
+    INSERT,
+
+    UPDATE,
+
+    DELETE
+}
@@ -0,0 +1,19 @@
+package com.xiaowang.cola.cdc;
+
+/**
+ * Binlog 消息格式
+ *
+ * @author cola
+ */
+public enum BinlogFormat {
+
+    /**
+     * Canal 投递到 MQ 的 FlatMessage
+     */
+    CANAL,
+
+    /**
+     * Debezium 的变更事件，支持带 schema 的信封和 ExtractNewRecordState 之前的原始结构
+     */
+    DEBEZIUM
+}
@@ -0,0 +1,45 @@
+package com.xiaowang.cola.cdc;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Binlog 消息消费入口，解析后交给分发器
+ * <pre>
+ *     Canal / Debezium 把 Binlog 投递到 MQ，通过 Spring Cloud Stream 绑定这个函数：
+ *     spring.cloud.function.definition=binlogConsumer
+ *     spring.cloud.stream.bindings.binlogConsumer-in-0.destination=...
+ * </pre>
+ * 同一张表的消息需要投递到同一个分区（Canal 按表或主键 hash），并且顺序消费，才能保证失效顺序
+ *
+ * @author cola
+ */
+@Slf4j
+public class BinlogMessageConsumer implements Consumer<String> {
+
+    private final BinlogEventParser parser;
+
+    private final BinlogEventDispatcher dispatcher;
+
+    public BinlogMessageConsumer(BinlogEventParser parser, BinlogEventDispatcher dispatcher) {
+        this.parser = parser;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void accept(String payload) {
+        List<BinlogEvent> events;
+        try {
+            events = parser.parse(payload);
+        } catch (Exception e) {
+            // 无法解析的消息重试也不会成功，记录后跳过
+            log.error("parse binlog message failed, payload = {}", payload, e);
+            return;
+        }
+        if (!events.isEmpty()) {
+            dispatcher.submit(events);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.xiaowang.cola.cdc;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binlog 变更订阅配置
+ *
+ * @author cola
+ */
+@ConfigurationProperties(prefix = CdcProperties.PREFIX)
+public class CdcProperties {
+    public static final String PREFIX = "spring.cdc";
+
+    /**
+     * 是否开启，开启后由 Binlog 驱动缓存失效，写操作不再处理缓存
+     */
+    private boolean enabled = false;
+
+    /**
+     * 消息格式
+     */
+    private BinlogFormat format = BinlogFormat.CANAL;
+
+    /**
+     * 只处理该库的事件，为空时不过滤
+     */
+    private String database;
+
+    /**
+     * 分发队列容量
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 每批最多事件数
+     */
+    private int batchSize = 500;
+
+    /**
+     * 攒批的最长等待时间，毫秒
+     */
+    private long maxDelayMillis = 50;
+
+    /**
+     * 表与缓存的对应关系
+     */
+    private List<Rule> rules = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public BinlogFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(BinlogFormat format) {
+        this.format = format;
+    }
+
+    public String getDatabase() {
+        return database;
+    }
+
+    public void setDatabase(String database) {
+        this.database = database;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public void setMaxDelayMillis(long maxDelayMillis) {
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * 表变更时需要失效的缓存
+     */
+    public static class Rule {
+
+        /**
+         * 表名
+         */
+        private String table;
+
+        /**
+         * 缓存名称，需要先在 DelayedCacheInvalidator 中注册
+         */
+        private String cacheName;
+
+        /**
+         * 作为缓存 key 的列
+         */
+        private String keyColumn = "id";
+
+        public Rule() {
+        }
+
+        public Rule(String table, String cacheName, String keyColumn) {
+            this.table = table;
+            this.cacheName = cacheName;
+            this.keyColumn = keyColumn;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public void setTable(String table) {
+            this.table = table;
+        }
+
+        public String getCacheName() {
+            return cacheName;
+        }
+
+        public void setCacheName(String cacheName) {
+            this.cacheName = cacheName;
+        }
+
+        public String getKeyColumn() {
+            return keyColumn;
+        }
+
+        public void setKeyColumn(String keyColumn) {
+            this.keyColumn = keyColumn;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.xiaowang.cola.cdc;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 本地 Binlog 模拟源，用于测试和本地开发
+ * <pre>
+ *     把行变更组装成 Canal FlatMessage 交给消费入口，走与线上相同的解析、攒批和失效链路
+ * </pre>
+ *
+ * @author cola
+ */
+public class LocalBinlogSource {
+
+    private final String database;
+
+    private final Consumer<String> consumer;
+
+    public LocalBinlogSource(String database, Consumer<String> consumer) {
+        this.database = database;
+        this.consumer = consumer;
+    }
+
+    public void insert(String table, Map<String, Object> row) {
+        publish(table, BinlogEventType.INSERT, row, null);
+    }
+
+    public void update(String table, Map<String, Object> row, Map<String, Object> changedBefore) {
+        publish(table, BinlogEventType.UPDATE, row, changedBefore);
+    }
+
+    public void delete(String table, Map<String, Object> row) {
+        publish(table, BinlogEventType.DELETE, row, null);
+    }
+
+    private void publish(String table, BinlogEventType type, Map<String, Object> row, Map<String, Object> old) {
+        JSONObject message = new JSONObject();
+        message.put("database", database);
+        message.put("table", table);
+        message.put("type", type.name());
+        message.put("isDdl", false);
+        message.put("es", System.currentTimeMillis());
+        message.put("data", List.of(row));
+        if (old != null) {
+            message.put("old", List.of(old));
+        }
+        consumer.accept(JSON.toJSONString(message));
+    }
+}
@@ -0,0 +1,75 @@
+package com.xiaowang.cola.cdc;
+
+import com.xiaowang.cola.cache.invalidate.DelayedCacheInvalidator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按表名把 Binlog 事件转换成缓存失效
+ * <pre>
+ *     1、一批事件按缓存分组去重，每个缓存调用一次 invalidateNow 批量删除
+ *     2、UPDATE 同时取变更前后的 key，key 列被修改时旧 key 也会失效
+ *     3、分发器保证批与批之间串行，旧的变更不会在新的变更之后才失效
+ * </pre>
+ *
+ * @author cola
+ */
+public class TableCacheInvalidator implements BinlogEventListener {
+
+    private final DelayedCacheInvalidator delayedCacheInvalidator;
+
+    private final String database;
+
+    private final Map<String, List<CdcProperties.Rule>> rulesByTable = new HashMap<>();
+
+    public TableCacheInvalidator(DelayedCacheInvalidator delayedCacheInvalidator, String database, List<CdcProperties.Rule> rules) {
+        this.delayedCacheInvalidator = delayedCacheInvalidator;
+        this.database = database;
+        for (CdcProperties.Rule rule : rules) {
+            if (rule.getTable() == null || rule.getCacheName() == null || rule.getKeyColumn() == null) {
+                throw new IllegalArgumentException("table, cacheName and keyColumn of cdc rule must not be null");
+            }
+            rulesByTable.computeIfAbsent(rule.getTable(), t -> new ArrayList<>()).add(rule);
+        }
+    }
+
+    @Override
+    public void onEvents(List<BinlogEvent> events) {
+        Map<String, Set<Object>> keysByCache = new LinkedHashMap<>();
+        for (BinlogEvent event : events) {
+            if (database != null && !database.equals(event.database())) {
+                continue;
+            }
+            List<CdcProperties.Rule> rules = rulesByTable.get(event.table());
+            if (rules == null) {
+                continue;
+            }
+            for (CdcProperties.Rule rule : rules) {
+                Set<Object> keys = keysByCache.computeIfAbsent(rule.getCacheName(), c -> new LinkedHashSet<>());
+                collectKeys(event.rows(), rule.getKeyColumn(), keys);
+                collectKeys(event.oldRows(), rule.getKeyColumn(), keys);
+            }
+        }
+        keysByCache.forEach((cacheName, keys) -> {
+            if (!keys.isEmpty()) {
+                delayedCacheInvalidator.invalidateNow(cacheName, keys);
+            }
+        });
+    }
+
+    private static void collectKeys(List<Map<String, Object>> rows, String keyColumn, Set<Object> keys) {
+        for (Map<String, Object> row : rows) {
+            Object value = row.get(keyColumn);
+            if (value != null) {
+                // Canal 的列值都是字符串，Debezium 是原始类型，统一转成字符串作为缓存 key
+                keys.add(String.valueOf(value));
+            }
+        }
+    }
+}
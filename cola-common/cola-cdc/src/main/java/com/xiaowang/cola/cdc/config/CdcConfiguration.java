@@ -0,0 +1,55 @@
+package com.xiaowang.cola.cdc.config;
+
+import com.xiaowang.cola.cache.invalidate.DelayedCacheInvalidator;
+import com.xiaowang.cola.cdc.BinlogEventDispatcher;
+import com.xiaowang.cola.cdc.BinlogEventListener;
+import com.xiaowang.cola.cdc.BinlogEventParser;
+import com.xiaowang.cola.cdc.BinlogMessageConsumer;
+import com.xiaowang.cola.cdc.CdcProperties;
+import com.xiaowang.cola.cdc.TableCacheInvalidator;
+import com.xiaowang.cola.cdc.parser.CanalFlatMessageParser;
+import com.xiaowang.cola.cdc.parser.DebeziumEventParser;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Binlog 变更订阅配置
+ *
+ * @author cola
+ */
+@Configuration
+@EnableConfigurationProperties(CdcProperties.class)
+@ConditionalOnProperty(prefix = CdcProperties.PREFIX, name = "enabled", havingValue = "true")
+public class CdcConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public BinlogEventParser binlogEventParser(CdcProperties properties) {
+        return switch (properties.getFormat()) {
+            case CANAL -> new CanalFlatMessageParser();
+            case DEBEZIUM -> new DebeziumEventParser();
+        };
+    }
+
+    @Bean
+    public TableCacheInvalidator tableCacheInvalidator(DelayedCacheInvalidator delayedCacheInvalidator, CdcProperties properties) {
+        return new TableCacheInvalidator(delayedCacheInvalidator, properties.getDatabase(), properties.getRules());
+    }
+
+    @Bean(destroyMethod = "close")
+    public BinlogEventDispatcher binlogEventDispatcher(CdcProperties properties, ObjectProvider<BinlogEventListener> listeners) {
+        BinlogEventDispatcher dispatcher = new BinlogEventDispatcher(properties.getQueueCapacity(),
+                properties.getBatchSize(), properties.getMaxDelayMillis());
+        listeners.orderedStream().forEach(dispatcher::addListener);
+        return dispatcher;
+    }
+
+    @Bean
+    public BinlogMessageConsumer binlogConsumer(BinlogEventParser binlogEventParser, BinlogEventDispatcher binlogEventDispatcher) {
+        return new BinlogMessageConsumer(binlogEventParser, binlogEventDispatcher);
+    }
+}
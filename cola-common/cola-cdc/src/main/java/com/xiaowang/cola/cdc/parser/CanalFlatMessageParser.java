@@ -0,0 +1,81 @@
+package com.xiaowang.cola.cdc.parser;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.xiaowang.cola.cdc.BinlogEvent;
+import com.xiaowang.cola.cdc.BinlogEventParser;
+import com.xiaowang.cola.cdc.BinlogEventType;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canal FlatMessage 解析器
+ * <pre>
+ *     {"database":"cola","table":"users","type":"UPDATE","isDdl":false,"es":1700000000000,
+ *      "data":[{"id":"1","state":"FROZEN"}],"old":[{"state":"ACTIVE"}]}
+ * </pre>
+ * 单条消息或者 FlatMessage 数组都支持，DDL 及其他非行变更类型忽略
+ *
+ * @author cola
+ */
+public class CanalFlatMessageParser implements BinlogEventParser {
+
+    @Override
+    public List<BinlogEvent> parse(String payload) {
+        if (StringUtils.isBlank(payload)) {
+            return List.of();
+        }
+        Object json = JSON.parse(payload);
+        List<BinlogEvent> events = new ArrayList<>();
+        if (json instanceof JSONArray array) {
+            for (int i = 0; i < array.size(); i++) {
+                addEvent(array.getJSONObject(i), events);
+            }
+        } else if (json instanceof JSONObject message) {
+            addEvent(message, events);
+        }
+        return events;
+    }
+
+    private void addEvent(JSONObject message, List<BinlogEvent> events) {
+        if (message == null || message.getBooleanValue("isDdl")) {
+            return;
+        }
+        BinlogEventType type = toType(message.getString("type"));
+        if (type == null) {
+            return;
+        }
+        events.add(new BinlogEvent(message.getString("database"), message.getString("table"), type,
+                toRows(message.getJSONArray("data")), toRows(message.getJSONArray("old")), message.getLongValue("es")));
+    }
+
+    private static BinlogEventType toType(String type) {
+        if (type == null) {
+            return null;
+        }
+        return switch (type) {
+            case "INSERT" -> BinlogEventType.INSERT;
+            case "UPDATE" -> BinlogEventType.UPDATE;
+            case "DELETE" -> BinlogEventType.DELETE;
+            default -> null;
+        };
+    }
+
+    private static List<Map<String, Object>> toRows(JSONArray array) {
+        if (array == null || array.isEmpty()) {
+            return List.of();
+        }
+        List<Map<String, Object>> rows = new ArrayList<>(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            JSONObject row = array.getJSONObject(i);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,71 @@
+package com.xiaowang.cola.cdc.parser;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.xiaowang.cola.cdc.BinlogEvent;
+import com.xiaowang.cola.cdc.BinlogEventParser;
+import com.xiaowang.cola.cdc.BinlogEventType;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Debezium 变更事件解析器
+ * <pre>
+ *     {"payload":{"before":{...},"after":{...},"source":{"db":"cola","table":"users","ts_ms":1700000000000},"op":"u"}}
+ * </pre>
+ * 开启 JSON schema 时事件包在 payload 里，关闭时直接是 payload 的内容，两种都支持；
+ * 快照读（op = r）按 INSERT 处理，墓碑消息忽略
+ *
+ * @author cola
+ */
+public class DebeziumEventParser implements BinlogEventParser {
+
+    @Override
+    public List<BinlogEvent> parse(String payload) {
+        if (StringUtils.isBlank(payload)) {
+            return List.of();
+        }
+        JSONObject json = JSON.parseObject(payload);
+        if (json == null) {
+            return List.of();
+        }
+        JSONObject event = json.containsKey("op") ? json : json.getJSONObject("payload");
+        if (event == null) {
+            return List.of();
+        }
+        BinlogEventType type = toType(event.getString("op"));
+        if (type == null) {
+            return List.of();
+        }
+        JSONObject source = event.getJSONObject("source");
+        String database = source == null ? null : source.getString("db");
+        String table = source == null ? null : source.getString("table");
+        long timestamp = source == null ? event.getLongValue("ts_ms") : source.getLongValue("ts_ms");
+
+        JSONObject before = event.getJSONObject("before");
+        JSONObject after = event.getJSONObject("after");
+        return switch (type) {
+            case INSERT -> List.of(new BinlogEvent(database, table, type, rowsOf(after), null, timestamp));
+            case UPDATE -> List.of(new BinlogEvent(database, table, type, rowsOf(after), rowsOf(before), timestamp));
+            case DELETE -> List.of(new BinlogEvent(database, table, type, rowsOf(before), null, timestamp));
+        };
+    }
+
+    private static BinlogEventType toType(String op) {
+        if (op == null) {
+            return null;
+        }
+        return switch (op) {
+            case "c", "r" -> BinlogEventType.INSERT;
+            case "u" -> BinlogEventType.UPDATE;
+            case "d" -> BinlogEventType.DELETE;
+            default -> null;
+        };
+    }
+
+    private static List<Map<String, Object>> rowsOf(JSONObject row) {
+        return row == null ? List.of() : List.of(row);
+    }
+}
@@ -0,0 +1,107 @@
+package com.xiaowang.cola.cdc;
+
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.embedded.LinkedHashMapCacheBuilder;
+import com.xiaowang.cola.cache.invalidate.DelayedCacheInvalidator;
+import com.xiaowang.cola.cache.invalidate.DelayedInvalidationProperties;
+import com.xiaowang.cola.cdc.parser.CanalFlatMessageParser;
+import com.xiaowang.cola.cdc.parser.DebeziumEventParser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author cola
+ */
+public class BinlogCacheInvalidationTest {
+
+    @Test
+    public void parseCanalFlatMessage() {
+        String payload = """
+                {"database":"cola","table":"users","type":"UPDATE","isDdl":false,"es":1700000000000,
+                 "data":[{"id":"1","state":"FROZEN"},{"id":"2","state":"FROZEN"}],
+                 "old":[{"state":"ACTIVE"},{"state":"ACTIVE"}]}
+                """;
+        List<BinlogEvent> events = new CanalFlatMessageParser().parse(payload);
+        Assertions.assertEquals(1, events.size());
+        BinlogEvent event = events.get(0);
+        Assertions.assertEquals("users", event.table());
+        Assertions.assertEquals(BinlogEventType.UPDATE, event.type());
+        Assertions.assertEquals(2, event.rows().size());
+        Assertions.assertEquals("2", event.rows().get(1).get("id"));
+        Assertions.assertEquals(1700000000000L, event.timestamp());
+
+        Assertions.assertTrue(new CanalFlatMessageParser().parse("""
+                {"database":"cola","table":"users","type":"ALTER","isDdl":true,"sql":"alter table users add c int"}
+                """).isEmpty());
+    }
+
+    @Test
+    public void parseDebeziumEvent() {
+        String payload = """
+                {"schema":{},"payload":{"before":{"id":1,"state":"ACTIVE"},"after":{"id":1,"state":"FROZEN"},
+                 "source":{"db":"cola","table":"users","ts_ms":1700000000000},"op":"u","ts_ms":1700000000100}}
+                """;
+        List<BinlogEvent> events = new DebeziumEventParser().parse(payload);
+        Assertions.assertEquals(1, events.size());
+        Assertions.assertEquals(BinlogEventType.UPDATE, events.get(0).type());
+        Assertions.assertEquals("FROZEN", events.get(0).rows().get(0).get("state"));
+        Assertions.assertEquals("ACTIVE", events.get(0).oldRows().get(0).get("state"));
+
+        List<BinlogEvent> deletes = new DebeziumEventParser().parse("""
+                {"before":{"id":2},"after":null,"source":{"db":"cola","table":"users"},"op":"d"}
+                """);
+        Assertions.assertEquals(BinlogEventType.DELETE, deletes.get(0).type());
+        Assertions.assertEquals(2, deletes.get(0).rows().get(0).get("id"));
+
+        // 墓碑消息
+        Assertions.assertTrue(new DebeziumEventParser().parse("null").isEmpty());
+    }
+
+    @Test
+    public void localBinlogInvalidatesCacheInBatches() throws InterruptedException {
+        Cache<Object, Object> cache = LinkedHashMapCacheBuilder.createLinkedHashMapCacheBuilder().buildCache();
+        for (int i = 0; i < 100; i++) {
+            cache.put(String.valueOf(i), "user" + i);
+        }
+
+        CdcProperties.Rule rule = new CdcProperties.Rule("users", ":user:cache:id:", "id");
+        List<Integer> batchSizes = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        try (DelayedCacheInvalidator invalidator = new DelayedCacheInvalidator(new DelayedInvalidationProperties());
+             BinlogEventDispatcher dispatcher = new BinlogEventDispatcher(1000, 16, 20)) {
+            invalidator.register(":user:cache:id:", cache);
+            dispatcher.addListener(new TableCacheInvalidator(invalidator, "cola", List.of(rule)));
+            dispatcher.addListener(events -> {
+                batchSizes.add(events.size());
+                if (events.get(events.size() - 1).table().equals("end")) {
+                    done.countDown();
+                }
+            });
+
+            LocalBinlogSource source = new LocalBinlogSource("cola", new BinlogMessageConsumer(new CanalFlatMessageParser(), dispatcher));
+            for (int i = 0; i < 50; i++) {
+                source.update("users", Map.of("id", String.valueOf(i), "state", "FROZEN"), Map.of("state", "ACTIVE"));
+            }
+            // 其他表不影响用户缓存
+            source.delete("orders", Map.of("id", "60"));
+            source.insert("end", Map.of("id", "70"));
+
+            Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+
+        for (int i = 0; i < 50; i++) {
+            Assertions.assertNull(cache.get(String.valueOf(i)));
+        }
+        for (int i = 50; i < 100; i++) {
+            Assertions.assertNotNull(cache.get(String.valueOf(i)));
+        }
+        Assertions.assertEquals(52, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        Assertions.assertTrue(batchSizes.stream().allMatch(size -> size <= 16), "batch sizes " + batchSizes);
+    }
+}
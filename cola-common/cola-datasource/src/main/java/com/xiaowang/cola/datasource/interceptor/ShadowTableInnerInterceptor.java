@@ -0,0 +1,55 @@
+package com.xiaowang.cola.datasource.interceptor;
+
+import com.baomidou.mybatisplus.core.plugins.InterceptorIgnoreHelper;
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import com.baomidou.mybatisplus.extension.plugins.inner.DynamicTableNameInnerInterceptor;
+import com.xiaowang.cola.base.stress.StressContext;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 影子表拦截器，压测流量的 SQL 表名统一加上影子后缀
+ * <pre>
+ *     1、查询在 willDoQuery 阶段改写，保证分页插件生成的 count 语句也落到影子表
+ *     2、增删改在 beforePrepare 阶段改写
+ *     3、非压测流量不做任何解析
+ * </pre>
+ *
+ * @author cola
+ */
+public class ShadowTableInnerInterceptor extends DynamicTableNameInnerInterceptor {
+
+    public ShadowTableInnerInterceptor() {
+        super((sql, tableName) -> tableName + StressContext.SHADOW_TABLE_SUFFIX);
+    }
+
+    @Override
+    public boolean willDoQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                               ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+        if (StressContext.isStress() && !InterceptorIgnoreHelper.willIgnoreDynamicTableName(ms.getId())) {
+            PluginUtils.MPBoundSql mpBs = PluginUtils.mpBoundSql(boundSql);
+            mpBs.sql(this.changeTable(mpBs.sql()));
+        }
+        return true;
+    }
+
+    @Override
+    public void beforeQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                            ResultHandler resultHandler, BoundSql boundSql) {
+        // 查询已在 willDoQuery 中改写
+    }
+
+    @Override
+    public void beforePrepare(StatementHandler sh, Connection connection, Integer transactionTimeout) {
+        if (StressContext.isStress()) {
+            super.beforePrepare(sh, connection, transactionTimeout);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.xiaowang.cola.datasource.page;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 分页总数缓存，同一个查询条件在有效期内只 COUNT 一次，翻页时不再每页都 COUNT
+ * <pre>
+ *     总数在有效期内是近似值，只用于展示总条数和总页数，是否有下一页以游标查询的结果为准
+ * </pre>
+ *
+ * @author cola
+ */
+public class PageTotalCache {
+
+    private final Cache<String, Long> totals;
+
+    public PageTotalCache(Duration expireAfterWrite, long maximumSize) {
+        this.totals = CacheBuilder.newBuilder()
+                .expireAfterWrite(expireAfterWrite)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * 获取总数
+     *
+     * @param key     查询条件组成的 key
+     * @param counter 未命中时执行的 COUNT
+     * @return 总数
+     */
+    public long get(String key, Supplier<Long> counter) {
+        return totals.asMap().computeIfAbsent(key, k -> counter.get());
+    }
+}
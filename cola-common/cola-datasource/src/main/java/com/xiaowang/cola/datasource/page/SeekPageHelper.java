@@ -0,0 +1,115 @@
+package com.xiaowang.cola.datasource.page;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.xiaowang.cola.base.request.PageCursor;
+import com.xiaowang.cola.base.response.PageResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标（seek）分页工具
+ * <pre>
+ *     1、按 (排序列, id) 排序，用上一页最后一条记录生成条件：
+ *        sort_column > ? OR (sort_column = ? AND id > ?)，倒序时为小于，不再有 OFFSET，深分页和第一页一样快
+ *     2、多查一条用来判断是否还有下一页，不需要 COUNT，按页码（OFFSET）查询时同样多查一条
+ *     3、排序列需要和过滤条件一起建联合索引，并且不能为空
+ *     4、游标用调用方注入的 spring.page.cursor.secret 签名，解码时用同一个密钥 PageCursor.decode
+ * </pre>
+ *
+ * @author cola
+ */
+public final class SeekPageHelper {
+
+    public static final String ID_COLUMN = "id";
+
+    private SeekPageHelper() {
+    }
+
+    /**
+     * 追加游标条件、排序和 LIMIT，会覆盖 wrapper 原有的 last
+     *
+     * @param wrapper    已经设置好过滤条件的查询
+     * @param sortColumn 排序列
+     * @param asc        是否升序
+     * @param cursor     上一页的游标，第一页为 null
+     * @param pageSize   每页条数
+     * @return wrapper
+     */
+    public static <T> QueryWrapper<T> seek(QueryWrapper<T> wrapper, String sortColumn, boolean asc, PageCursor cursor, int pageSize) {
+        if (cursor != null) {
+            Object sortValue = cursor.sortValue();
+            long id = cursor.id();
+            if (asc) {
+                wrapper.and(w -> w.gt(sortColumn, sortValue).or().eq(sortColumn, sortValue).gt(ID_COLUMN, id));
+            } else {
+                wrapper.and(w -> w.lt(sortColumn, sortValue).or().eq(sortColumn, sortValue).lt(ID_COLUMN, id));
+            }
+        }
+        wrapper.orderBy(true, asc, sortColumn);
+        wrapper.orderBy(true, asc, ID_COLUMN);
+        wrapper.last("LIMIT " + (pageSize + 1));
+        return wrapper;
+    }
+
+    /**
+     * 按页码（OFFSET）查询时追加与游标分页相同的排序和多查一条的 LIMIT，会覆盖 wrapper 原有的 last
+     *
+     * @param wrapper     已经设置好过滤条件的查询
+     * @param sortColumn  排序列
+     * @param asc         是否升序
+     * @param currentPage 页码，从 1 开始
+     * @param pageSize    每页条数
+     * @return wrapper
+     */
+    public static <T> QueryWrapper<T> offset(QueryWrapper<T> wrapper, String sortColumn, boolean asc, int currentPage, int pageSize) {
+        wrapper.orderBy(true, asc, sortColumn);
+        wrapper.orderBy(true, asc, ID_COLUMN);
+        wrapper.last("LIMIT " + (pageSize + 1) + " OFFSET " + (long) (currentPage - 1) * pageSize);
+        return wrapper;
+    }
+
+    /**
+     * 把多查了一条的结果转换成分页响应
+     *
+     * @param records     seek 查询的结果
+     * @param cursor      本次查询使用的游标，第一页为 null
+     * @param pageSize    每页条数
+     * @param total       总数，可以是缓存的或者近似的
+     * @param sortValue   取记录的排序列的值
+     * @param id          取记录的主键
+     * @param secret      游标签名密钥
+     * @return 分页响应
+     */
+    public static <T> PageResponse<T> toResponse(List<T> records, PageCursor cursor, int pageSize, long total,
+                                                 Function<T, Object> sortValue, Function<T, Long> id, String secret) {
+        int currentPage = cursor == null ? 1 : cursor.page();
+        List<T> datas = records.size() <= pageSize ? records : new ArrayList<>(records.subList(0, pageSize));
+        return PageResponse.ofCursor(datas, (int) total, pageSize, currentPage,
+                nextCursor(records, currentPage, pageSize, sortValue, id, secret));
+    }
+
+    /**
+     * 把 offset 查询多查了一条的结果转换成分页响应，是否有下一页以多出的一条为准，
+     * 有下一页时同样返回游标，后续可以切换到游标翻页
+     */
+    public static <T> PageResponse<T> toOffsetResponse(List<T> records, int currentPage, int pageSize, long total,
+                                                       Function<T, Object> sortValue, Function<T, Long> id, String secret) {
+        List<T> datas = records.size() <= pageSize ? records : new ArrayList<>(records.subList(0, pageSize));
+        PageResponse<T> response = PageResponse.of(datas, (int) total, pageSize, currentPage);
+        String nextCursor = nextCursor(records, currentPage, pageSize, sortValue, id, secret);
+        response.setNextCursor(nextCursor);
+        response.setHasMore(nextCursor != null);
+        return response;
+    }
+
+    private static <T> String nextCursor(List<T> records, int currentPage, int pageSize,
+                                         Function<T, Object> sortValue, Function<T, Long> id, String secret) {
+        if (records.size() <= pageSize) {
+            return null;
+        }
+        T last = records.get(pageSize - 1);
+        return new PageCursor(sortValue.apply(last), id.apply(last), currentPage + 1).encode(secret);
+    }
+}
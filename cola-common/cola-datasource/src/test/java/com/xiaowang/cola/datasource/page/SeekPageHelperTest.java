@@ -0,0 +1,95 @@
+package com.xiaowang.cola.datasource.page;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.xiaowang.cola.base.request.PageCursor;
+import com.xiaowang.cola.base.response.PageResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @author cola
+ */
+public class SeekPageHelperTest {
+
+    private static final String SECRET = "test_page_cursor_secret";
+
+    @Test
+    public void firstPageHasNoSeekPredicate() {
+        QueryWrapper<Object> wrapper = new QueryWrapper<>();
+        wrapper.eq("state", "ACTIVE");
+        SeekPageHelper.seek(wrapper, "gmt_create", true, null, 10);
+
+        Assertions.assertEquals(normalize("(state = ?) ORDER BY gmt_create ASC,id ASC LIMIT 11"), normalize(wrapper));
+    }
+
+    @Test
+    public void ascendingSeekUsesGreaterThan() {
+        QueryWrapper<Object> wrapper = new QueryWrapper<>();
+        wrapper.eq("state", "ACTIVE");
+        SeekPageHelper.seek(wrapper, "gmt_create", true, new PageCursor(100L, 7L, 2), 10);
+
+        Assertions.assertEquals(normalize("(state = ? AND (gmt_create > ? OR gmt_create = ? AND id > ?)) ORDER BY gmt_create ASC,id ASC LIMIT 11"),
+                normalize(wrapper));
+        Assertions.assertTrue(wrapper.getParamNameValuePairs().values().containsAll(List.of("ACTIVE", 100L, 7L)));
+    }
+
+    @Test
+    public void descendingSeekUsesLessThan() {
+        QueryWrapper<Object> wrapper = new QueryWrapper<>();
+        SeekPageHelper.seek(wrapper, "gmt_create", false, new PageCursor(100L, 7L, 2), 10);
+
+        Assertions.assertEquals(normalize("((gmt_create < ? OR gmt_create = ? AND id < ?)) ORDER BY gmt_create DESC,id DESC LIMIT 11"),
+                normalize(wrapper));
+    }
+
+    @Test
+    public void offsetFetchesOneExtraRow() {
+        QueryWrapper<Object> wrapper = new QueryWrapper<>();
+        SeekPageHelper.offset(wrapper, "gmt_create", false, 3, 10);
+
+        Assertions.assertEquals(normalize("ORDER BY gmt_create DESC,id DESC LIMIT 11 OFFSET 20"), normalize(wrapper));
+    }
+
+    @Test
+    public void hasMoreComesFromExtraRow() {
+        Function<Long, Object> sortValue = id -> id * 10;
+        Function<Long, Long> id = Function.identity();
+
+        PageResponse<Long> first = SeekPageHelper.toResponse(List.of(1L, 2L, 3L), null, 2, 100, sortValue, id, SECRET);
+        Assertions.assertEquals(List.of(1L, 2L), first.getDatas());
+        Assertions.assertEquals(1, first.getCurrentPage());
+        Assertions.assertTrue(first.isHasMore());
+        PageCursor next = PageCursor.decode(first.getNextCursor(), SECRET);
+        Assertions.assertEquals(20L, next.sortValue());
+        Assertions.assertEquals(2L, next.id());
+        Assertions.assertEquals(2, next.page());
+
+        PageResponse<Long> last = SeekPageHelper.toResponse(List.of(3L), next, 2, 100, sortValue, id, SECRET);
+        Assertions.assertEquals(2, last.getCurrentPage());
+        Assertions.assertFalse(last.isHasMore());
+        Assertions.assertNull(last.getNextCursor());
+
+        // 缓存的总数偏大时，以多查的一条为准
+        PageResponse<Long> offset = SeekPageHelper.toOffsetResponse(List.of(5L, 6L), 3, 2, 100, sortValue, id, SECRET);
+        Assertions.assertEquals(3, offset.getCurrentPage());
+        Assertions.assertFalse(offset.isHasMore());
+        Assertions.assertNull(offset.getNextCursor());
+
+        PageResponse<Long> offsetWithMore = SeekPageHelper.toOffsetResponse(List.of(5L, 6L, 7L), 3, 2, 4, sortValue, id, SECRET);
+        Assertions.assertEquals(List.of(5L, 6L), offsetWithMore.getDatas());
+        Assertions.assertTrue(offsetWithMore.isHasMore());
+        Assertions.assertEquals(4, PageCursor.decode(offsetWithMore.getNextCursor(), SECRET).page());
+    }
+
+    private static String normalize(QueryWrapper<?> wrapper) {
+        return normalize(wrapper.getCustomSqlSegment().replaceFirst("^WHERE ", "")
+                .replaceAll("#\\{ew\\.paramNameValuePairs\\.\\w+}", "?"));
+    }
+
+    private static String normalize(String sql) {
+        return sql.replaceAll("\\s+", " ").trim();
+    }
+}
@@ -0,0 +1,225 @@
+package com.xiaowang.cola.limiter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 两级限流服务，本地预取令牌 + Redis 全局计数
+ * <pre>
+ *     1、Redis 中按窗口维护全局已发放的令牌数，一次 Lua 调用批量领取 k 个令牌
+ *     2、领到的令牌放在本地原子计数器中，本地用完或窗口结束才再次访问 Redis
+ *     3、批量大小按本节点的消耗速率自适应，同时不超过全局剩余额度的 1/budgetDivisor，额度越少批量越小
+ *     4、全局额度耗尽后，本窗口剩余时间内直接在本地拒绝，不再访问 Redis
+ *     5、只会少放不会多放，每个节点每个窗口最多浪费一个批量的令牌
+ * </pre>
+ *
+ * @author cola
+ */
+public class HybridRateLimiter implements RateLimiter {
+
+    private static final String LIMIT_KEY_PREFIX = "cola:limit:hybrid:";
+
+    /**
+     * KEYS[1] 计数key前缀，ARGV[1] limit，ARGV[2] 期望领取的数量，ARGV[3] 窗口毫秒数
+     * 返回 {领取到的数量, 全局剩余数量, 当前窗口剩余毫秒数}
+     */
+    private static final String GRANT_SCRIPT = """
+            local time = redis.call('TIME')
+            local nowMs = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local limit = tonumber(ARGV[1])
+            local want = tonumber(ARGV[2])
+            local windowMs = tonumber(ARGV[3])
+            local windowStart = nowMs - nowMs % windowMs
+            local key = KEYS[1] .. ':' .. windowStart
+            local used = tonumber(redis.call('GET', key) or '0')
+            local grant = math.min(want, limit - used)
+            if grant > 0 then
+                redis.call('INCRBY', key, grant)
+                redis.call('PEXPIRE', key, windowMs)
+            else
+                grant = 0
+            end
+            return {grant, limit - used - grant, windowStart + windowMs - nowMs}""";
+
+    private final RedissonClient redissonClient;
+
+    private final int minBatch;
+
+    private final int maxBatch;
+
+    private final long refillIntervalNanos;
+
+    private final int budgetDivisor;
+
+    private final Cache<String, Batch> batches;
+
+    /**
+     * @param redissonClient   redisson 客户端
+     * @param minBatch         最小批量
+     * @param maxBatch         最大批量
+     * @param refillIntervalMillis 期望的领取间隔，批量 = 消耗速率 * 领取间隔
+     * @param budgetDivisor    单次最多领取全局剩余额度的 1/budgetDivisor
+     * @param maxKeys          本地最多保存的key数量
+     */
+    public HybridRateLimiter(RedissonClient redissonClient, int minBatch, int maxBatch, long refillIntervalMillis,
+                             int budgetDivisor, int maxKeys) {
+        if (minBatch <= 0 || maxBatch < minBatch || budgetDivisor <= 0) {
+            throw new IllegalArgumentException("invalid batch config");
+        }
+        this.redissonClient = redissonClient;
+        this.minBatch = minBatch;
+        this.maxBatch = maxBatch;
+        this.refillIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refillIntervalMillis);
+        this.budgetDivisor = budgetDivisor;
+        this.batches = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    @Override
+    public Boolean tryAcquire(String key, int limit, int windowSize) {
+        return acquire(key, 1, limit, windowSize).isAllowed();
+    }
+
+    @Override
+    public RateLimitResult acquire(String key, int permits, int limit, int windowSize) {
+        if (permits <= 0 || limit <= 0 || windowSize <= 0) {
+            throw new IllegalArgumentException("permits, limit and windowSize must be positive");
+        }
+        if (permits > limit) {
+            return RateLimitResult.rejected(TimeUnit.SECONDS.toMillis(windowSize));
+        }
+        Batch batch = batches.get(key, k -> new Batch());
+        RateLimitResult result = tryLocal(batch, permits, System.nanoTime());
+        if (result != null) {
+            return result;
+        }
+
+        synchronized (batch) {
+            long now = System.nanoTime();
+            result = tryLocal(batch, permits, now);
+            if (result != null) {
+                return result;
+            }
+            return refill(key, batch, permits, limit, windowSize, now);
+        }
+    }
+
+    /**
+     * 只用本地令牌判断，需要访问 Redis 时返回 null
+     */
+    private RateLimitResult tryLocal(Batch batch, int permits, long now) {
+        if (now >= batch.expireAt) {
+            return null;
+        }
+        if (batch.tryTake(permits)) {
+            return RateLimitResult.allowed();
+        }
+        if (batch.globalRemaining <= 0) {
+            return RateLimitResult.rejected(TimeUnit.NANOSECONDS.toMillis(batch.expireAt - now));
+        }
+        return null;
+    }
+
+    private RateLimitResult refill(String key, Batch batch, int permits, int limit, int windowSize, long now) {
+        int want = Math.max(nextBatchSize(batch, limit, now), permits);
+        long[] result = grant(key, limit, want, TimeUnit.SECONDS.toMillis(windowSize));
+
+        long granted = result[0];
+        // 同一窗口内本地剩余的零头继续保留，窗口切换后旧令牌作废
+        boolean sameWindow = now < batch.expireAt;
+        batch.globalRemaining = result[1];
+        batch.lastGranted = granted;
+        batch.lastRefillAt = now;
+        batch.expireAt = now + TimeUnit.MILLISECONDS.toNanos(result[2]);
+        boolean allowed = granted >= permits;
+        long left = allowed ? granted - permits : granted;
+        if (sameWindow) {
+            batch.permits.addAndGet(left);
+        } else {
+            batch.permits.set(left);
+        }
+        // 全局额度已不足本次请求时，领到的零头留给后续的小请求
+        return allowed ? RateLimitResult.allowed() : RateLimitResult.rejected(result[2]);
+    }
+
+    /**
+     * 从 Redis 领取一批令牌
+     *
+     * @return {领取到的数量, 全局剩余数量, 当前窗口剩余毫秒数}
+     */
+    long[] grant(String key, int limit, int want, long windowMillis) {
+        List<Long> result = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, GRANT_SCRIPT,
+                RScript.ReturnType.MULTI, Collections.singletonList(LIMIT_KEY_PREFIX + "{" + key + "}"),
+                String.valueOf(limit), String.valueOf(want), String.valueOf(windowMillis));
+        return new long[]{result.get(0), result.get(1), result.get(2)};
+    }
+
+    /**
+     * 按上一批令牌的消耗速率估算下一批的大小
+     */
+    private int nextBatchSize(Batch batch, int limit, long now) {
+        if (batch.lastRefillAt != 0 && batch.lastGranted > 0) {
+            long elapsed = Math.max(now - batch.lastRefillAt, 1);
+            double rate = (double) batch.lastGranted / elapsed;
+            batch.rate = batch.rate == 0 ? rate : batch.rate * 0.5 + rate * 0.5;
+        }
+        long size = (long) Math.ceil(batch.rate * refillIntervalNanos);
+        size = Math.max(minBatch, Math.min(maxBatch, size));
+        if (now < batch.expireAt) {
+            size = Math.min(size, Math.max(1, batch.globalRemaining / budgetDivisor));
+        } else {
+            size = Math.min(size, Math.max(1, limit / budgetDivisor));
+        }
+        return (int) size;
+    }
+
+    private static final class Batch {
+
+        /**
+         * 本地剩余的令牌
+         */
+        private final AtomicLong permits = new AtomicLong();
+
+        /**
+         * 本批令牌所属窗口的结束时间，单位纳秒
+         */
+        private volatile long expireAt = Long.MIN_VALUE;
+
+        /**
+         * 上次领取后的全局剩余额度
+         */
+        private volatile long globalRemaining;
+
+        private long lastGranted;
+
+        private long lastRefillAt;
+
+        /**
+         * 平滑后的消耗速率，单位 个/纳秒
+         */
+        private double rate;
+
+        private boolean tryTake(int count) {
+            while (true) {
+                long current = permits.get();
+                if (current < count) {
+                    return false;
+                }
+                if (permits.compareAndSet(current, current - count)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
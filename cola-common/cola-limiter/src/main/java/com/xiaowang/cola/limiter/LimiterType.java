@@ -0,0 +1,24 @@
+package com.xiaowang.cola.limiter;
+
+/**
+ * 限流实现类型
+ *
+ * @author cola
+ */
+public enum LimiterType {
+
+    /**
+     * 本地限流，只在当前 JVM 内生效
+     */
+    LOCAL,
+
+    /**
+     * 本地预取令牌 + Redis 全局计数的两级限流
+     */
+    HYBRID,
+
+    /**
+     * 基于 Redis 的分布式限流
+     */
+    REDIS
+}
@@ -0,0 +1,133 @@
+package com.xiaowang.cola.limiter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 本地无锁限流服务，基于 GCRA（通用信元速率算法）实现的令牌桶
+ * <pre>
+ *     1、每个key只保存一个理论到达时间 tat，单位纳秒，通过 CAS 更新，不加锁
+ *     2、令牌发放间隔 = 窗口 / limit，请求 n 个令牌时 tat 前进 n 个间隔，tat 超出当前时间一个窗口以上则拒绝
+ *     3、key 保存在有界的本地缓存中，一个窗口内没有访问的 key 已经回满令牌，直接淘汰，不影响限流结果
+ *     4、只在当前 JVM 内生效，适用于单机维度的限流
+ * </pre>
+ *
+ * @author cola
+ */
+public class LocalRateLimiter implements RateLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Cache<String, Bucket> buckets;
+
+    private final LongSupplier nanoClock;
+
+    public LocalRateLimiter(int maxKeys) {
+        this(maxKeys, System::nanoTime);
+    }
+
+    LocalRateLimiter(int maxKeys, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfter(new BucketExpiry())
+                .ticker(nanoClock::getAsLong)
+                .build();
+    }
+
+    @Override
+    public Boolean tryAcquire(String key, int limit, int windowSize) {
+        return tryAcquire(key, 1, limit, windowSize);
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits, int limit, int windowSize) {
+        return take(key, permits, limit, windowSize) <= 0;
+    }
+
+    @Override
+    public RateLimitResult acquire(String key, int permits, int limit, int windowSize) {
+        long waitNanos = take(key, permits, limit, windowSize);
+        return waitNanos <= 0 ? RateLimitResult.allowed() : RateLimitResult.rejected(
+                TimeUnit.NANOSECONDS.toMillis(waitNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1));
+    }
+
+    /**
+     * 获取令牌
+     *
+     * @return 0 表示通过，否则为还需等待的纳秒数
+     */
+    private long take(String key, int permits, int limit, int windowSize) {
+        if (permits <= 0 || limit <= 0 || windowSize <= 0) {
+            throw new IllegalArgumentException("permits, limit and windowSize must be positive");
+        }
+        long windowNanos = windowSize * NANOS_PER_SECOND;
+        if (permits > limit) {
+            return windowNanos;
+        }
+        long increment = windowNanos / limit * permits;
+        Bucket bucket = buckets.get(key, k -> new Bucket(windowNanos));
+        bucket.windowNanos = windowNanos;
+
+        AtomicLong tat = bucket.tat;
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, now) + increment;
+            if (next - now > windowNanos) {
+                return next - now - windowNanos;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 当前保存的key数量，用于监控
+     */
+    public long size() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+
+    private static final class Bucket {
+
+        /**
+         * 理论到达时间，初始为 Long.MIN_VALUE 表示令牌桶是满的
+         */
+        private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE / 2);
+
+        /**
+         * 最近一次访问使用的窗口，tat 最多领先当前时间一个窗口，超过该时长未访问即可淘汰
+         */
+        private volatile long windowNanos;
+
+        private Bucket(long windowNanos) {
+            this.windowNanos = windowNanos;
+        }
+    }
+
+    private static final class BucketExpiry implements Expiry<String, Bucket> {
+
+        @Override
+        public long expireAfterCreate(String key, Bucket bucket, long currentTime) {
+            return bucket.windowNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Bucket bucket, long currentTime, long currentDuration) {
+            return bucket.windowNanos;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Bucket bucket, long currentTime, long currentDuration) {
+            return bucket.windowNanos;
+        }
+    }
+}
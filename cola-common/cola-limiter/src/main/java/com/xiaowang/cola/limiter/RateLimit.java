@@ -0,0 +1,78 @@
+package com.xiaowang.cola.limiter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 限流注解
+ *
+ * @author cola
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit {
+
+    /**
+     * 限流的场景，同时作为统计通过、拒绝次数的维度
+     *
+     * @return
+     */
+    public String scene();
+
+    /**
+     * 限流的key，优先取key()，如果没有，则取keyExpression()，都没有则整个场景共用一个key
+     *
+     * @return
+     */
+    public String key() default RateLimitConstant.NONE_KEY;
+
+    /**
+     * SPEL表达式:
+     * <pre>
+     *     #userId
+     *     #param.userId
+     * </pre>
+     *
+     * @return
+     */
+    public String keyExpression() default RateLimitConstant.NONE_KEY;
+
+    /**
+     * 窗口内允许通过的数量
+     *
+     * @return
+     */
+    public int limit();
+
+    /**
+     * 窗口大小，秒
+     *
+     * @return
+     */
+    public int windowSize() default 1;
+
+    /**
+     * 每次调用消耗的令牌数
+     *
+     * @return
+     */
+    public int permits() default 1;
+
+    /**
+     * 使用的限流实现
+     *
+     * @return
+     */
+    public LimiterType type() default LimiterType.REDIS;
+
+    /**
+     * 被限流时调用的降级方法，需与被注解方法在同一个类中，
+     * 参数与原方法相同，或在原方法参数后追加一个 RateLimitResult 参数。
+     * 不配置时抛出 RateLimitException
+     *
+     * @return
+     */
+    public String fallback() default RateLimitConstant.NONE_KEY;
+}
@@ -0,0 +1,203 @@
+package com.xiaowang.cola.limiter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.StandardReflectionParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 限流切面
+ * <pre>
+ *     1、注解、SPEL表达式、参数名和降级方法按 Method 解析一次后缓存，表达式开启 SPEL 编译
+ *     2、按场景统计通过和拒绝次数，存在 MeterRegistry 时注册为 cola.limiter.requests 指标
+ * </pre>
+ *
+ * @author cola
+ */
+@Aspect
+@Order(Integer.MIN_VALUE + 1)
+public class RateLimitAspect {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RateLimitAspect.class);
+
+    private final Map<LimiterType, RateLimiter> limiters;
+
+    private final MeterRegistry meterRegistry;
+
+    private final SpelExpressionParser parser = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, RateLimitAspect.class.getClassLoader()));
+
+    private final StandardReflectionParameterNameDiscoverer discoverer = new StandardReflectionParameterNameDiscoverer();
+
+    private final Map<Method, RateLimitMetadata> metadataCache = new ConcurrentHashMap<>();
+
+    private final Map<String, RateLimitStats> statsCache = new ConcurrentHashMap<>();
+
+    public RateLimitAspect(Map<LimiterType, RateLimiter> limiters, MeterRegistry meterRegistry) {
+        this.limiters = new EnumMap<>(limiters);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(com.xiaowang.cola.limiter.RateLimit)")
+    public Object process(ProceedingJoinPoint pjp) throws Throwable {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        RateLimitMetadata metadata = metadataCache.computeIfAbsent(method, m -> resolve(m, pjp.getTarget().getClass()));
+        RateLimit rateLimit = metadata.rateLimit;
+        Object[] args = pjp.getArgs();
+
+        String limitKey = rateLimit.scene() + RateLimitConstant.KEY_SEPARATOR + metadata.key(args);
+        RateLimitResult result = metadata.limiter.acquire(limitKey, rateLimit.permits(), rateLimit.limit(), rateLimit.windowSize());
+        if (result.isAllowed()) {
+            metadata.stats.allowed.increment();
+            return pjp.proceed();
+        }
+
+        metadata.stats.rejected.increment();
+        LOG.warn("rate limited for key : {} , wait : {}ms", limitKey, result.getWaitMillis());
+        if (metadata.fallback == null) {
+            throw new RateLimitException("rate limited... key : " + limitKey, result);
+        }
+        Object[] fallbackArgs = args;
+        if (metadata.fallbackWithResult) {
+            fallbackArgs = Arrays.copyOf(args, args.length + 1);
+            fallbackArgs[args.length] = result;
+        }
+        try {
+            return metadata.fallback.invoke(pjp.getTarget(), fallbackArgs);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * 各场景的通过、拒绝次数
+     */
+    public Map<String, RateLimitStats> getStats() {
+        return statsCache;
+    }
+
+    private RateLimitMetadata resolve(Method method, Class<?> targetClass) {
+        RateLimit rateLimit = method.getAnnotation(RateLimit.class);
+        RateLimiter limiter = limiters.get(rateLimit.type());
+        if (limiter == null) {
+            throw new IllegalStateException("no rate limiter for type " + rateLimit.type() + " on " + method);
+        }
+
+        Expression expression = null;
+        String[] parameterNames = new String[0];
+        if (RateLimitConstant.NONE_KEY.equals(rateLimit.key()) && !RateLimitConstant.NONE_KEY.equals(rateLimit.keyExpression())) {
+            expression = parser.parseExpression(rateLimit.keyExpression());
+            String[] names = discoverer.getParameterNames(method);
+            parameterNames = names == null ? parameterNames : names;
+        }
+
+        Method fallback = null;
+        boolean fallbackWithResult = false;
+        if (!RateLimitConstant.NONE_KEY.equals(rateLimit.fallback())) {
+            Class<?>[] types = method.getParameterTypes();
+            fallback = ReflectionUtils.findMethod(targetClass, rateLimit.fallback(), types);
+            if (fallback == null) {
+                Class<?>[] typesWithResult = Arrays.copyOf(types, types.length + 1);
+                typesWithResult[types.length] = RateLimitResult.class;
+                fallback = ReflectionUtils.findMethod(targetClass, rateLimit.fallback(), typesWithResult);
+                fallbackWithResult = true;
+            }
+            if (fallback == null) {
+                throw new IllegalStateException("fallback method " + rateLimit.fallback() + " not found for " + method);
+            }
+            ReflectionUtils.makeAccessible(fallback);
+        }
+
+        RateLimitStats stats = statsCache.computeIfAbsent(rateLimit.scene(), this::createStats);
+        return new RateLimitMetadata(rateLimit, limiter, expression, parameterNames, fallback, fallbackWithResult, stats);
+    }
+
+    private RateLimitStats createStats(String scene) {
+        RateLimitStats stats = new RateLimitStats();
+        if (meterRegistry != null) {
+            FunctionCounter.builder("cola.limiter.requests", stats.allowed, LongAdder::sum)
+                    .tag("scene", scene).tag("result", "allowed").register(meterRegistry);
+            FunctionCounter.builder("cola.limiter.requests", stats.rejected, LongAdder::sum)
+                    .tag("scene", scene).tag("result", "rejected").register(meterRegistry);
+        }
+        return stats;
+    }
+
+    /**
+     * 场景维度的统计
+     */
+    public static class RateLimitStats {
+
+        private final LongAdder allowed = new LongAdder();
+
+        private final LongAdder rejected = new LongAdder();
+
+        public long getAllowed() {
+            return allowed.sum();
+        }
+
+        public long getRejected() {
+            return rejected.sum();
+        }
+    }
+
+    private static final class RateLimitMetadata {
+
+        private final RateLimit rateLimit;
+
+        private final RateLimiter limiter;
+
+        private final Expression expression;
+
+        private final String[] parameterNames;
+
+        private final Method fallback;
+
+        private final boolean fallbackWithResult;
+
+        private final RateLimitStats stats;
+
+        private RateLimitMetadata(RateLimit rateLimit, RateLimiter limiter, Expression expression, String[] parameterNames,
+                                  Method fallback, boolean fallbackWithResult, RateLimitStats stats) {
+            this.rateLimit = rateLimit;
+            this.limiter = limiter;
+            this.expression = expression;
+            this.parameterNames = parameterNames;
+            this.fallback = fallback;
+            this.fallbackWithResult = fallbackWithResult;
+            this.stats = stats;
+        }
+
+        private String key(Object[] args) {
+            if (expression == null) {
+                return rateLimit.key();
+            }
+            EvaluationContext context = new StandardEvaluationContext();
+            for (int i = 0; i < parameterNames.length; i++) {
+                context.setVariable(parameterNames[i], args[i]);
+            }
+            return String.valueOf(expression.getValue(context));
+        }
+    }
+}
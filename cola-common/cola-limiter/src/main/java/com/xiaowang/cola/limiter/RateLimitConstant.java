@@ -0,0 +1,13 @@
+package com.xiaowang.cola.limiter;
+
+/**
+ * 限流常量
+ *
+ * @author cola
+ */
+public class RateLimitConstant {
+
+    public static final String NONE_KEY = "NONE";
+
+    public static final String KEY_SEPARATOR = "#";
+}
@@ -0,0 +1,20 @@
+package com.xiaowang.cola.limiter;
+
+/**
+ * 限流异常，携带限流结果，调用方可据此设置 Retry-After
+ *
+ * @author cola
+ */
+public class RateLimitException extends RuntimeException {
+
+    private final RateLimitResult result;
+
+    public RateLimitException(String message, RateLimitResult result) {
+        super(message);
+        this.result = result;
+    }
+
+    public RateLimitResult getResult() {
+        return result;
+    }
+}
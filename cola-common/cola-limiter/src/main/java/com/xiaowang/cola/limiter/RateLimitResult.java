@@ -0,0 +1,54 @@
+package com.xiaowang.cola.limiter;
+
+/**
+ * 限流结果
+ *
+ * @author cola
+ */
+public class RateLimitResult {
+
+    private static final RateLimitResult ALLOWED = new RateLimitResult(true, 0);
+
+    /**
+     * 是否通过
+     */
+    private final boolean allowed;
+
+    /**
+     * 被拒绝时，至少还需要等待的毫秒数
+     */
+    private final long waitMillis;
+
+    private RateLimitResult(boolean allowed, long waitMillis) {
+        this.allowed = allowed;
+        this.waitMillis = waitMillis;
+    }
+
+    public static RateLimitResult allowed() {
+        return ALLOWED;
+    }
+
+    public static RateLimitResult rejected(long waitMillis) {
+        return new RateLimitResult(false, Math.max(waitMillis, 0));
+    }
+
+    public boolean isAllowed() {
+        return allowed;
+    }
+
+    public long getWaitMillis() {
+        return waitMillis;
+    }
+
+    /**
+     * 需要等待的秒数，向上取整，用于 Retry-After 响应头
+     */
+    public long getRetryAfterSeconds() {
+        return (waitMillis + 999) / 1000;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitResult{allowed=" + allowed + ", waitMillis=" + waitMillis + '}';
+    }
+}
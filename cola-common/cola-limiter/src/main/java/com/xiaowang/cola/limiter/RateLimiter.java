@@ -16,4 +16,28 @@ public interface RateLimiter {
      * @return
      */
     public Boolean tryAcquire(String key, int limit, int windowSize);
+
+    /**
+     * 判断一个key是否可以一次通过多个令牌
+     *
+     * @param key 限流的key
+     * @param permits 需要的令牌数量
+     * @param limit 限流的数量
+     * @param windowSize 窗口大小，单位为秒
+     * @return
+     */
+    public default boolean tryAcquire(String key, int permits, int limit, int windowSize) {
+        return acquire(key, permits, limit, windowSize).isAllowed();
+    }
+
+    /**
+     * 获取令牌，被拒绝时同时返回需要等待的时间，可直接用于 Retry-After
+     *
+     * @param key 限流的key
+     * @param permits 需要的令牌数量
+     * @param limit 限流的数量
+     * @param windowSize 窗口大小，单位为秒
+     * @return
+     */
+    public RateLimitResult acquire(String key, int permits, int limit, int windowSize);
 }
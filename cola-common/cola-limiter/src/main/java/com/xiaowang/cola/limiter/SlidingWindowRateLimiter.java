@@ -1,12 +1,22 @@
 package com.xiaowang.cola.limiter;
 
-import org.redisson.api.RRateLimiter;
-import org.redisson.api.RateIntervalUnit;
-import org.redisson.api.RateType;
+import com.xiaowang.cola.cache.hotkey.HotKeyDetector;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 滑动窗口限流服务
+ * <pre>
+ *     1、每个key对应一个 Redis Hash，field 为子窗口的起始毫秒数，value 为该子窗口内发放的令牌数
+ *     2、窗口不超过 60 秒时子窗口为 1 秒，更长的窗口按 60 个子窗口切分
+ *     3、一次 Lua 调用完成过期子窗口清理、计数和扣减，limit 和窗口大小每次调用传入，修改后立即生效
+ *     4、被拒绝时脚本同时算出最早能满足本次请求的等待时间
+ * </pre>
  *
  * @author cola
  */
@@ -14,20 +24,106 @@ public class SlidingWindowRateLimiter implements RateLimiter {
 
     private RedissonClient redissonClient;
 
-    private static final String LIMIT_KEY_PREFIX = "cola:limit:";
+    private HotKeyDetector hotKeyDetector;
+
+    /**
+     * 与旧版 RRateLimiter 的 key 区分开，避免读到其配置字段
+     */
+    private static final String LIMIT_KEY_PREFIX = "cola:limit:sw:";
+
+    private static final String HOT_KEY_SCENE = "limiter";
+
+    private static final int MAX_SUB_BUCKETS = 60;
+
+    /**
+     * KEYS[1] 计数的 Hash，ARGV[1] 令牌数，ARGV[2] limit，ARGV[3] 窗口毫秒数，ARGV[4] 子窗口毫秒数
+     * 返回 {是否通过, 需要等待的毫秒数}
+     */
+    public static final String SLIDING_WINDOW_SCRIPT = """
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local permits = tonumber(ARGV[1])
+            local limit = tonumber(ARGV[2])
+            local windowMs = tonumber(ARGV[3])
+            local bucketMs = tonumber(ARGV[4])
+            local current = now - now % bucketMs
+            local windowStart = current - windowMs + bucketMs
+
+            local entries = redis.call('HGETALL', KEYS[1])
+            local total = 0
+            local buckets = {}
+            local expired = {}
+            for i = 1, #entries, 2 do
+                local bucket = tonumber(entries[i])
+                local count = tonumber(entries[i + 1])
+                if bucket < windowStart then
+                    table.insert(expired, entries[i])
+                else
+                    total = total + count
+                    table.insert(buckets, {bucket, count})
+                end
+            end
+            if #expired > 0 then
+                redis.call('HDEL', KEYS[1], unpack(expired))
+            end
+
+            if total + permits <= limit then
+                redis.call('HINCRBY', KEYS[1], current, permits)
+                redis.call('PEXPIRE', KEYS[1], windowMs + bucketMs)
+                return {1, 0}
+            end
+
+            table.sort(buckets, function(a, b) return a[1] < b[1] end)
+            local need = total + permits - limit
+            local freed = 0
+            for _, item in ipairs(buckets) do
+                freed = freed + item[2]
+                if freed >= need then
+                    return {0, item[1] + windowMs - now}
+                end
+            end
+            return {0, windowMs}""";
 
     public SlidingWindowRateLimiter(RedissonClient redissonClient) {
         this.redissonClient = redissonClient;
     }
 
+    public SlidingWindowRateLimiter(RedissonClient redissonClient, HotKeyDetector hotKeyDetector) {
+        this.redissonClient = redissonClient;
+        this.hotKeyDetector = hotKeyDetector;
+    }
+
     @Override
     public Boolean tryAcquire(String key, int limit, int windowSize) {
-        RRateLimiter rRateLimiter = redissonClient.getRateLimiter(LIMIT_KEY_PREFIX + key);
+        return acquire(key, 1, limit, windowSize).isAllowed();
+    }
 
-        if (!rRateLimiter.isExists()) {
-            rRateLimiter.trySetRate(RateType.OVERALL, limit, windowSize, RateIntervalUnit.SECONDS);
+    @Override
+    public RateLimitResult acquire(String key, int permits, int limit, int windowSize) {
+        if (permits <= 0 || limit <= 0 || windowSize <= 0) {
+            throw new IllegalArgumentException("permits, limit and windowSize must be positive");
+        }
+        long windowMillis = TimeUnit.SECONDS.toMillis(windowSize);
+        if (permits > limit) {
+            return RateLimitResult.rejected(windowMillis);
         }
+        if (hotKeyDetector != null) {
+            hotKeyDetector.sample(HOT_KEY_SCENE, key);
+        }
+
+        List<Long> result = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                SLIDING_WINDOW_SCRIPT, RScript.ReturnType.MULTI, Collections.singletonList(LIMIT_KEY_PREFIX + key),
+                String.valueOf(permits), String.valueOf(limit), String.valueOf(windowMillis),
+                String.valueOf(subBucketMillis(windowSize)));
+
+        return result.get(0) == 1 ? RateLimitResult.allowed() : RateLimitResult.rejected(result.get(1));
+    }
 
-        return rRateLimiter.tryAcquire();
+    /**
+     * 子窗口大小，窗口不超过 60 秒时为 1 秒，更长的窗口按 60 个子窗口切分
+     */
+    public static long subBucketMillis(int windowSize) {
+        int seconds = (windowSize + MAX_SUB_BUCKETS - 1) / MAX_SUB_BUCKETS;
+        return TimeUnit.SECONDS.toMillis(seconds);
     }
 }
@@ -0,0 +1,172 @@
+package com.xiaowang.cola.limiter.adaptive;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 自适应并发限流器，根据观测到的 RTT 调整允许的在途请求数（Gradient 算法）
+ * <pre>
+ *     1、在途请求数达到当前限制时直接拒绝，不排队
+ *     2、按窗口汇总 RTT，长期 RTT 为所有窗口的指数平均，短期 RTT 为当前窗口的平均值
+ *     3、gradient = clamp(rttTolerance * 长期RTT / 短期RTT, 0.5, 1)，新限制 = 限制 * gradient + sqrt(限制)
+ *        下游变慢时短期 RTT 升高，gradient 变小，限制随之下降；下游正常时限制按 sqrt(限制) 缓慢增长
+ *     4、窗口内出现超时等丢弃时，限制按 backoffRatio 直接收缩
+ *     5、在途请求数不到限制一半时不增长，避免空闲时限制无限上涨
+ * </pre>
+ *
+ * @author cola
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+
+    private final AdaptiveConcurrencyProperties properties;
+
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+
+    private double estimatedLimit;
+
+    private double longRtt;
+
+    private long windowStart;
+
+    private long windowRttSum;
+
+    private int windowSamples;
+
+    private int windowMaxInFlight;
+
+    private boolean windowDropped;
+
+    public AdaptiveConcurrencyLimiter(String name, AdaptiveConcurrencyProperties properties) {
+        this(name, properties, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(String name, AdaptiveConcurrencyProperties properties, LongSupplier nanoClock) {
+        this.name = name;
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.estimatedLimit = properties.getInitialLimit();
+        this.limit = properties.getInitialLimit();
+        this.windowStart = nanoClock.getAsLong();
+    }
+
+    /**
+     * 申请一个并发名额
+     *
+     * @return 名额，请求结束后必须调用其 onSuccess/onDropped/onIgnore 之一；被拒绝时返回 null
+     */
+    public Token tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Token(nanoClock.getAsLong(), current + 1);
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void onSample(long startTime, int inFlightAtStart, boolean dropped) {
+        long now = nanoClock.getAsLong();
+        synchronized (this) {
+            windowRttSum += Math.max(now - startTime, 1);
+            windowSamples++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+            windowDropped |= dropped;
+
+            if (now - windowStart < TimeUnit.MILLISECONDS.toNanos(properties.getWindowMillis())
+                    || windowSamples < properties.getMinWindowSamples()) {
+                return;
+            }
+            updateLimit((double) windowRttSum / windowSamples, windowMaxInFlight, windowDropped);
+            windowStart = now;
+            windowRttSum = 0;
+            windowSamples = 0;
+            windowMaxInFlight = 0;
+            windowDropped = false;
+        }
+    }
+
+    private void updateLimit(double shortRtt, int maxInFlight, boolean dropped) {
+        double newLimit;
+        if (dropped) {
+            newLimit = estimatedLimit * properties.getBackoffRatio();
+        } else {
+            if (longRtt == 0) {
+                longRtt = shortRtt;
+            } else {
+                longRtt += (shortRtt - longRtt) / properties.getLongWindow();
+                // 下游恢复时让长期 RTT 更快回落，避免长时间高估
+                if (longRtt / shortRtt > 2) {
+                    longRtt *= 0.95;
+                }
+            }
+            if (maxInFlight < estimatedLimit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longRtt / shortRtt));
+            newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        }
+        newLimit = estimatedLimit * (1 - properties.getSmoothing()) + newLimit * properties.getSmoothing();
+        newLimit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), newLimit));
+        estimatedLimit = newLimit;
+        limit = (int) newLimit;
+    }
+
+    /**
+     * 并发名额
+     */
+    public final class Token {
+
+        private final long startTime;
+
+        private final int inFlightAtStart;
+
+        private Token(long startTime, int inFlightAtStart) {
+            this.startTime = startTime;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * 请求正常完成，RTT 计入统计
+         */
+        public void onSuccess() {
+            inFlight.decrementAndGet();
+            onSample(startTime, inFlightAtStart, false);
+        }
+
+        /**
+         * 请求超时或被下游拒绝，视为过载信号
+         */
+        public void onDropped() {
+            inFlight.decrementAndGet();
+            onSample(startTime, inFlightAtStart, true);
+        }
+
+        /**
+         * 请求失败但与负载无关，不计入统计
+         */
+        public void onIgnore() {
+            inFlight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.xiaowang.cola.limiter.adaptive;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 自适应并发限流器注册表，按名称隔离，如 web、dubbo:接口名
+ *
+ * @author cola
+ */
+public class AdaptiveConcurrencyLimiterRegistry {
+
+    private final AdaptiveConcurrencyProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimiterRegistry(AdaptiveConcurrencyProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public AdaptiveConcurrencyLimiter getOrCreate(String name) {
+        return limiters.computeIfAbsent(name, this::create);
+    }
+
+    public Map<String, AdaptiveConcurrencyLimiter> getLimiters() {
+        return limiters;
+    }
+
+    public AdaptiveConcurrencyProperties getProperties() {
+        return properties;
+    }
+
+    private AdaptiveConcurrencyLimiter create(String name) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(name, properties);
+        if (meterRegistry != null) {
+            Gauge.builder("cola.limiter.adaptive.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .tag("name", name).register(meterRegistry);
+            Gauge.builder("cola.limiter.adaptive.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("name", name).register(meterRegistry);
+        }
+        return limiter;
+    }
+}
@@ -0,0 +1,156 @@
+package com.xiaowang.cola.limiter.adaptive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 自适应并发限流配置
+ *
+ * @author cola
+ */
+@ConfigurationProperties(prefix = AdaptiveConcurrencyProperties.PREFIX)
+public class AdaptiveConcurrencyProperties {
+    public static final String PREFIX = "spring.limiter.adaptive";
+
+    /**
+     * 是否对 Web 请求开启
+     */
+    private boolean webEnabled = false;
+
+    /**
+     * 是否对 @Facade 标注的 Dubbo 服务开启
+     */
+    private boolean dubboEnabled = false;
+
+    /**
+     * 初始并发限制
+     */
+    private int initialLimit = 20;
+
+    /**
+     * 最小并发限制
+     */
+    private int minLimit = 4;
+
+    /**
+     * 最大并发限制
+     */
+    private int maxLimit = 1000;
+
+    /**
+     * 限制的平滑系数，越大调整越快
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * 短期 RTT 超过长期 RTT 的多少倍才开始收缩
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * 长期 RTT 的平均窗口数
+     */
+    private int longWindow = 600;
+
+    /**
+     * 出现丢弃时的收缩比例
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * 统计窗口，单位毫秒
+     */
+    private long windowMillis = 500;
+
+    /**
+     * 每个统计窗口至少需要的样本数
+     */
+    private int minWindowSamples = 10;
+
+    public boolean isWebEnabled() {
+        return webEnabled;
+    }
+
+    public void setWebEnabled(boolean webEnabled) {
+        this.webEnabled = webEnabled;
+    }
+
+    public boolean isDubboEnabled() {
+        return dubboEnabled;
+    }
+
+    public void setDubboEnabled(boolean dubboEnabled) {
+        this.dubboEnabled = dubboEnabled;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    public double getRttTolerance() {
+        return rttTolerance;
+    }
+
+    public void setRttTolerance(double rttTolerance) {
+        this.rttTolerance = rttTolerance;
+    }
+
+    public int getLongWindow() {
+        return longWindow;
+    }
+
+    public void setLongWindow(int longWindow) {
+        this.longWindow = longWindow;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public void setBackoffRatio(double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public int getMinWindowSamples() {
+        return minWindowSamples;
+    }
+
+    public void setMinWindowSamples(int minWindowSamples) {
+        this.minWindowSamples = minWindowSamples;
+    }
+}
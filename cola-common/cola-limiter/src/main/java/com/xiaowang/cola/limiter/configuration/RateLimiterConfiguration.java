@@ -1,18 +1,74 @@
 package com.xiaowang.cola.limiter.configuration;
 
+import com.xiaowang.cola.cache.hotkey.HotKeyDetector;
+import com.xiaowang.cola.limiter.HybridRateLimiter;
+import com.xiaowang.cola.limiter.LimiterType;
+import com.xiaowang.cola.limiter.LocalRateLimiter;
+import com.xiaowang.cola.limiter.RateLimitAspect;
+import com.xiaowang.cola.limiter.RateLimiter;
+import com.xiaowang.cola.limiter.adaptive.AdaptiveConcurrencyLimiterRegistry;
+import com.xiaowang.cola.limiter.adaptive.AdaptiveConcurrencyProperties;
 import com.xiaowang.cola.limiter.SlidingWindowRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.Map;
 
 /**
  * @author cola
  */
 @Configuration
+@EnableConfigurationProperties({RateLimiterProperties.class, AdaptiveConcurrencyProperties.class})
 public class RateLimiterConfiguration {
 
     @Bean
-    public SlidingWindowRateLimiter slidingWindowRateLimiter(RedissonClient redisson) {
-        return new SlidingWindowRateLimiter(redisson);
+    public SlidingWindowRateLimiter slidingWindowRateLimiter(RedissonClient redisson, HotKeyDetector hotKeyDetector) {
+        return new SlidingWindowRateLimiter(redisson, hotKeyDetector);
+    }
+
+    @Bean
+    public LocalRateLimiter localRateLimiter(RateLimiterProperties properties) {
+        return new LocalRateLimiter(properties.getLocalMaxKeys());
+    }
+
+    @Bean
+    public HybridRateLimiter hybridRateLimiter(RedissonClient redisson, RateLimiterProperties properties) {
+        return new HybridRateLimiter(redisson, properties.getHybridMinBatch(), properties.getHybridMaxBatch(),
+                properties.getHybridRefillIntervalMillis(), properties.getHybridBudgetDivisor(), properties.getLocalMaxKeys());
+    }
+
+    /**
+     * 按 spring.limiter.type 选择按 RateLimiter 接口注入时使用的实现
+     */
+    @Bean
+    @Primary
+    public RateLimiter rateLimiter(RateLimiterProperties properties, SlidingWindowRateLimiter slidingWindowRateLimiter,
+                                   LocalRateLimiter localRateLimiter, HybridRateLimiter hybridRateLimiter) {
+        return switch (properties.getType()) {
+            case LOCAL -> localRateLimiter;
+            case HYBRID -> hybridRateLimiter;
+            default -> slidingWindowRateLimiter;
+        };
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RateLimitAspect rateLimitAspect(SlidingWindowRateLimiter slidingWindowRateLimiter, LocalRateLimiter localRateLimiter,
+                                           HybridRateLimiter hybridRateLimiter, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new RateLimitAspect(Map.of(LimiterType.REDIS, slidingWindowRateLimiter, LimiterType.LOCAL, localRateLimiter,
+                LimiterType.HYBRID, hybridRateLimiter), meterRegistry.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public AdaptiveConcurrencyLimiterRegistry adaptiveConcurrencyLimiterRegistry(AdaptiveConcurrencyProperties properties,
+                                                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        return new AdaptiveConcurrencyLimiterRegistry(properties, meterRegistry.getIfAvailable());
     }
 }
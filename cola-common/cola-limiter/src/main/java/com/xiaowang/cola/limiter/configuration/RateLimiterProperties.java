@@ -0,0 +1,92 @@
+package com.xiaowang.cola.limiter.configuration;
+
+import com.xiaowang.cola.limiter.LimiterType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 限流配置
+ *
+ * @author cola
+ */
+@ConfigurationProperties(prefix = RateLimiterProperties.PREFIX)
+public class RateLimiterProperties {
+    public static final String PREFIX = "spring.limiter";
+
+    /**
+     * 默认注入的 RateLimiter 实现
+     */
+    private LimiterType type = LimiterType.REDIS;
+
+    /**
+     * 本地限流最多保存的key数量
+     */
+    private int localMaxKeys = 100_000;
+
+    /**
+     * 两级限流单次领取的最小令牌数
+     */
+    private int hybridMinBatch = 1;
+
+    /**
+     * 两级限流单次领取的最大令牌数，也是每个节点每个窗口最多浪费的令牌数
+     */
+    private int hybridMaxBatch = 100;
+
+    /**
+     * 两级限流期望的领取间隔，单位毫秒
+     */
+    private long hybridRefillIntervalMillis = 100;
+
+    /**
+     * 两级限流单次最多领取全局剩余额度的 1/hybridBudgetDivisor
+     */
+    private int hybridBudgetDivisor = 4;
+
+    public LimiterType getType() {
+        return type;
+    }
+
+    public void setType(LimiterType type) {
+        this.type = type;
+    }
+
+    public int getLocalMaxKeys() {
+        return localMaxKeys;
+    }
+
+    public void setLocalMaxKeys(int localMaxKeys) {
+        this.localMaxKeys = localMaxKeys;
+    }
+
+    public int getHybridMinBatch() {
+        return hybridMinBatch;
+    }
+
+    public void setHybridMinBatch(int hybridMinBatch) {
+        this.hybridMinBatch = hybridMinBatch;
+    }
+
+    public int getHybridMaxBatch() {
+        return hybridMaxBatch;
+    }
+
+    public void setHybridMaxBatch(int hybridMaxBatch) {
+        this.hybridMaxBatch = hybridMaxBatch;
+    }
+
+    public long getHybridRefillIntervalMillis() {
+        return hybridRefillIntervalMillis;
+    }
+
+    public void setHybridRefillIntervalMillis(long hybridRefillIntervalMillis) {
+        this.hybridRefillIntervalMillis = hybridRefillIntervalMillis;
+    }
+
+    public int getHybridBudgetDivisor() {
+        return hybridBudgetDivisor;
+    }
+
+    public void setHybridBudgetDivisor(int hybridBudgetDivisor) {
+        this.hybridBudgetDivisor = hybridBudgetDivisor;
+    }
+}
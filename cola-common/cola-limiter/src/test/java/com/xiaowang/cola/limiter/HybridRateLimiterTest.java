@@ -0,0 +1,78 @@
+package com.xiaowang.cola.limiter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author cola
+ */
+public class HybridRateLimiterTest {
+
+    /**
+     * 用内存计数模拟 Redis 中的全局额度，窗口足够长，测试期间不会切换
+     */
+    private final AtomicLong used = new AtomicLong();
+
+    private final AtomicInteger redisCalls = new AtomicInteger();
+
+    private HybridRateLimiter newNode(int maxBatch) {
+        return new HybridRateLimiter(null, 1, maxBatch, 100, 4, 1000) {
+            @Override
+            long[] grant(String key, int limit, int want, long windowMillis) {
+                redisCalls.incrementAndGet();
+                synchronized (used) {
+                    long granted = Math.max(0, Math.min(want, limit - used.get()));
+                    used.addAndGet(granted);
+                    return new long[]{granted, limit - used.get(), windowMillis};
+                }
+            }
+        };
+    }
+
+    @Test
+    public void neverExceedsGlobalLimit() {
+        HybridRateLimiter node1 = newNode(50);
+        HybridRateLimiter node2 = newNode(50);
+        int passed = 0;
+        for (int i = 0; i < 5000; i++) {
+            if (node1.tryAcquire("global", 1000, 3600)) {
+                passed++;
+            }
+            if (node2.tryAcquire("global", 1000, 3600)) {
+                passed++;
+            }
+        }
+        Assertions.assertTrue(passed <= 1000);
+        // 每个节点最多浪费一个批量
+        Assertions.assertTrue(passed >= 1000 - 2 * 50, "passed " + passed);
+        Assertions.assertEquals(1000, used.get());
+    }
+
+    @Test
+    public void batchesReduceRedisCalls() {
+        HybridRateLimiter node = newNode(100);
+        for (int i = 0; i < 100_000; i++) {
+            node.tryAcquire("busy", 1_000_000, 3600);
+        }
+        Assertions.assertTrue(redisCalls.get() < 100_000 / 10, "redis calls " + redisCalls.get());
+    }
+
+    @Test
+    public void exhaustedBudgetRejectsLocally() {
+        HybridRateLimiter node = newNode(10);
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(node.tryAcquire("small", 10, 3600));
+        }
+        int calls = redisCalls.get();
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertFalse(node.tryAcquire("small", 10, 3600));
+        }
+        RateLimitResult result = node.acquire("small", 1, 10, 3600);
+        Assertions.assertFalse(result.isAllowed());
+        Assertions.assertTrue(result.getWaitMillis() > 0);
+        Assertions.assertEquals(calls, redisCalls.get());
+    }
+}
@@ -0,0 +1,66 @@
+package com.xiaowang.cola.limiter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地限流基准测试，分别测试单个热点key和大量分散key的吞吐
+ * <p>
+ * 直接运行 main 方法即可
+ *
+ * @author cola
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalRateLimiterBenchmark {
+
+    private static final String[] KEYS = new String[10_000];
+
+    static {
+        for (int i = 0; i < KEYS.length; i++) {
+            KEYS[i] = "user:" + i;
+        }
+    }
+
+    private final LocalRateLimiter limiter = new LocalRateLimiter(100_000);
+
+    @Benchmark
+    @Threads(1)
+    public boolean singleKeySingleThread() {
+        return limiter.tryAcquire("hot", 1, Integer.MAX_VALUE / 2, 1);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean singleKeyContended() {
+        return limiter.tryAcquire("hot", 1, Integer.MAX_VALUE / 2, 1);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean spreadKeys() {
+        return limiter.tryAcquire(KEYS[ThreadLocalRandom.current().nextInt(KEYS.length)], 100, 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LocalRateLimiterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
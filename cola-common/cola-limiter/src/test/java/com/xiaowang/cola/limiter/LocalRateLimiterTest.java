@@ -0,0 +1,88 @@
+package com.xiaowang.cola.limiter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author cola
+ */
+public class LocalRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+
+    private final LocalRateLimiter limiter = new LocalRateLimiter(1000, clock::get);
+
+    @Test
+    public void limitWithinWindow() {
+        Assertions.assertTrue(limiter.tryAcquire("test", 3, 10));
+        Assertions.assertTrue(limiter.tryAcquire("test", 3, 10));
+        Assertions.assertTrue(limiter.tryAcquire("test", 3, 10));
+        Assertions.assertFalse(limiter.tryAcquire("test", 3, 10));
+        // 其他key不受影响
+        Assertions.assertTrue(limiter.tryAcquire("other", 3, 10));
+
+        // 令牌按 10s/3 的间隔回填
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        Assertions.assertFalse(limiter.tryAcquire("test", 3, 10));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(400));
+        Assertions.assertTrue(limiter.tryAcquire("test", 3, 10));
+        Assertions.assertFalse(limiter.tryAcquire("test", 3, 10));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        Assertions.assertTrue(limiter.tryAcquire("test", 3, 10));
+    }
+
+    @Test
+    public void acquireMultiplePermits() {
+        Assertions.assertFalse(limiter.tryAcquire("batch", 6, 5, 1));
+        Assertions.assertTrue(limiter.tryAcquire("batch", 4, 5, 1));
+        Assertions.assertFalse(limiter.tryAcquire("batch", 2, 5, 1));
+        Assertions.assertTrue(limiter.tryAcquire("batch", 1, 5, 1));
+        Assertions.assertFalse(limiter.tryAcquire("batch", 1, 5, 1));
+    }
+
+    @Test
+    public void rejectedResultCarriesWaitTime() {
+        Assertions.assertTrue(limiter.acquire("wait", 2, 2, 10).isAllowed());
+        RateLimitResult result = limiter.acquire("wait", 1, 2, 10);
+        Assertions.assertFalse(result.isAllowed());
+        Assertions.assertEquals(5000, result.getWaitMillis());
+        Assertions.assertEquals(5, result.getRetryAfterSeconds());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(result.getWaitMillis()));
+        Assertions.assertTrue(limiter.acquire("wait", 1, 2, 10).isAllowed());
+    }
+
+    @Test
+    public void idleKeysAreEvicted() {
+        limiter.tryAcquire("idle", 1, 1);
+        Assertions.assertEquals(1, limiter.size());
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        Assertions.assertEquals(0, limiter.size());
+        Assertions.assertTrue(limiter.tryAcquire("idle", 1, 1));
+    }
+
+    @Test
+    public void concurrentAcquireNeverExceedsLimit() throws Exception {
+        AtomicInteger passed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    if (limiter.tryAcquire("concurrent", 1000, 60)) {
+                        passed.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(1000, passed.get());
+    }
+}
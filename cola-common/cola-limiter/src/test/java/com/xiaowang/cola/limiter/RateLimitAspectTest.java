@@ -0,0 +1,69 @@
+package com.xiaowang.cola.limiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.Map;
+
+/**
+ * @author cola
+ */
+public class RateLimitAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RateLimitAspect aspect;
+
+    private LimitedService service;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        aspect = new RateLimitAspect(Map.of(LimiterType.LOCAL, new LocalRateLimiter(100)), meterRegistry);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new LimitedService());
+        factory.addAspect(aspect);
+        service = factory.getProxy();
+    }
+
+    @Test
+    public void limitPerExpressionKey() {
+        Assertions.assertEquals("ok:1", service.query(1L));
+        Assertions.assertEquals("ok:1", service.query(1L));
+        RateLimitException exception = Assertions.assertThrows(RateLimitException.class, () -> service.query(1L));
+        Assertions.assertTrue(exception.getResult().getWaitMillis() > 0);
+        // 不同的key互不影响
+        Assertions.assertEquals("ok:2", service.query(2L));
+
+        RateLimitAspect.RateLimitStats stats = aspect.getStats().get("query");
+        Assertions.assertEquals(3, stats.getAllowed());
+        Assertions.assertEquals(1, stats.getRejected());
+        Assertions.assertEquals(1.0, meterRegistry.get("cola.limiter.requests").tag("scene", "query").tag("result", "rejected")
+                .functionCounter().count());
+    }
+
+    @Test
+    public void fallbackReceivesResult() {
+        Assertions.assertEquals("ok:a", service.fixedKey("a"));
+        Assertions.assertTrue(service.fixedKey("b").startsWith("busy:b:"));
+    }
+
+    public static class LimitedService {
+
+        @RateLimit(scene = "query", keyExpression = "#userId", limit = 2, windowSize = 60, type = LimiterType.LOCAL)
+        public String query(Long userId) {
+            return "ok:" + userId;
+        }
+
+        @RateLimit(scene = "fixed", key = "all", limit = 1, windowSize = 60, type = LimiterType.LOCAL, fallback = "busy")
+        public String fixedKey(String name) {
+            return "ok:" + name;
+        }
+
+        private String busy(String name, RateLimitResult result) {
+            return "busy:" + name + ":" + result.getRetryAfterSeconds();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.xiaowang.cola.limiter.adaptive;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author cola
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", new AdaptiveConcurrencyProperties(), clock::get);
+
+    @Test
+    public void rejectWhenInFlightReachesLimit() {
+        List<AdaptiveConcurrencyLimiter.Token> tokens = new ArrayList<>();
+        for (int i = 0; i < limiter.getLimit(); i++) {
+            tokens.add(limiter.tryAcquire());
+        }
+        Assertions.assertNull(limiter.tryAcquire());
+        tokens.get(0).onIgnore();
+        Assertions.assertNotNull(limiter.tryAcquire());
+    }
+
+    @Test
+    public void limitGrowsWhenLatencyIsStable() {
+        int initial = limiter.getLimit();
+        runWindows(50, 10);
+        Assertions.assertTrue(limiter.getLimit() > initial, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    public void limitShrinksWhenLatencyDegrades() {
+        runWindows(50, 10);
+        int healthy = limiter.getLimit();
+        runWindows(50, 100);
+        Assertions.assertTrue(limiter.getLimit() < healthy / 2, "healthy " + healthy + " degraded " + limiter.getLimit());
+        Assertions.assertTrue(limiter.getLimit() >= new AdaptiveConcurrencyProperties().getMinLimit());
+    }
+
+    @Test
+    public void droppedRequestsBackOff() {
+        runWindows(20, 10);
+        int before = limiter.getLimit();
+        for (int w = 0; w < 20; w++) {
+            List<AdaptiveConcurrencyLimiter.Token> tokens = acquireAll();
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+            tokens.forEach(AdaptiveConcurrencyLimiter.Token::onDropped);
+        }
+        Assertions.assertTrue(limiter.getLimit() < before);
+    }
+
+    /**
+     * 每个窗口把并发打满，请求耗时 rttMillis
+     */
+    private void runWindows(int windows, long rttMillis) {
+        for (int w = 0; w < windows; w++) {
+            long windowEnd = clock.get() + TimeUnit.MILLISECONDS.toNanos(500);
+            while (clock.get() < windowEnd) {
+                List<AdaptiveConcurrencyLimiter.Token> tokens = acquireAll();
+                clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(rttMillis));
+                tokens.forEach(AdaptiveConcurrencyLimiter.Token::onSuccess);
+            }
+        }
+    }
+
+    private List<AdaptiveConcurrencyLimiter.Token> acquireAll() {
+        List<AdaptiveConcurrencyLimiter.Token> tokens = new ArrayList<>();
+        AdaptiveConcurrencyLimiter.Token token;
+        while ((token = limiter.tryAcquire()) != null) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+}
@@ -53,4 +53,42 @@ public @interface DistributeLock {
      * @return
      */
     public int waitTime() default DistributeLockConstant.DEFAULT_WAIT_TIME;
+
+    /**
+     * 是否本地优先：同一节点的线程先在本地排队，只有队首线程去竞争 Redis 锁
+     *
+     * @return
+     */
+    public boolean localFirst() default false;
+
+    /**
+     * 本地优先模式下，Redis 锁在本地排队线程之间最多保留多久，毫秒
+     * 默认为0，每次解锁都释放 Redis 锁
+     *
+     * @return
+     */
+    public int handoffTime() default 0;
+
+    /**
+     * 锁模式，默认为 Redisson 可重入锁
+     * <pre>
+     *     LEASE 模式不设置 expireTime 时使用 DEFAULT_LEASE_TIME
+     *     MULTI 模式 keyExpression 可以返回集合或数组，key() 可以用逗号分隔多个key
+     *     localFirst 只对 REENTRANT 模式生效
+     *     同一个场景的锁只能使用一种模式
+     * </pre>
+     *
+     * @return
+     */
+    public LockMode mode() default LockMode.REENTRANT;
+
+    /**
+     * 是否分配栅栏令牌，方法内通过 FencingTokenHolder.current() 获取
+     * LEASE 模式总是分配，MULTI 模式不支持
+     * 令牌计数器每次加锁时续期 7 天，同一个key超过 7 天没有加锁时计数器过期、令牌从 1 重新开始，
+     * 所以持锁时间（包括看门狗续期）和下游保存令牌的有效期都需要远小于 7 天
+     *
+     * @return
+     */
+    public boolean fencing() default false;
 }
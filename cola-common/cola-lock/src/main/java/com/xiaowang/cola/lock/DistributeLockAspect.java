@@ -1,5 +1,8 @@
 package com.xiaowang.cola.lock;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -12,109 +15,350 @@ import org.springframework.core.StandardReflectionParameterNameDiscoverer;
 import org.springframework.core.annotation.Order;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 分布式锁切面
+ * <pre>
+ *     1、注解、编译后的SPEL表达式和参数名按 Method 缓存，加锁路径上不再重复解析
+ *     2、存在 MeterRegistry 时按场景记录等锁耗时、持锁耗时和加锁失败次数
+ *     3、localFirst 为 true 时使用本地优先的两级锁，见 LocalFirstLock
+ *     4、按 mode 选择可重入锁、租约锁、读写锁或多key锁，见 LockMode；分配的栅栏令牌见 FencingTokenHolder
+ * </pre>
  *
  * @author cola
  */
 @Aspect
 @Component
-@Order(Integer.MIN_VALUE + 1)
+@Order(Integer.MIN_VALUE + 3)
 public class DistributeLockAspect {
 
     private RedissonClient redissonClient;
 
+    private MeterRegistry meterRegistry;
+
+    private final SpelExpressionParser parser = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, DistributeLockAspect.class.getClassLoader()));
+
+    private final StandardReflectionParameterNameDiscoverer discoverer = new StandardReflectionParameterNameDiscoverer();
+
+    private final Map<Method, LockMetadata> metadataCache = new ConcurrentHashMap<>();
+
+    private final Map<String, LockMeters> metersCache = new ConcurrentHashMap<>();
+
+    private LocalFirstLock localFirstLock;
+
+    private LeaseLock leaseLock;
+
     public DistributeLockAspect(RedissonClient redissonClient) {
         this.redissonClient = redissonClient;
+        this.localFirstLock = new LocalFirstLock(redissonClient);
+        this.leaseLock = new LeaseLock(redissonClient);
+    }
+
+    public DistributeLockAspect(RedissonClient redissonClient, MeterRegistry meterRegistry) {
+        this(redissonClient);
+        this.meterRegistry = meterRegistry;
     }
 
     private static final Logger LOG = LoggerFactory.getLogger(DistributeLockAspect.class);
 
     @Around("@annotation(com.xiaowang.cola.lock.DistributeLock)")
     public Object process(ProceedingJoinPoint pjp) throws Exception {
-        Object response = null;
         Method method = ((MethodSignature) pjp.getSignature()).getMethod();
-        DistributeLock distributeLock = method.getAnnotation(DistributeLock.class);
+        LockMetadata metadata = metadataCache.computeIfAbsent(method, this::resolve);
+        DistributeLock distributeLock = metadata.distributeLock;
 
-        String key = distributeLock.key();
-        if (DistributeLockConstant.NONE_KEY.equals(key)) {
-            if (DistributeLockConstant.NONE_KEY.equals(distributeLock.keyExpression())) {
-                throw new DistributeLockException("no lock key found...");
+        switch (distributeLock.mode()) {
+            case LEASE:
+                return processLease(pjp, metadata, metadata.lockKey(pjp.getArgs()));
+            case READ: {
+                String lockKey = metadata.lockKey(pjp.getArgs());
+                return processRLock(pjp, metadata, lockKey, redissonClient.getReadWriteLock(lockKey).readLock(), true);
             }
-            SpelExpressionParser parser = new SpelExpressionParser();
-            Expression expression = parser.parseExpression(distributeLock.keyExpression());
-
-            EvaluationContext context = new StandardEvaluationContext();
-            // 获取参数值
-            Object[] args = pjp.getArgs();
-
-            // 获取运行时参数的名称
-            StandardReflectionParameterNameDiscoverer discoverer
-                    = new StandardReflectionParameterNameDiscoverer();
-            String[] parameterNames = discoverer.getParameterNames(method);
-
-            // 将参数绑定到context中
-            if (parameterNames != null) {
-                for (int i = 0; i < parameterNames.length; i++) {
-                    context.setVariable(parameterNames[i], args[i]);
+            case WRITE: {
+                String lockKey = metadata.lockKey(pjp.getArgs());
+                return processRLock(pjp, metadata, lockKey, redissonClient.getReadWriteLock(lockKey).writeLock(), true);
+            }
+            case MULTI: {
+                List<String> lockKeys = metadata.lockKeys(pjp.getArgs());
+                RLock[] locks = new RLock[lockKeys.size()];
+                for (int i = 0; i < locks.length; i++) {
+                    locks[i] = redissonClient.getLock(lockKeys.get(i));
                 }
+                // MultiLock 不支持 isHeldByCurrentThread，按加锁结果决定是否解锁
+                return processRLock(pjp, metadata, lockKeys.toString(), redissonClient.getMultiLock(locks), false);
+            }
+            default: {
+                String lockKey = metadata.lockKey(pjp.getArgs());
+                if (distributeLock.localFirst()) {
+                    return processLocalFirst(pjp, metadata, lockKey);
+                }
+                return processRLock(pjp, metadata, lockKey, redissonClient.getLock(lockKey), true);
             }
-
-            // 解析表达式，获取结果
-            key = String.valueOf(expression.getValue(context));
         }
+    }
 
-        String scene = distributeLock.scene();
-
-        String lockKey = scene + "#" + key;
-
+    private Object processRLock(ProceedingJoinPoint pjp, LockMetadata metadata, String lockKey, RLock rLock,
+                                boolean checkHeld) throws Exception {
+        DistributeLock distributeLock = metadata.distributeLock;
         int expireTime = distributeLock.expireTime();
         int waitTime = distributeLock.waitTime();
-        RLock rLock= redissonClient.getLock(lockKey);
+        LockMeters meters = metadata.meters;
+        boolean fencing = distributeLock.fencing() && distributeLock.mode() != LockMode.MULTI;
+        boolean lockResult = false;
+        boolean tokenBound = false;
+        Long previousToken = null;
+        long lockedAt = 0;
         try {
-            boolean lockResult = false;
+            long waitStart = System.nanoTime();
             if (waitTime == DistributeLockConstant.DEFAULT_WAIT_TIME) {
                 if (expireTime == DistributeLockConstant.DEFAULT_EXPIRE_TIME) {
-                    LOG.info(String.format("lock for key : %s", lockKey));
+                    LOG.debug("lock for key : {}", lockKey);
                     rLock.lock();
                 } else {
-                    LOG.info(String.format("lock for key : %s , expire : %s", lockKey, expireTime));
+                    LOG.debug("lock for key : {} , expire : {}", lockKey, expireTime);
                     rLock.lock(expireTime, TimeUnit.MILLISECONDS);
                 }
                 lockResult = true;
             } else {
                 if (expireTime == DistributeLockConstant.DEFAULT_EXPIRE_TIME) {
-                    LOG.info(String.format("try lock for key : %s , wait : %s", lockKey, waitTime));
+                    LOG.debug("try lock for key : {} , wait : {}", lockKey, waitTime);
                     lockResult = rLock.tryLock(waitTime, TimeUnit.MILLISECONDS);
                 } else {
-                    LOG.info(String.format("try lock for key : %s , expire : %s , wait : %s", lockKey, expireTime, waitTime));
+                    LOG.debug("try lock for key : {} , expire : {} , wait : {}", lockKey, expireTime, waitTime);
                     lockResult = rLock.tryLock(waitTime, expireTime, TimeUnit.MILLISECONDS);
                 }
             }
+            lockedAt = System.nanoTime();
+            if (meters != null) {
+                meters.waitTimer.record(lockedAt - waitStart, TimeUnit.NANOSECONDS);
+            }
 
             if (!lockResult) {
-                LOG.warn(String.format("lock failed for key : %s , expire : %s", lockKey, expireTime));
+                if (meters != null) {
+                    meters.failedCounter.increment();
+                }
+                LOG.warn("lock failed for key : {} , expire : {}", lockKey, expireTime);
                 throw new DistributeLockException("acquire lock failed... key : " + lockKey);
             }
 
+            if (fencing) {
+                long token = FencingTokenHolder.nextToken(redissonClient, lockKey);
+                previousToken = FencingTokenHolder.bind(token);
+                tokenBound = true;
+            }
 
-            LOG.info(String.format("lock success for key : %s , expire : %s", lockKey, expireTime));
-            response = pjp.proceed();
+            LOG.debug("lock success for key : {} , expire : {}", lockKey, expireTime);
+            return pjp.proceed();
         } catch (Throwable e) {
             throw new Exception(e);
         } finally {
-            if (rLock.isHeldByCurrentThread()) {
+            if (tokenBound) {
+                FencingTokenHolder.restore(previousToken);
+            }
+            if (lockResult && (!checkHeld || rLock.isHeldByCurrentThread())) {
                 rLock.unlock();
-                LOG.info(String.format("unlock for key : %s , expire : %s", lockKey, expireTime));
+                if (meters != null) {
+                    meters.holdTimer.record(System.nanoTime() - lockedAt, TimeUnit.NANOSECONDS);
+                }
+                LOG.debug("unlock for key : {} , expire : {}", lockKey, expireTime);
+            }
+        }
+    }
+
+    private Object processLease(ProceedingJoinPoint pjp, LockMetadata metadata, String lockKey) throws Exception {
+        DistributeLock distributeLock = metadata.distributeLock;
+        long waitTime = distributeLock.waitTime() == DistributeLockConstant.DEFAULT_WAIT_TIME ? -1 : distributeLock.waitTime();
+        long expireTime = distributeLock.expireTime() == DistributeLockConstant.DEFAULT_EXPIRE_TIME
+                ? DistributeLockConstant.DEFAULT_LEASE_TIME : distributeLock.expireTime();
+        LockMeters meters = metadata.meters;
+        LeaseLock.Lease lease = null;
+        Long previousToken = null;
+        long lockedAt = 0;
+        try {
+            LOG.debug("lease lock for key : {} , expire : {} , wait : {}", lockKey, expireTime, waitTime);
+            long waitStart = System.nanoTime();
+            lease = leaseLock.tryLock(lockKey, waitTime, expireTime);
+            lockedAt = System.nanoTime();
+            if (meters != null) {
+                meters.waitTimer.record(lockedAt - waitStart, TimeUnit.NANOSECONDS);
+            }
+
+            if (lease == null) {
+                if (meters != null) {
+                    meters.failedCounter.increment();
+                }
+                LOG.warn("lock failed for key : {} , expire : {}", lockKey, expireTime);
+                throw new DistributeLockException("acquire lock failed... key : " + lockKey);
+            }
+
+            previousToken = FencingTokenHolder.bind(lease.fencingToken());
+            LOG.debug("lock success for key : {} , expire : {} , fencing token : {}", lockKey, expireTime, lease.fencingToken());
+            return pjp.proceed();
+        } catch (Throwable e) {
+            throw new Exception(e);
+        } finally {
+            if (lease != null) {
+                FencingTokenHolder.restore(previousToken);
+                if (!leaseLock.unlock(lease)) {
+                    LOG.warn("lease expired before unlock for key : {} , expire : {}", lockKey, expireTime);
+                }
+                if (meters != null) {
+                    meters.holdTimer.record(System.nanoTime() - lockedAt, TimeUnit.NANOSECONDS);
+                }
+                LOG.debug("unlock for key : {} , expire : {}", lockKey, expireTime);
+            }
+        }
+    }
+
+    private Object processLocalFirst(ProceedingJoinPoint pjp, LockMetadata metadata, String lockKey) throws Exception {
+        DistributeLock distributeLock = metadata.distributeLock;
+        long waitTime = distributeLock.waitTime() == DistributeLockConstant.DEFAULT_WAIT_TIME ? -1 : distributeLock.waitTime();
+        long expireTime = distributeLock.expireTime();
+        LockMeters meters = metadata.meters;
+        LocalFirstLock.Entry entry = null;
+        long lockedAt = 0;
+        try {
+            LOG.debug("local first lock for key : {} , expire : {} , wait : {}", lockKey, expireTime, waitTime);
+            long waitStart = System.nanoTime();
+            entry = localFirstLock.lock(lockKey, waitTime, expireTime);
+            lockedAt = System.nanoTime();
+            if (meters != null) {
+                meters.waitTimer.record(lockedAt - waitStart, TimeUnit.NANOSECONDS);
+            }
+
+            if (entry == null) {
+                if (meters != null) {
+                    meters.failedCounter.increment();
+                }
+                LOG.warn("lock failed for key : {} , expire : {}", lockKey, expireTime);
+                throw new DistributeLockException("acquire lock failed... key : " + lockKey);
+            }
+
+            LOG.debug("lock success for key : {} , expire : {}", lockKey, expireTime);
+            return pjp.proceed();
+        } catch (Throwable e) {
+            throw new Exception(e);
+        } finally {
+            if (entry != null) {
+                localFirstLock.unlock(entry, distributeLock.handoffTime());
+                if (meters != null) {
+                    meters.holdTimer.record(System.nanoTime() - lockedAt, TimeUnit.NANOSECONDS);
+                }
+                LOG.debug("unlock for key : {} , expire : {}", lockKey, expireTime);
+            }
+        }
+    }
+
+    /**
+     * 计算方法调用对应的锁key
+     */
+    String resolveLockKey(Method method, Object[] args) {
+        return metadataCache.computeIfAbsent(method, this::resolve).lockKey(args);
+    }
+
+    private LockMetadata resolve(Method method) {
+        DistributeLock distributeLock = method.getAnnotation(DistributeLock.class);
+        Expression expression = null;
+        String[] parameterNames = new String[0];
+        if (DistributeLockConstant.NONE_KEY.equals(distributeLock.key())) {
+            if (DistributeLockConstant.NONE_KEY.equals(distributeLock.keyExpression())) {
+                throw new DistributeLockException("no lock key found...");
+            }
+            expression = parser.parseExpression(distributeLock.keyExpression());
+            String[] names = discoverer.getParameterNames(method);
+            parameterNames = names == null ? parameterNames : names;
+        }
+        LockMeters meters = meterRegistry == null ? null : metersCache.computeIfAbsent(distributeLock.scene(), this::createMeters);
+        return new LockMetadata(distributeLock, expression, parameterNames, meters);
+    }
+
+    private LockMeters createMeters(String scene) {
+        return new LockMeters(
+                Timer.builder("cola.lock.wait").tag("scene", scene).register(meterRegistry),
+                Timer.builder("cola.lock.hold").tag("scene", scene).register(meterRegistry),
+                Counter.builder("cola.lock.failed").tag("scene", scene).register(meterRegistry));
+    }
+
+    private record LockMeters(Timer waitTimer, Timer holdTimer, Counter failedCounter) {
+    }
+
+    private static final class LockMetadata {
+
+        private final DistributeLock distributeLock;
+
+        private final Expression expression;
+
+        private final String[] parameterNames;
+
+        private final LockMeters meters;
+
+        private LockMetadata(DistributeLock distributeLock, Expression expression, String[] parameterNames, LockMeters meters) {
+            this.distributeLock = distributeLock;
+            this.expression = expression;
+            this.parameterNames = parameterNames;
+            this.meters = meters;
+        }
+
+        private String lockKey(Object[] args) {
+            String key = distributeLock.key();
+            if (expression != null) {
+                key = String.valueOf(expression.getValue(context(args)));
+            }
+            return distributeLock.scene() + "#" + key;
+        }
+
+        /**
+         * 多key锁的key列表，排序去重，所有节点按相同顺序加锁
+         */
+        private List<String> lockKeys(Object[] args) {
+            TreeSet<String> keys = new TreeSet<>();
+            if (expression == null) {
+                for (String key : distributeLock.key().split(",")) {
+                    keys.add(distributeLock.scene() + "#" + key.trim());
+                }
+            } else {
+                Object value = expression.getValue(context(args));
+                Iterable<?> values;
+                if (value instanceof Iterable<?> iterable) {
+                    values = iterable;
+                } else if (value instanceof Object[] array) {
+                    values = Arrays.asList(array);
+                } else {
+                    values = Collections.singletonList(value);
+                }
+                for (Object key : values) {
+                    keys.add(distributeLock.scene() + "#" + key);
+                }
+            }
+            if (keys.isEmpty()) {
+                throw new DistributeLockException("no lock key found...");
+            }
+            return new ArrayList<>(keys);
+        }
+
+        private EvaluationContext context(Object[] args) {
+            EvaluationContext context = new StandardEvaluationContext();
+            // 将参数绑定到context中
+            for (int i = 0; i < parameterNames.length; i++) {
+                context.setVariable(parameterNames[i], args[i]);
             }
+            return context;
         }
-        return response;
     }
 }
@@ -14,4 +14,6 @@ public class DistributeLockConstant {
     public static final int DEFAULT_EXPIRE_TIME = -1;
 
     public static final int DEFAULT_WAIT_TIME = Integer.MAX_VALUE;
+
+    public static final int DEFAULT_LEASE_TIME = 30000;
 }
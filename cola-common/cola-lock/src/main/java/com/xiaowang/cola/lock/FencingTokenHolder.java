@@ -0,0 +1,87 @@
+package com.xiaowang.cola.lock;
+
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 栅栏令牌持有者
+ * <pre>
+ *     1、加锁成功后分配一个按锁key单调递增的令牌，绑定到当前线程，方法内通过 current() 获取
+ *     2、写下游存储时带上令牌，下游只接受不小于已见过的最大令牌的写入，
+ *        锁因 GC 停顿、网络抖动等原因过期后，旧持有者的写入会被拒绝
+ *     3、LEASE 模式总是分配令牌，REENTRANT、READ、WRITE 模式需要设置 fencing = true
+ *     4、令牌计数器每次分配令牌时续期 FENCE_EXPIRE_MILLIS，长期不加锁的key的计数器会过期，不会在 Redis 中无限累积
+ * </pre>
+ *
+ * @author cola
+ */
+public final class FencingTokenHolder {
+
+    /**
+     * 没有令牌，令牌从1开始分配
+     */
+    public static final long NONE = 0L;
+
+    /**
+     * 令牌计数器的过期时间，远大于任何持锁时间，计数器过期时不会再有存活的旧持有者，令牌仍然单调递增
+     */
+    static final long FENCE_EXPIRE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    static final String NEXT_TOKEN_SCRIPT = """
+            local token = redis.call('incr', KEYS[1])
+            redis.call('pexpire', KEYS[1], ARGV[1])
+            return token
+            """;
+
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private FencingTokenHolder() {
+    }
+
+    /**
+     * 当前线程持有的令牌
+     *
+     * @return 没有令牌时返回 NONE
+     */
+    public static long current() {
+        Long token = CURRENT.get();
+        return token == null ? NONE : token;
+    }
+
+    /**
+     * 绑定令牌，返回之前绑定的令牌，用于嵌套加锁结束后恢复
+     */
+    static Long bind(long token) {
+        Long previous = CURRENT.get();
+        CURRENT.set(token);
+        return previous;
+    }
+
+    static void restore(Long previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * 令牌计数器的key，与租约锁的key在同一个 slot
+     */
+    static String fenceKey(String lockKey) {
+        return "{" + lockKey + "}:fence";
+    }
+
+    /**
+     * 分配下一个令牌，同时续期计数器
+     */
+    static long nextToken(RedissonClient redissonClient, String lockKey) {
+        Long token = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, NEXT_TOKEN_SCRIPT,
+                RScript.ReturnType.INTEGER, List.of(fenceKey(lockKey)), String.valueOf(FENCE_EXPIRE_MILLIS));
+        return token == null ? NONE : token;
+    }
+}
@@ -0,0 +1,120 @@
+package com.xiaowang.cola.lock;
+
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 租约锁
+ * <pre>
+ *     1、加锁：一个脚本内 SET key token NX PX lease，成功后对令牌计数器 INCR 并续期，返回栅栏令牌
+ *     2、解锁：脚本内比较 value 与 token，一致才 DEL，避免误删过期后被其他节点重新持有的锁
+ *     3、没有看门狗和 pub/sub 订阅，加锁失败时按指数退避加随机抖动重试，直到超过等待时间
+ *     4、每个加解锁周期只有两次 Redis 往返，适合持锁时间很短、对延迟敏感的场景
+ * </pre>
+ *
+ * @author cola
+ */
+public class LeaseLock {
+
+    static final String ACQUIRE_SCRIPT = """
+            if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+                local fencingToken = redis.call('incr', KEYS[2])
+                redis.call('pexpire', KEYS[2], ARGV[3])
+                return fencingToken
+            end
+            return 0
+            """;
+
+    static final String RELEASE_SCRIPT = """
+            if redis.call('get', KEYS[1]) == ARGV[1] then
+                return redis.call('del', KEYS[1])
+            end
+            return 0
+            """;
+
+    private static final long MIN_BACKOFF_MILLIS = 1;
+
+    private static final long MAX_BACKOFF_MILLIS = 64;
+
+    private final RedissonClient redissonClient;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final AtomicLong tokenSequence = new AtomicLong();
+
+    public LeaseLock(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    /**
+     * 加锁
+     *
+     * @param lockKey     锁的key
+     * @param waitMillis  最长等待时间，小于0表示一直等待
+     * @param leaseMillis 租约时长，到期自动释放
+     * @return 加锁成功返回租约，用于解锁；等待超时返回 null
+     */
+    public Lease tryLock(String lockKey, long waitMillis, long leaseMillis) throws InterruptedException {
+        String key = leaseKey(lockKey);
+        String fenceKey = FencingTokenHolder.fenceKey(lockKey);
+        String token = instanceId + ":" + tokenSequence.incrementAndGet();
+        long deadline = waitMillis < 0 ? Long.MAX_VALUE : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        long backoff = MIN_BACKOFF_MILLIS;
+        while (true) {
+            long fencingToken = acquire(key, fenceKey, token, leaseMillis);
+            if (fencingToken > 0) {
+                return new Lease(key, token, fencingToken);
+            }
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return null;
+            }
+            long sleep = Math.min(remaining, backoff + ThreadLocalRandom.current().nextLong(backoff));
+            TimeUnit.MILLISECONDS.sleep(sleep);
+            backoff = Math.min(backoff << 1, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    /**
+     * 解锁
+     *
+     * @return 锁已过期或被其他持有者占用时返回 false
+     */
+    public boolean unlock(Lease lease) {
+        return release(lease.key(), lease.token());
+    }
+
+    long acquire(String key, String fenceKey, String token, long leaseMillis) {
+        Long result = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, ACQUIRE_SCRIPT,
+                RScript.ReturnType.INTEGER, List.of(key, fenceKey), token, String.valueOf(leaseMillis),
+                String.valueOf(FencingTokenHolder.FENCE_EXPIRE_MILLIS));
+        return result == null ? 0 : result;
+    }
+
+    boolean release(String key, String token) {
+        Long result = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, RELEASE_SCRIPT,
+                RScript.ReturnType.INTEGER, List.of(key), token);
+        return result != null && result > 0;
+    }
+
+    static String leaseKey(String lockKey) {
+        return "{" + lockKey + "}";
+    }
+
+    /**
+     * 租约
+     *
+     * @param key          Redis 中的锁key
+     * @param token        持有者标识
+     * @param fencingToken 栅栏令牌
+     */
+    public record Lease(String key, String token, long fencingToken) {
+    }
+}
@@ -0,0 +1,215 @@
+package com.xiaowang.cola.lock;
+
+import org.redisson.api.RFuture;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 本地优先的两级锁
+ * <pre>
+ *     1、同一节点内竞争同一个key的线程先在本地的公平锁上排队，只有拿到本地锁的线程才去竞争 Redis 锁，
+ *        Redis 上的锁竞争和 pub/sub 唤醒次数与节点数相关，而不是线程数
+ *     2、本地锁按key引用计数，没有线程使用时移除，不同key之间互不影响
+ *     3、Redis 锁以节点内唯一的虚拟线程ID持有，可以在本地线程之间移交：
+ *        释放时如果本地还有线程在排队，且持有时间不超过 handoffMillis，则保留 Redis 锁直接交给下一个本地线程
+ *     4、虚拟线程ID为负数，不会与真实线程ID冲突
+ *     5、同一线程可重入，只有最外层解锁时才会释放或移交 Redis 锁
+ *     6、等待 Redis 锁时被中断，加锁请求完成后立即释放，避免看门狗一直续期
+ * </pre>
+ *
+ * @author cola
+ */
+public class LocalFirstLock {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalFirstLock.class);
+
+    private static final AtomicLong OWNER_SEQUENCE = new AtomicLong();
+
+    private final RedissonClient redissonClient;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public LocalFirstLock(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    /**
+     * 加锁
+     *
+     * @param key         锁的key
+     * @param waitMillis  最长等待时间，小于0表示一直等待
+     * @param leaseMillis 锁的过期时间，小于0表示自动续期
+     * @return 加锁成功返回锁对象，用于解锁；等待超时返回 null
+     */
+    public Entry lock(String key, long waitMillis, long leaseMillis) throws InterruptedException, ExecutionException {
+        long deadline = waitMillis < 0 ? Long.MAX_VALUE : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        Entry entry = entries.compute(key, (k, e) -> {
+            Entry current = e == null ? new Entry(k, -OWNER_SEQUENCE.incrementAndGet()) : e;
+            current.users++;
+            return current;
+        });
+
+        boolean localLocked = false;
+        boolean success = false;
+        try {
+            if (waitMillis < 0) {
+                entry.localLock.lockInterruptibly();
+            } else if (!entry.localLock.tryLock(waitMillis, TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+            localLocked = true;
+
+            if (entry.localLock.getHoldCount() > 1) {
+                // 同一线程重入，Redis 锁由外层持有
+                success = true;
+                return entry;
+            }
+
+            if (entry.redisHeld) {
+                // 上一个本地线程移交过来的 Redis 锁
+                success = true;
+                return entry;
+            }
+
+            RLock rLock = redissonClient.getLock(key);
+            boolean redisLocked;
+            if (waitMillis < 0) {
+                await(entry, rLock.lockAsync(leaseMillis, TimeUnit.MILLISECONDS, entry.ownerId));
+                redisLocked = true;
+            } else {
+                long remaining = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+                redisLocked = await(entry, rLock.tryLockAsync(remaining, leaseMillis, TimeUnit.MILLISECONDS, entry.ownerId));
+            }
+            if (!redisLocked) {
+                return null;
+            }
+            entry.redisHeld = true;
+            entry.redisLockedAt = System.nanoTime();
+            entry.leaseMillis = leaseMillis;
+            success = true;
+            return entry;
+        } finally {
+            if (!success) {
+                if (localLocked) {
+                    entry.localLock.unlock();
+                }
+                release(entry);
+            }
+        }
+    }
+
+    private <T> T await(Entry entry, RFuture<T> future) throws InterruptedException, ExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // 加锁请求已经发出，之后仍可能成功，成功后立即释放
+            future.whenComplete((locked, error) -> {
+                if (error == null && !Boolean.FALSE.equals(locked)) {
+                    redissonClient.getLock(entry.key).unlockAsync(entry.ownerId).whenComplete((r, ex) -> {
+                        if (ex != null) {
+                            LOG.warn("unlock interrupted acquire failed for key : {}", entry.key, ex);
+                        }
+                    });
+                }
+            });
+            throw e;
+        }
+    }
+
+    /**
+     * 解锁
+     *
+     * @param entry         加锁时返回的锁对象
+     * @param handoffMillis Redis 锁最多在本地线程之间保留多久，0 表示每次都释放
+     */
+    public void unlock(Entry entry, long handoffMillis) {
+        try {
+            if (entry.localLock.getHoldCount() == 1 && !shouldHandoff(entry, handoffMillis)) {
+                unlockRedis(entry);
+            }
+        } finally {
+            entry.localLock.unlock();
+            release(entry);
+        }
+    }
+
+    private boolean shouldHandoff(Entry entry, long handoffMillis) {
+        if (handoffMillis <= 0 || !entry.localLock.hasQueuedThreads()) {
+            return false;
+        }
+        long heldMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - entry.redisLockedAt);
+        // 指定了过期时间的锁，保留时间不超过过期时间的一半，避免移交后锁已过期
+        return heldMillis < handoffMillis && (entry.leaseMillis < 0 || heldMillis < entry.leaseMillis / 2);
+    }
+
+    private void release(Entry entry) {
+        boolean[] removed = new boolean[1];
+        entries.computeIfPresent(entry.key, (k, e) -> {
+            if (--e.users == 0) {
+                removed[0] = true;
+                return null;
+            }
+            return e;
+        });
+        // 移交时等待的线程已超时离开，没有线程再使用这个 Redis 锁
+        if (removed[0] && entry.redisHeld) {
+            unlockRedis(entry);
+        }
+    }
+
+    private void unlockRedis(Entry entry) {
+        if (!entry.redisHeld) {
+            return;
+        }
+        entry.redisHeld = false;
+        try {
+            redissonClient.getLock(entry.key).unlockAsync(entry.ownerId).get();
+        } catch (Exception e) {
+            LOG.warn("unlock failed for key : {}", entry.key, e);
+        }
+    }
+
+    /**
+     * 当前本地持有锁对象的key数量
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * 本地锁对象
+     */
+    public static final class Entry {
+
+        private final String key;
+
+        private final long ownerId;
+
+        private final ReentrantLock localLock = new ReentrantLock(true);
+
+        /**
+         * 使用该对象的线程数，由 entries 的 compute 保护
+         */
+        private int users;
+
+        private volatile boolean redisHeld;
+
+        private volatile long redisLockedAt;
+
+        private volatile long leaseMillis;
+
+        private Entry(String key, long ownerId) {
+            this.key = key;
+            this.ownerId = ownerId;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.xiaowang.cola.lock;
+
+/**
+ * 分布式锁模式
+ *
+ * @author cola
+ */
+public enum LockMode {
+
+    /**
+     * Redisson 可重入锁，不设置 expireTime 时由看门狗自动续期
+     */
+    REENTRANT,
+
+    /**
+     * 租约锁：SET NX PX 加锁，校验持有者后再删除，没有看门狗和 pub/sub，每次加解锁各一次往返。
+     * 不可重入，业务耗时必须小于 expireTime
+     */
+    LEASE,
+
+    /**
+     * 读锁，与写锁互斥，读锁之间共享
+     */
+    READ,
+
+    /**
+     * 写锁，与读锁、写锁都互斥
+     */
+    WRITE,
+
+    /**
+     * 多key锁：keyExpression 返回集合或数组，所有key排序去重后一次性加锁，避免交叉加锁导致的死锁
+     */
+    MULTI
+}
@@ -1,7 +1,9 @@
 package com.xiaowang.cola.lock.config;
 
 import com.xiaowang.cola.lock.DistributeLockAspect;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,7 +16,7 @@ public class DistributeLockConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public DistributeLockAspect distributeLockAspect(RedissonClient redisson){
-        return new DistributeLockAspect(redisson);
+    public DistributeLockAspect distributeLockAspect(RedissonClient redisson, ObjectProvider<MeterRegistry> meterRegistry){
+        return new DistributeLockAspect(redisson, meterRegistry.getIfAvailable());
     }
 }
@@ -0,0 +1,107 @@
+package com.xiaowang.cola.lock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.StandardReflectionParameterNameDiscoverer;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式锁切面开销基准测试，对比每次解析表达式和按方法缓存编译后表达式的锁key计算耗时
+ * <p>
+ * 直接运行 main 方法即可
+ *
+ * @author cola
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class DistributeLockAspectBenchmark {
+
+    private final DistributeLockAspect aspect = new DistributeLockAspect(null);
+
+    private final Method method;
+
+    private final Object[] args = {new RegisterParam("13800000000", "inviter")};
+
+    public DistributeLockAspectBenchmark() {
+        try {
+            method = DistributeLockAspectBenchmark.class.getDeclaredMethod("register", RegisterParam.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @DistributeLock(scene = "USER_REGISTER", keyExpression = "#param.telephone")
+    public void register(RegisterParam param) {
+    }
+
+    /**
+     * 优化前的实现：每次调用都新建解析器、解析表达式、反射获取参数名
+     */
+    @Benchmark
+    public String parseEveryCall() {
+        DistributeLock distributeLock = method.getAnnotation(DistributeLock.class);
+        SpelExpressionParser parser = new SpelExpressionParser();
+        Expression expression = parser.parseExpression(distributeLock.keyExpression());
+        EvaluationContext context = new StandardEvaluationContext();
+        String[] parameterNames = new StandardReflectionParameterNameDiscoverer().getParameterNames(method);
+        for (int i = 0; i < parameterNames.length; i++) {
+            context.setVariable(parameterNames[i], args[i]);
+        }
+        String key = String.valueOf(expression.getValue(context));
+        String lockKey = distributeLock.scene() + "#" + key;
+        String.format("lock for key : %s", lockKey);
+        String.format("lock success for key : %s , expire : %s", lockKey, distributeLock.expireTime());
+        return lockKey;
+    }
+
+    @Benchmark
+    public String cachedMetadata() {
+        return aspect.resolveLockKey(method, args);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DistributeLockAspectBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    public static class RegisterParam {
+
+        private final String telephone;
+
+        private final String inviteCode;
+
+        public RegisterParam(String telephone, String inviteCode) {
+            this.telephone = telephone;
+            this.inviteCode = inviteCode;
+        }
+
+        public String getTelephone() {
+            return telephone;
+        }
+
+        public String getInviteCode() {
+            return inviteCode;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.xiaowang.cola.lock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.redisson.Redisson;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.redisnode.RedisNode;
+import org.redisson.api.redisnode.RedisNodes;
+import org.redisson.config.Config;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不同锁模式的加解锁基准测试，对比吞吐量和每个加解锁周期的 Redis 命令数
+ * <pre>
+ *     1、需要一个独占的 Redis，地址通过 -Dredis.address 指定，默认 redis://127.0.0.1:6379
+ *     2、每轮迭代结束时根据 INFO stats 的 total_commands_processed 增量计算每个周期的命令数，
+ *        脚本内执行的命令也会计入
+ *     3、单线程无竞争，反映的是锁本身的开销
+ * </pre>
+ * 直接运行 main 方法即可
+ *
+ * @author cola
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(1)
+@Fork(1)
+public class DistributeLockModeBenchmark {
+
+    private static final String LOCK_KEY = "BENCHMARK#1";
+
+    @Param({"REENTRANT", "LEASE", "READ", "WRITE", "MULTI"})
+    private LockMode mode;
+
+    private RedissonClient redissonClient;
+
+    private LeaseLock leaseLock;
+
+    private RLock rLock;
+
+    private long cycles;
+
+    private long commandsBefore;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Config config = new Config();
+        config.useSingleServer().setAddress(System.getProperty("redis.address", "redis://127.0.0.1:6379"));
+        redissonClient = Redisson.create(config);
+        leaseLock = new LeaseLock(redissonClient);
+        rLock = switch (mode) {
+            case READ -> redissonClient.getReadWriteLock(LOCK_KEY).readLock();
+            case WRITE -> redissonClient.getReadWriteLock(LOCK_KEY).writeLock();
+            case MULTI -> redissonClient.getMultiLock(redissonClient.getLock(LOCK_KEY),
+                    redissonClient.getLock("BENCHMARK#2"), redissonClient.getLock("BENCHMARK#3"));
+            default -> redissonClient.getLock(LOCK_KEY);
+        };
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        cycles = 0;
+        commandsBefore = totalCommands();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        // 扣除本次 INFO 命令本身
+        long commands = totalCommands() - commandsBefore - 1;
+        System.out.printf("%n%s redis commands per lock cycle : %.2f%n", mode, cycles == 0 ? 0 : (double) commands / cycles);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        redissonClient.shutdown();
+    }
+
+    @Benchmark
+    public long lockCycle() throws InterruptedException {
+        cycles++;
+        if (mode == LockMode.LEASE) {
+            LeaseLock.Lease lease = leaseLock.tryLock(LOCK_KEY, -1, DistributeLockConstant.DEFAULT_LEASE_TIME);
+            leaseLock.unlock(lease);
+            return lease.fencingToken();
+        }
+        // 固定过期时间，避免看门狗续期的命令计入
+        rLock.lock(DistributeLockConstant.DEFAULT_LEASE_TIME, TimeUnit.MILLISECONDS);
+        rLock.unlock();
+        return cycles;
+    }
+
+    private long totalCommands() {
+        RedisNode node = redissonClient.getRedisNodes(RedisNodes.SINGLE).getInstance();
+        return Long.parseLong(node.info(RedisNode.InfoSection.STATS).get("total_commands_processed"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DistributeLockModeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,82 @@
+package com.xiaowang.cola.lock;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @author cola
+ */
+public class FencingTokenTest {
+
+    private static final Pattern INCR = Pattern.compile("redis\\.call\\('incr', KEYS\\[(\\d)]\\)");
+
+    private static final Pattern PEXPIRE = Pattern.compile("redis\\.call\\('pexpire', KEYS\\[(\\d)], ARGV\\[(\\d)]\\)");
+
+    /**
+     * 模拟 Redis 中计数器的值和 TTL，按脚本里的 incr / pexpire 调用更新
+     */
+    private final Map<String, Long> counters = new HashMap<>();
+
+    private final Map<String, Long> ttls = new HashMap<>();
+
+    private RedissonClient redissonClient;
+
+    @BeforeEach
+    public void setUp() {
+        RScript script = Mockito.mock(RScript.class);
+        Mockito.when(script.eval(Mockito.any(RScript.Mode.class), Mockito.anyString(), Mockito.any(RScript.ReturnType.class),
+                Mockito.anyList(), Mockito.any(Object[].class))).thenAnswer(invocation -> {
+            String lua = invocation.getArgument(1);
+            List<Object> keys = invocation.getArgument(3);
+            Object[] args = invocation.getRawArguments().length > 4 ? (Object[]) invocation.getRawArguments()[4] : new Object[0];
+
+            Matcher incr = INCR.matcher(lua);
+            Assertions.assertTrue(incr.find());
+            String fenceKey = (String) keys.get(Integer.parseInt(incr.group(1)) - 1);
+            long token = counters.merge(fenceKey, 1L, Long::sum);
+            // 每次 INCR 都会把 TTL 清掉，只有脚本里显式 PEXPIRE 才会重新设置
+            ttls.remove(fenceKey);
+
+            Matcher pexpire = PEXPIRE.matcher(lua);
+            while (pexpire.find()) {
+                String key = (String) keys.get(Integer.parseInt(pexpire.group(1)) - 1);
+                ttls.put(key, Long.parseLong((String) args[Integer.parseInt(pexpire.group(2)) - 1]));
+            }
+            return token;
+        });
+        redissonClient = Mockito.mock(RedissonClient.class);
+        Mockito.when(redissonClient.getScript(StringCodec.INSTANCE)).thenReturn(script);
+    }
+
+    @Test
+    public void reentrantFenceKeyHasTtl() {
+        Assertions.assertEquals(1L, FencingTokenHolder.nextToken(redissonClient, "order:1"));
+        Assertions.assertEquals(2L, FencingTokenHolder.nextToken(redissonClient, "order:1"));
+
+        Assertions.assertEquals(FencingTokenHolder.FENCE_EXPIRE_MILLIS, ttls.get(FencingTokenHolder.fenceKey("order:1")));
+    }
+
+    @Test
+    public void leaseFenceKeyHasTtl() throws InterruptedException {
+        LeaseLock leaseLock = new LeaseLock(redissonClient);
+        LeaseLock.Lease lease = leaseLock.tryLock("order:2", 0, 100);
+
+        Assertions.assertEquals(1L, lease.fencingToken());
+        String fenceKey = FencingTokenHolder.fenceKey("order:2");
+        Assertions.assertEquals(FencingTokenHolder.FENCE_EXPIRE_MILLIS, ttls.get(fenceKey));
+        // 计数器的 TTL 远大于租约，不能和锁key一起过期
+        Assertions.assertFalse(ttls.containsKey(LeaseLock.leaseKey("order:2")));
+        Assertions.assertTrue(FencingTokenHolder.FENCE_EXPIRE_MILLIS > 100);
+    }
+}
@@ -0,0 +1,134 @@
+package com.xiaowang.cola.lock;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.misc.CompletableFutureWrapper;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author cola
+ */
+public class LocalFirstLockTest {
+
+    private static final String KEY = "cola:lock:test";
+
+    private RLock rLock;
+
+    private LocalFirstLock lock;
+
+    @BeforeEach
+    public void setUp() {
+        rLock = Mockito.mock(RLock.class);
+        RedissonClient redissonClient = Mockito.mock(RedissonClient.class);
+        Mockito.when(redissonClient.getLock(Mockito.anyString())).thenReturn(rLock);
+        Mockito.when(rLock.tryLockAsync(Mockito.anyLong(), Mockito.anyLong(), Mockito.any(TimeUnit.class), Mockito.anyLong()))
+                .thenReturn(new CompletableFutureWrapper<>(Boolean.TRUE));
+        Mockito.when(rLock.lockAsync(Mockito.anyLong(), Mockito.any(TimeUnit.class), Mockito.anyLong()))
+                .thenReturn(new CompletableFutureWrapper<Void>((Void) null));
+        Mockito.when(rLock.unlockAsync(Mockito.anyLong())).thenReturn(new CompletableFutureWrapper<Void>((Void) null));
+        lock = new LocalFirstLock(redissonClient);
+    }
+
+    @Test
+    public void reentrantLockReleasesRedisOnlyOnOutermostUnlock() throws Exception {
+        LocalFirstLock.Entry outer = lock.lock(KEY, 1000, -1);
+        LocalFirstLock.Entry inner = lock.lock(KEY, 1000, -1);
+        Assertions.assertSame(outer, inner);
+
+        lock.unlock(inner, 0);
+        Mockito.verify(rLock, Mockito.never()).unlockAsync(Mockito.anyLong());
+
+        lock.unlock(outer, 0);
+        Mockito.verify(rLock, Mockito.times(1)).tryLockAsync(Mockito.anyLong(), Mockito.anyLong(), Mockito.any(TimeUnit.class), Mockito.anyLong());
+        Mockito.verify(rLock, Mockito.times(1)).unlockAsync(Mockito.anyLong());
+        Assertions.assertEquals(0, lock.size());
+    }
+
+    @Test
+    public void redisLockIsHandedOffToQueuedLocalThread() throws Exception {
+        LocalFirstLock.Entry first = lock.lock(KEY, -1, -1);
+        AtomicReference<LocalFirstLock.Entry> second = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                second.set(lock.lock(KEY, -1, -1));
+                Mockito.verify(rLock, Mockito.never()).unlockAsync(Mockito.anyLong());
+                lock.unlock(second.get(), 1000);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        waiter.start();
+        awaitWaiting(waiter);
+
+        lock.unlock(first, 1000);
+        waiter.join(1000);
+        Assertions.assertNotNull(second.get());
+        Mockito.verify(rLock, Mockito.times(1)).lockAsync(Mockito.anyLong(), Mockito.any(TimeUnit.class), Mockito.anyLong());
+        Mockito.verify(rLock, Mockito.times(1)).unlockAsync(Mockito.anyLong());
+        Assertions.assertEquals(0, lock.size());
+    }
+
+    @Test
+    public void timedOutWaitersAreCleanedUp() throws Exception {
+        LocalFirstLock.Entry first = lock.lock(KEY, 1000, -1);
+        Thread waiter = new Thread(() -> {
+            try {
+                Assertions.assertNull(lock.lock(KEY, 50, -1));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        waiter.start();
+        waiter.join(1000);
+        lock.unlock(first, 1000);
+        Mockito.verify(rLock, Mockito.times(1)).unlockAsync(Mockito.anyLong());
+        Assertions.assertEquals(0, lock.size());
+
+        // Redis 上等待超时
+        Mockito.when(rLock.tryLockAsync(Mockito.anyLong(), Mockito.anyLong(), Mockito.any(TimeUnit.class), Mockito.anyLong()))
+                .thenReturn(new CompletableFutureWrapper<>(Boolean.FALSE));
+        Assertions.assertNull(lock.lock(KEY, 50, -1));
+        Mockito.verify(rLock, Mockito.times(1)).unlockAsync(Mockito.anyLong());
+        Assertions.assertEquals(0, lock.size());
+    }
+
+    @Test
+    public void interruptedAcquireIsReleasedWhenItCompletes() throws Exception {
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        Mockito.when(rLock.lockAsync(Mockito.anyLong(), Mockito.any(TimeUnit.class), Mockito.anyLong()))
+                .thenReturn(new CompletableFutureWrapper<>(pending));
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread locker = new Thread(() -> {
+            try {
+                lock.lock(KEY, -1, -1);
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        });
+        locker.start();
+        awaitWaiting(locker);
+        locker.interrupt();
+        locker.join(1000);
+        Assertions.assertInstanceOf(InterruptedException.class, error.get());
+        Assertions.assertEquals(0, lock.size());
+        Mockito.verify(rLock, Mockito.never()).unlockAsync(Mockito.anyLong());
+
+        pending.complete(null);
+        Mockito.verify(rLock, Mockito.times(1)).unlockAsync(Mockito.anyLong());
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assertions.assertEquals(Thread.State.WAITING, thread.getState());
+    }
+}
@@ -1,10 +1,13 @@
 package com.xiaowang.cola.stream.consumer;
 
 import com.alibaba.fastjson2.JSON;
+import com.xiaowang.cola.base.stress.StressContext;
 import com.xiaowang.cola.stream.param.MessageBody;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.Message;
 
+import java.util.function.Consumer;
+
 import static com.xiaowang.cola.stream.producer.StreamProducer.ROCKET_MQ_MESSAGE_ID;
 import static com.xiaowang.cola.stream.producer.StreamProducer.ROCKET_MQ_TOPIC;
 import static com.xiaowang.cola.stream.producer.StreamProducer.ROCKET_TAGS;
@@ -30,7 +33,31 @@ public class AbstractStreamConsumer {
         String tag = msg.getHeaders().get(ROCKET_TAGS, String.class);
         String topic = msg.getHeaders().get(ROCKET_MQ_TOPIC, String.class);
         Object object = JSON.parseObject(msg.getPayload().getBody(), type);
-        log.info("Received Message topic:{} messageId:{},object:{}，tag:{}", topic, messageId, JSON.toJSONString(object), tag);
+        log.info("Received Message topic:{} messageId:{},object:{}，tag:{}，stress:{}", topic, messageId, JSON.toJSONString(object), tag, isStress(msg));
         return (T) object;
     }
+
+    /**
+     * 解析消息并在消息携带的压测上下文中处理，压测消息的缓存和数据库访问会落到影子key和影子表
+     *
+     * @param msg
+     * @param type
+     * @param handler
+     * @param <T>
+     */
+    public static <T> void consume(Message<MessageBody> msg, Class<T> type, Consumer<T> handler) {
+        T object = getMessage(msg, type);
+        StressContext.runWithStress(isStress(msg), () -> handler.accept(object));
+    }
+
+    /**
+     * 消息是否为压测流量
+     *
+     * @param msg
+     * @return
+     */
+    public static boolean isStress(Message<?> msg) {
+        Object stress = msg.getHeaders().get(StressContext.STRESS_HEADER);
+        return stress != null && Boolean.parseBoolean(stress.toString());
+    }
 }
@@ -1,12 +1,14 @@
 package com.xiaowang.cola.stream.producer;
 
 import com.alibaba.fastjson.JSON;
+import com.xiaowang.cola.base.stress.StressContext;
 import com.xiaowang.cola.stream.param.MessageBody;
 import org.apache.rocketmq.common.message.MessageConst;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 
 import java.util.UUID;
@@ -35,8 +37,7 @@ public class StreamProducer {
                 .setIdentifier(UUID.randomUUID().toString())
                 .setBody(msg);
         logger.info("send message : {} , {} , {}", bingingName, tag, JSON.toJSONString(message));
-        boolean result = streamBridge.send(bingingName, MessageBuilder.withPayload(message).setHeader("TAGS", tag)
-                .build());
+        boolean result = streamBridge.send(bingingName, markStress(MessageBuilder.withPayload(message).setHeader("TAGS", tag)));
         logger.info("send result : {} , {} , {}", bingingName, tag, result);
         return result;
     }
@@ -56,8 +57,7 @@ public class StreamProducer {
                 .setIdentifier(UUID.randomUUID().toString())
                 .setBody(msg);
         logger.info("send message : {} , {} , {}", bingingName, tag, JSON.toJSONString(message));
-        boolean result = streamBridge.send(bingingName, MessageBuilder.withPayload(message).setHeader("TAGS", tag).setHeader(MessageConst.PROPERTY_DELAY_TIME_LEVEL, delayLevel)
-                .build());
+        boolean result = streamBridge.send(bingingName, markStress(MessageBuilder.withPayload(message).setHeader("TAGS", tag).setHeader(MessageConst.PROPERTY_DELAY_TIME_LEVEL, delayLevel)));
         logger.info("send result : {} , {} , {}", bingingName, tag, result);
         return result;
     }
@@ -68,9 +68,18 @@ public class StreamProducer {
                 .setIdentifier(UUID.randomUUID().toString())
                 .setBody(msg);
         logger.info("send message : {} , {}", bingingName, JSON.toJSONString(message));
-        boolean result = streamBridge.send(bingingName, MessageBuilder.withPayload(message).setHeader("TAGS", tag).setHeader(headerKey, headerValue)
-                .build());
+        boolean result = streamBridge.send(bingingName, markStress(MessageBuilder.withPayload(message).setHeader("TAGS", tag).setHeader(headerKey, headerValue)));
         logger.info("send result : {} , {}", bingingName, result);
         return result;
     }
+
+    /**
+     * 压测流量发出的消息带上压测标记，消费端据此恢复压测上下文
+     */
+    private Message<MessageBody> markStress(MessageBuilder<MessageBody> builder) {
+        if (StressContext.isStress()) {
+            builder.setHeader(StressContext.STRESS_HEADER, Boolean.TRUE.toString());
+        }
+        return builder.build();
+    }
 }
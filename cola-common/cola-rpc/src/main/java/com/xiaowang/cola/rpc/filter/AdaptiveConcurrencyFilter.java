@@ -0,0 +1,105 @@
+package com.xiaowang.cola.rpc.filter;
+
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.util.ClassUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dubbo 提供端自适应并发限流过滤器，只对 @Facade 方法生效
+ * <pre>
+ *     1、需要引入 cola-limiter 并开启 spring.limiter.adaptive.dubbo-enabled
+ *     2、按服务接口隔离限流器，在途请求数超过限制时直接返回 LIMIT_EXCEEDED_EXCEPTION
+ *     3、服务抛出异常，或者处理耗时超过了调用方的超时时间（调用方已经放弃），视为过载信号计为丢弃
+ * </pre>
+ *
+ * @author cola
+ */
+@Activate(group = CommonConstants.PROVIDER)
+public class AdaptiveConcurrencyFilter implements Filter, Filter.Listener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrencyFilter.class);
+
+    private static final boolean LIMITER_PRESENT = ClassUtils.isPresent(
+            "com.xiaowang.cola.limiter.adaptive.AdaptiveConcurrencyLimiterRegistry", AdaptiveConcurrencyFilter.class.getClassLoader());
+
+    private static final String TOKEN_KEY = "cola.adaptive.token";
+
+    private static final String START_KEY = "cola.adaptive.start";
+
+    private volatile boolean resolved = !LIMITER_PRESENT;
+
+    private volatile FacadeConcurrencyGuard guard;
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        FacadeConcurrencyGuard current = resolveGuard();
+        if (current == null) {
+            return invoker.invoke(invocation);
+        }
+
+        Object token = current.tryAcquire(invoker, invocation);
+        if (token == null) {
+            LOGGER.warn("concurrency limit exceeded for {}#{}", invoker.getInterface().getName(), invocation.getMethodName());
+            throw new RpcException(RpcException.LIMIT_EXCEEDED_EXCEPTION,
+                    "concurrency limit exceeded for " + invoker.getInterface().getName() + "#" + invocation.getMethodName());
+        }
+        invocation.put(TOKEN_KEY, token);
+        invocation.put(START_KEY, System.nanoTime());
+        return invoker.invoke(invocation);
+    }
+
+    @Override
+    public void onResponse(Result appResponse, Invoker<?> invoker, Invocation invocation) {
+        if (guard != null) {
+            boolean dropped = appResponse.hasException() || isTimeout(invoker, invocation);
+            FacadeConcurrencyGuard.release(invocation.get(TOKEN_KEY), !dropped, dropped);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t, Invoker<?> invoker, Invocation invocation) {
+        if (guard != null) {
+            FacadeConcurrencyGuard.release(invocation.get(TOKEN_KEY), false, true);
+        }
+    }
+
+    /**
+     * 提供端不会收到超时异常，按调用方传过来的超时时间判断处理是否已经超时
+     */
+    private static boolean isTimeout(Invoker<?> invoker, Invocation invocation) {
+        Object start = invocation.get(START_KEY);
+        if (!(start instanceof Long startNanos)) {
+            return false;
+        }
+        String timeout = invocation.getAttachment(CommonConstants.TIMEOUT_KEY);
+        long timeoutMillis = timeout != null ? Long.parseLong(timeout)
+                : invoker.getUrl().getMethodParameter(invocation.getMethodName(), CommonConstants.TIMEOUT_KEY, CommonConstants.DEFAULT_TIMEOUT);
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) > timeoutMillis;
+    }
+
+    private FacadeConcurrencyGuard resolveGuard() {
+        if (resolved) {
+            return guard;
+        }
+        try {
+            guard = FacadeConcurrencyGuard.create();
+            resolved = true;
+        } catch (NoSuchBeanDefinitionException e) {
+            resolved = true;
+        } catch (RuntimeException e) {
+            // 容器尚未就绪或没有限流器注册表，下次调用再尝试
+            LOGGER.debug("adaptive concurrency limiter not available yet", e);
+        }
+        return guard;
+    }
+}
@@ -0,0 +1,79 @@
+package com.xiaowang.cola.rpc.filter;
+
+import com.xiaowang.cola.base.utils.SpringContextHolder;
+import com.xiaowang.cola.limiter.adaptive.AdaptiveConcurrencyLimiter;
+import com.xiaowang.cola.limiter.adaptive.AdaptiveConcurrencyLimiterRegistry;
+import com.xiaowang.cola.rpc.facade.Facade;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.model.ServiceModel;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 对 @Facade 方法做自适应并发限流，单独成类，未引入 cola-limiter 时不会被加载
+ *
+ * @author cola
+ */
+final class FacadeConcurrencyGuard {
+
+    private final AdaptiveConcurrencyLimiterRegistry registry;
+
+    private final Map<String, Boolean> facadeMethods = new ConcurrentHashMap<>();
+
+    private FacadeConcurrencyGuard(AdaptiveConcurrencyLimiterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 从 Spring 容器中获取限流器注册表，未开启时返回 null
+     */
+    static FacadeConcurrencyGuard create() {
+        AdaptiveConcurrencyLimiterRegistry registry = SpringContextHolder.getBean(AdaptiveConcurrencyLimiterRegistry.class);
+        return registry.getProperties().isDubboEnabled() ? new FacadeConcurrencyGuard(registry) : null;
+    }
+
+    /**
+     * 申请并发名额
+     *
+     * @return 非 @Facade 方法返回 Boolean.TRUE，被拒绝返回 null，否则返回名额
+     */
+    Object tryAcquire(Invoker<?> invoker, Invocation invocation) {
+        if (!isFacade(invoker, invocation)) {
+            return Boolean.TRUE;
+        }
+        AdaptiveConcurrencyLimiter limiter = registry.getOrCreate("dubbo:" + invoker.getInterface().getName());
+        return limiter.tryAcquire();
+    }
+
+    static void release(Object token, boolean success, boolean dropped) {
+        if (!(token instanceof AdaptiveConcurrencyLimiter.Token limiterToken)) {
+            return;
+        }
+        if (success) {
+            limiterToken.onSuccess();
+        } else if (dropped) {
+            limiterToken.onDropped();
+        } else {
+            limiterToken.onIgnore();
+        }
+    }
+
+    private boolean isFacade(Invoker<?> invoker, Invocation invocation) {
+        String methodKey = invoker.getInterface().getName() + "#" + invocation.getMethodName()
+                + Arrays.toString(invocation.getParameterTypes());
+        return facadeMethods.computeIfAbsent(methodKey, k -> {
+            ServiceModel serviceModel = invocation.getServiceModel();
+            Object service = serviceModel == null ? null : serviceModel.getProxyObject();
+            Class<?> serviceClass = service == null ? invoker.getInterface() : AopUtils.getTargetClass(service);
+            Method method = ClassUtils.getMethodIfAvailable(serviceClass, invocation.getMethodName(), invocation.getParameterTypes());
+            return method != null && AnnotationUtils.findAnnotation(method, Facade.class) != null;
+        });
+    }
+}
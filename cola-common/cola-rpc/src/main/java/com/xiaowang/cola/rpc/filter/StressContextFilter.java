@@ -0,0 +1,44 @@
+package com.xiaowang.cola.rpc.filter;
+
+import com.xiaowang.cola.base.stress.StressContext;
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+
+/**
+ * Dubbo 压测标记透传过滤器
+ * <pre>
+ *     1、消费端把当前线程的压测标记放到隐式参数中
+ *     2、提供端从隐式参数中恢复压测标记，调用结束后还原
+ * </pre>
+ *
+ * @author cola
+ */
+@Activate(group = {CommonConstants.CONSUMER, CommonConstants.PROVIDER})
+public class StressContextFilter implements Filter {
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        if (invoker.getUrl().getSide(CommonConstants.PROVIDER).equals(CommonConstants.CONSUMER)) {
+            if (StressContext.isStress()) {
+                invocation.setAttachment(StressContext.STRESS_HEADER, Boolean.TRUE.toString());
+            }
+            return invoker.invoke(invocation);
+        }
+
+        boolean stress = Boolean.parseBoolean(invocation.getAttachment(StressContext.STRESS_HEADER));
+        if (!stress) {
+            return invoker.invoke(invocation);
+        }
+        StressContext.STRESS_THREAD_LOCAL.set(Boolean.TRUE);
+        try {
+            return invoker.invoke(invocation);
+        } finally {
+            StressContext.STRESS_THREAD_LOCAL.remove();
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package com.xiaowang.cola.web.configuration;
 
+import com.xiaowang.cola.limiter.adaptive.AdaptiveConcurrencyLimiterRegistry;
+import com.xiaowang.cola.limiter.adaptive.AdaptiveConcurrencyProperties;
+import com.xiaowang.cola.web.filter.AdaptiveConcurrencyFilter;
 import com.xiaowang.cola.web.filter.TokenFilter;
 import com.xiaowang.cola.web.handler.GlobalWebExceptionHandler;
 import org.redisson.api.RedissonClient;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
@@ -40,4 +47,23 @@ public class WebConfiguration implements WebMvcConfigurer {
         return registrationBean;
     }
 
+    /**
+     * 引入 cola-limiter 并开启 spring.limiter.adaptive.web-enabled 时注册自适应并发限流过滤器
+     */
+    @Configuration
+    @ConditionalOnClass(AdaptiveConcurrencyLimiterRegistry.class)
+    @ConditionalOnProperty(prefix = AdaptiveConcurrencyProperties.PREFIX, name = "web-enabled", havingValue = "true")
+    static class AdaptiveConcurrencyConfiguration {
+
+        @Bean
+        public FilterRegistrationBean<AdaptiveConcurrencyFilter> adaptiveConcurrencyFilter(AdaptiveConcurrencyLimiterRegistry registry) {
+            FilterRegistrationBean<AdaptiveConcurrencyFilter> registrationBean = new FilterRegistrationBean<>();
+
+            registrationBean.setFilter(new AdaptiveConcurrencyFilter(registry.getOrCreate("web")));
+            registrationBean.addUrlPatterns("/*");
+            registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+
+            return registrationBean;
+        }
+    }
 }
@@ -0,0 +1,56 @@
+package com.xiaowang.cola.web.filter;
+
+import com.xiaowang.cola.limiter.adaptive.AdaptiveConcurrencyLimiter;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * 自适应并发限流过滤器，在途请求数超过限制时直接返回 503，避免线程池被慢请求占满，
+ * 请求抛出异常或者返回 5xx 时计为丢弃，收缩并发限制
+ *
+ * @author cola
+ */
+public class AdaptiveConcurrencyFilter implements Filter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyFilter.class);
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public AdaptiveConcurrencyFilter(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        AdaptiveConcurrencyLimiter.Token token = limiter.tryAcquire();
+        if (token == null) {
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            httpResponse.setHeader("Retry-After", "1");
+            httpResponse.getWriter().write("Server busy, please retry later");
+            logger.warn("concurrency limit exceeded, limit : {}", limiter.getLimit());
+            return;
+        }
+
+        boolean success = false;
+        try {
+            chain.doFilter(request, response);
+            // 5xx 说明下游出错或超时，与异常一样视为过载信号
+            success = ((HttpServletResponse) response).getStatus() < HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        } finally {
+            if (success) {
+                token.onSuccess();
+            } else {
+                token.onDropped();
+            }
+        }
+    }
+}
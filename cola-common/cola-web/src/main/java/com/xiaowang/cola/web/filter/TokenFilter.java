@@ -1,5 +1,6 @@
 package com.xiaowang.cola.web.filter;
 
+import com.xiaowang.cola.base.stress.StressContext;
 import com.xiaowang.cola.web.util.TokenUtil;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,7 +25,10 @@ public class TokenFilter implements Filter {
 
     public static final ThreadLocal<String> TOKEN_THREAD_LOCAL = new ThreadLocal<>();
 
-    public static final ThreadLocal<Boolean> STRESS_THREAD_LOCAL = new ThreadLocal<>();
+    /**
+     * 与 StressContext 共用同一个 ThreadLocal，压测标记可以透传到缓存、数据库、MQ 和 RPC
+     */
+    public static final ThreadLocal<Boolean> STRESS_THREAD_LOCAL = StressContext.STRESS_THREAD_LOCAL;
 
     private static final String HEADER_VALUE_NULL = "null";
 
@@ -49,7 +53,7 @@ public class TokenFilter implements Filter {
 
             // 从请求头中获取Token
             String token = httpRequest.getHeader("Authorization");
-            Boolean isStress = BooleanUtils.toBoolean(httpRequest.getHeader("isStress"));
+            Boolean isStress = BooleanUtils.toBoolean(httpRequest.getHeader(StressContext.STRESS_HEADER));
 
             if (token == null || HEADER_VALUE_NULL.equals(token) || HEADER_VALUE_UNDEFINED.equals(token)) {
                 httpResponse.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -97,6 +101,9 @@ public class TokenFilter implements Filter {
             STRESS_THREAD_LOCAL.set(isStress);
         }else{
             String tokenKey = TokenUtil.getTokenKeyByValue(token);
+            if (tokenKey == null) {
+                return false;
+            }
 
             String luaScript = """
                 local value = redis.call('GET', KEYS[1])
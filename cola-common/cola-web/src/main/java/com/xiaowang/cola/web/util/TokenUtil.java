@@ -1,8 +1,12 @@
 package com.xiaowang.cola.web.util;
 
-import cn.hutool.crypto.SecureUtil;
+import com.xiaowang.cola.base.crypto.AesEcbCipher;
+import com.xiaowang.cola.base.crypto.AesGcmCipher;
+import com.xiaowang.cola.base.crypto.CipherPool;
+import com.xiaowang.cola.base.exception.SystemException;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.UUID;
 
 import static com.xiaowang.cola.cache.constant.CacheConstant.CACHE_KEY_SEPARATOR;
@@ -12,6 +16,13 @@ public class TokenUtil {
 
     private static final String TOEKN_AES_KEY = "tokenbynfturbo_0";
 
+    private static final AesGcmCipher TOKEN_CIPHER = CipherPool.aesGcm(TOEKN_AES_KEY.getBytes(StandardCharsets.UTF_8));
+
+    /**
+     * 升级前用 hutool AES(ECB) 签发的 token 仍在客户端手里，解密时兼容
+     */
+    private static final AesEcbCipher LEGACY_TOKEN_CIPHER = CipherPool.aesEcb(TOEKN_AES_KEY.getBytes(StandardCharsets.UTF_8));
+
     public static final String TOKEN_PREFIX = "token:";
 
     public static String getTokenValueByKey(String tokenKey) {
@@ -22,18 +33,44 @@ public class TokenUtil {
         //token:buy:29:10085:5ac6542b-64b1-4d41-91b9-e6c55849bb7f
         String tokenValue = tokenKey + CACHE_KEY_SEPARATOR + uuid;
 
-        //YZdkYfQ8fy7biSTsS5oZrbsB8eN7dHPgtCV0dw/36AHSfDQzWOj+ULNEcMluHvep/txjP+BqVRH3JlprS8tWrQ==
-        return SecureUtil.aes(TOEKN_AES_KEY.getBytes(StandardCharsets.UTF_8)).encryptBase64(tokenValue);
+        return Base64.getEncoder().encodeToString(TOKEN_CIPHER.encrypt(tokenValue.getBytes(StandardCharsets.UTF_8)));
     }
 
+    /**
+     * 解析 token 对应的 key
+     *
+     * @param tokenValue token
+     * @return 无法解密或格式不对时返回 null，按无效 token 处理
+     */
     public static String getTokenKeyByValue(String tokenValue) {
         if (tokenValue == null) {
             return null;
         }
+        byte[] cipherText;
+        try {
+            cipherText = Base64.getDecoder().decode(tokenValue);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
         //token:buy:29:10085:5ac6542b-64b1-4d41-91b9-e6c55849bb7f
-        String decryptTokenValue = SecureUtil.aes(TOEKN_AES_KEY.getBytes(StandardCharsets.UTF_8)).decryptStr(tokenValue);
-        System.out.println(decryptTokenValue);
+        String decryptTokenValue = decrypt(cipherText);
+        if (decryptTokenValue == null || !decryptTokenValue.contains(CACHE_KEY_SEPARATOR)) {
+            return null;
+        }
 
         return decryptTokenValue.substring(0, decryptTokenValue.lastIndexOf(CACHE_KEY_SEPARATOR));
     }
+
+    private static String decrypt(byte[] cipherText) {
+        try {
+            return new String(TOKEN_CIPHER.decrypt(cipherText), StandardCharsets.UTF_8);
+        } catch (SystemException e) {
+            // GCM 认证失败，可能是升级前签发的 ECB token
+        }
+        try {
+            return new String(LEGACY_TOKEN_CIPHER.decrypt(cipherText), StandardCharsets.UTF_8);
+        } catch (SystemException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,32 @@
+package com.xiaowang.cola.web.util;
+
+import cn.hutool.crypto.SecureUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author cola
+ */
+public class TokenUtilTest {
+
+    @Test
+    public void tokenRoundTrip() {
+        String token = TokenUtil.getTokenValueByKey("token:buy:29:10085");
+        Assertions.assertEquals("token:buy:29:10085", TokenUtil.getTokenKeyByValue(token));
+    }
+
+    @Test
+    public void legacyEcbTokenIsAccepted() {
+        String legacyToken = SecureUtil.aes("tokenbynfturbo_0".getBytes(StandardCharsets.UTF_8))
+                .encryptBase64("token:buy:29:10085:5ac6542b-64b1-4d41-91b9-e6c55849bb7f");
+        Assertions.assertEquals("token:buy:29:10085", TokenUtil.getTokenKeyByValue(legacyToken));
+    }
+
+    @Test
+    public void invalidTokenReturnsNull() {
+        Assertions.assertNull(TokenUtil.getTokenKeyByValue("not base64 !"));
+        Assertions.assertNull(TokenUtil.getTokenKeyByValue("YWJjZGVmZ2hpamtsbW5vcHFyc3R1dnd4eXo="));
+    }
+}
@@ -0,0 +1,24 @@
+package com.xiaowang.cola.gateway.limiter;
+
+import com.xiaowang.cola.limiter.LocalRateLimiter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+/**
+ * 网关限流配置
+ *
+ * @author cola
+ */
+@Configuration
+@EnableConfigurationProperties(GatewayRateLimitProperties.class)
+public class GatewayRateLimitConfiguration {
+
+    @Bean
+    public GatewayRateLimitFilter gatewayRateLimitFilter(GatewayRateLimitProperties properties,
+                                                         ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                                                         LocalRateLimiter localRateLimiter) {
+        return new GatewayRateLimitFilter(properties, reactiveStringRedisTemplate, localRateLimiter);
+    }
+}
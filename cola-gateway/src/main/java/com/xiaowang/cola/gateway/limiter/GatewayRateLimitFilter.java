@@ -0,0 +1,182 @@
+package com.xiaowang.cola.gateway.limiter;
+
+import cn.dev33.satoken.stp.StpUtil;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xiaowang.cola.limiter.LocalRateLimiter;
+import com.xiaowang.cola.limiter.RateLimitResult;
+import com.xiaowang.cola.limiter.SlidingWindowRateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关限流过滤器
+ * <pre>
+ *     1、按路由取规则，每条规则按登录用户、IP或路由生成限流key
+ *     2、通过响应式 Redis 客户端执行滑动窗口 Lua 脚本，全程不阻塞事件循环
+ *     3、Redis 超时或异常时退化为本地令牌桶，按单机维度限流
+ *     4、任一规则被拒绝时直接返回 429，并带上 Retry-After
+ * </pre>
+ *
+ * @author cola
+ */
+@Slf4j
+public class GatewayRateLimitFilter implements GlobalFilter, Ordered {
+
+    private static final String LIMIT_KEY_PREFIX = "cola:limit:gw:";
+
+    private static final String REJECT_BODY = "{\"code\":429,\"msg\":\"请求过于频繁，请稍后再试\",\"data\":null}";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SCRIPT = RedisScript.of(SlidingWindowRateLimiter.SLIDING_WINDOW_SCRIPT, List.class);
+
+    private final GatewayRateLimitProperties properties;
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    private final LocalRateLimiter fallbackLimiter;
+
+    /**
+     * 客户端IP解析，X-Forwarded-For 的第一个值由客户端控制，只信任最后几层可信代理追加的值
+     */
+    private final RemoteAddressResolver remoteAddressResolver;
+
+    /**
+     * token 到登录ID的缓存，避免每个请求都查询 Sa-Token 的会话存储
+     */
+    private final AsyncCache<String, Optional<String>> loginIdCache = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .buildAsync();
+
+    public GatewayRateLimitFilter(GatewayRateLimitProperties properties, ReactiveStringRedisTemplate redisTemplate,
+                                  LocalRateLimiter fallbackLimiter) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.fallbackLimiter = fallbackLimiter;
+        this.remoteAddressResolver = properties.getTrustedProxyCount() > 0
+                ? XForwardedRemoteAddressResolver.maxTrustedIndex(properties.getTrustedProxyCount())
+                : new RemoteAddressResolver() {
+                };
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route == null ? "none" : route.getId();
+        List<GatewayRateLimitProperties.Rule> rules = properties.getRules(routeId);
+        if (rules.isEmpty()) {
+            return chain.filter(exchange);
+        }
+
+        return Flux.fromIterable(rules)
+                .concatMap(rule -> resolveKey(exchange, routeId, rule)
+                        .flatMap(key -> acquire(key, rule)))
+                .filter(result -> !result.isAllowed())
+                .next()
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                // reject 返回的是空的 Mono<Void>，不能用 switchIfEmpty 放行，否则被拒绝的请求也会被转发
+                .flatMap(rejected -> rejected.isPresent() ? reject(exchange, rejected.get()) : chain.filter(exchange));
+    }
+
+    Mono<String> resolveKey(ServerWebExchange exchange, String routeId, GatewayRateLimitProperties.Rule rule) {
+        String prefix = routeId + ":" + rule.getKeyType().name().toLowerCase() + ":";
+        return switch (rule.getKeyType()) {
+            case ROUTE -> Mono.just(prefix + "all");
+            case IP -> Mono.just(prefix + clientIp(exchange));
+            // 未登录时按IP限流，但与IP规则使用不同的key，避免同一个窗口被两条规则重复计数
+            case LOGIN_ID -> loginId(exchange.getRequest())
+                    .map(loginId -> prefix + loginId)
+                    .defaultIfEmpty(prefix + "ip:" + clientIp(exchange));
+        };
+    }
+
+    private Mono<RateLimitResult> acquire(String key, GatewayRateLimitProperties.Rule rule) {
+        List<String> keys = Collections.singletonList(LIMIT_KEY_PREFIX + key);
+        List<String> args = List.of("1", String.valueOf(rule.getLimit()),
+                String.valueOf(TimeUnit.SECONDS.toMillis(rule.getWindowSize())),
+                String.valueOf(SlidingWindowRateLimiter.subBucketMillis(rule.getWindowSize())));
+        return redisTemplate.execute(SCRIPT, keys, args)
+                .next()
+                .map(GatewayRateLimitFilter::toResult)
+                .timeout(Duration.ofMillis(properties.getRedisTimeoutMillis()))
+                .onErrorResume(e -> {
+                    log.warn("gateway rate limit fallback to local bucket, key : {} , error : {}", key, e.toString());
+                    return Mono.fromSupplier(() -> fallbackLimiter.acquire(LIMIT_KEY_PREFIX + key, 1, rule.getLimit(), rule.getWindowSize()));
+                });
+    }
+
+    private static RateLimitResult toResult(List<?> result) {
+        long allowed = Long.parseLong(String.valueOf(result.get(0)));
+        long waitMillis = Long.parseLong(String.valueOf(result.get(1)));
+        return allowed == 1 ? RateLimitResult.allowed() : RateLimitResult.rejected(waitMillis);
+    }
+
+    private Mono<String> loginId(ServerHttpRequest request) {
+        String token = request.getHeaders().getFirst(StpUtil.getTokenName());
+        if (!StringUtils.hasText(token)) {
+            return Mono.empty();
+        }
+        // Sa-Token 的会话查询是阻塞调用，放到弹性线程池中执行并缓存结果
+        return Mono.fromFuture(loginIdCache.get(token, (t, executor) -> Mono
+                        .fromCallable(() -> Optional.ofNullable(StpUtil.getLoginIdByToken(t)).map(String::valueOf))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .toFuture()))
+                .flatMap(Mono::justOrEmpty)
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private String clientIp(ServerWebExchange exchange) {
+        InetSocketAddress remoteAddress = remoteAddressResolver.resolve(exchange);
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress().getHostAddress();
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, RateLimitResult result) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, result.getRetryAfterSeconds())));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer buffer = response.bufferFactory().wrap(REJECT_BODY.getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    @Override
+    public int getOrder() {
+        // 在负载均衡和路由转发之前执行
+        return Ordered.HIGHEST_PRECEDENCE + 100;
+    }
+}
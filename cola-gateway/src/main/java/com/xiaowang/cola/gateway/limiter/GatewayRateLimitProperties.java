@@ -0,0 +1,83 @@
+package com.xiaowang.cola.gateway.limiter;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 网关限流配置
+ * <pre>
+ * spring:
+ *   limiter:
+ *     gateway:
+ *       default-rules:
+ *         - key-type: IP
+ *           limit: 200
+ *           window-size: 1
+ *       routes:
+ *         cola-business:
+ *           - key-type: LOGIN_ID
+ *             limit: 20
+ *             window-size: 1
+ * </pre>
+ *
+ * @author cola
+ */
+@Data
+@ConfigurationProperties(prefix = GatewayRateLimitProperties.PREFIX)
+public class GatewayRateLimitProperties {
+    public static final String PREFIX = "spring.limiter.gateway";
+
+    /**
+     * 是否开启网关限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * Redis 调用超时时间，超时或异常时使用本地令牌桶兜底，单位毫秒
+     */
+    private long redisTimeoutMillis = 50;
+
+    /**
+     * 网关前面可信的代理层数，用于从 X-Forwarded-For 中取客户端IP；为 0 时不信任该请求头，直接使用连接的远端地址
+     */
+    private int trustedProxyCount = 0;
+
+    /**
+     * 没有单独配置的路由使用的规则
+     */
+    private List<Rule> defaultRules = new ArrayList<>();
+
+    /**
+     * 按路由ID配置的规则，会覆盖默认规则
+     */
+    private Map<String, List<Rule>> routes = new HashMap<>();
+
+    public List<Rule> getRules(String routeId) {
+        List<Rule> rules = routeId == null ? null : routes.get(routeId);
+        return rules == null ? defaultRules : rules;
+    }
+
+    @Data
+    public static class Rule {
+
+        /**
+         * 限流维度
+         */
+        private LimitKeyType keyType = LimitKeyType.IP;
+
+        /**
+         * 窗口内允许通过的数量
+         */
+        private int limit;
+
+        /**
+         * 窗口大小，单位秒
+         */
+        private int windowSize = 1;
+    }
+}
@@ -0,0 +1,24 @@
+package com.xiaowang.cola.gateway.limiter;
+
+/**
+ * 网关限流维度
+ *
+ * @author cola
+ */
+public enum LimitKeyType {
+
+    /**
+     * 按登录用户限流，未登录时退化为按IP
+     */
+    LOGIN_ID,
+
+    /**
+     * 按客户端IP限流
+     */
+    IP,
+
+    /**
+     * 按路由整体限流
+     */
+    ROUTE
+}
@@ -0,0 +1,122 @@
+package com.xiaowang.cola.gateway.limiter;
+
+import com.xiaowang.cola.limiter.LocalRateLimiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author cola
+ */
+public class GatewayRateLimitFilterTest {
+
+    private static GatewayRateLimitProperties.Rule rule(LimitKeyType keyType, int limit) {
+        GatewayRateLimitProperties.Rule rule = new GatewayRateLimitProperties.Rule();
+        rule.setKeyType(keyType);
+        rule.setLimit(limit);
+        return rule;
+    }
+
+    private static MockServerWebExchange exchange(String forwardedFor) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/user/info")
+                .remoteAddress(new InetSocketAddress("10.0.0.1", 40000));
+        if (forwardedFor != null) {
+            request.header("X-Forwarded-For", forwardedFor);
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+                Route.async().id("cola-business").uri("http://localhost").predicate(e -> true).build());
+        return exchange;
+    }
+
+    private static GatewayRateLimitFilter filter(GatewayRateLimitProperties properties, ReactiveStringRedisTemplate redisTemplate) {
+        return new GatewayRateLimitFilter(properties, redisTemplate, new LocalRateLimiter(1000));
+    }
+
+    @Test
+    public void anonymousLoginIdKeyDiffersFromIpKey() {
+        GatewayRateLimitFilter filter = filter(new GatewayRateLimitProperties(), Mockito.mock(ReactiveStringRedisTemplate.class));
+        MockServerWebExchange exchange = exchange(null);
+
+        String ipKey = filter.resolveKey(exchange, "cola-business", rule(LimitKeyType.IP, 200)).block();
+        String loginIdKey = filter.resolveKey(exchange, "cola-business", rule(LimitKeyType.LOGIN_ID, 30)).block();
+
+        Assertions.assertEquals("cola-business:ip:10.0.0.1", ipKey);
+        Assertions.assertEquals("cola-business:login_id:ip:10.0.0.1", loginIdKey);
+    }
+
+    @Test
+    public void forwardedForIsOnlyTrustedFromConfiguredProxies() {
+        GatewayRateLimitProperties untrusted = new GatewayRateLimitProperties();
+        Assertions.assertEquals("cola-business:ip:10.0.0.1", filter(untrusted, Mockito.mock(ReactiveStringRedisTemplate.class))
+                .resolveKey(exchange("1.1.1.1, 2.2.2.2"), "cola-business", rule(LimitKeyType.IP, 200)).block());
+
+        // 一层可信代理时取代理追加的最后一个值，客户端伪造的第一个值被忽略
+        GatewayRateLimitProperties trusted = new GatewayRateLimitProperties();
+        trusted.setTrustedProxyCount(1);
+        Assertions.assertEquals("cola-business:ip:2.2.2.2", filter(trusted, Mockito.mock(ReactiveStringRedisTemplate.class))
+                .resolveKey(exchange("1.1.1.1, 2.2.2.2"), "cola-business", rule(LimitKeyType.IP, 200)).block());
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void rejectedRequestGets429WithRetryAfter() {
+        GatewayRateLimitProperties properties = new GatewayRateLimitProperties();
+        properties.getDefaultRules().add(rule(LimitKeyType.IP, 200));
+        ReactiveStringRedisTemplate redisTemplate = Mockito.mock(ReactiveStringRedisTemplate.class);
+        Mockito.when(redisTemplate.execute(Mockito.any(RedisScript.class), Mockito.anyList(), Mockito.anyList()))
+                .thenReturn(Flux.just(List.of(0L, 2500L)));
+
+        MockServerWebExchange exchange = exchange(null);
+        AtomicBoolean forwarded = new AtomicBoolean();
+        GatewayFilterChain chain = e -> {
+            forwarded.set(true);
+            return Mono.empty();
+        };
+        filter(properties, redisTemplate).filter(exchange, chain).block();
+
+        Assertions.assertFalse(forwarded.get());
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, exchange.getResponse().getStatusCode());
+        Assertions.assertEquals("3", exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        ArgumentCaptor<List> keys = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(redisTemplate).execute(Mockito.any(RedisScript.class), keys.capture(), Mockito.anyList());
+        Assertions.assertEquals(List.of("cola:limit:gw:cola-business:ip:10.0.0.1"), keys.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void allowedRequestIsForwarded() {
+        GatewayRateLimitProperties properties = new GatewayRateLimitProperties();
+        properties.getDefaultRules().add(rule(LimitKeyType.IP, 200));
+        ReactiveStringRedisTemplate redisTemplate = Mockito.mock(ReactiveStringRedisTemplate.class);
+        Mockito.when(redisTemplate.execute(Mockito.any(RedisScript.class), Mockito.anyList(), Mockito.anyList()))
+                .thenReturn(Flux.just(List.of(1L, 0L)));
+
+        AtomicBoolean forwarded = new AtomicBoolean();
+        MockServerWebExchange exchange = exchange(null);
+        filter(properties, redisTemplate).filter(exchange, e -> {
+            forwarded.set(true);
+            return Mono.empty();
+        }).block();
+
+        Assertions.assertTrue(forwarded.get());
+        Assertions.assertNull(exchange.getResponse().getStatusCode());
+    }
+}